@@ -8,7 +8,8 @@ import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
-import com.google.gson.Gson;
+import no.uib.inf112.core.map.CompiledMap;
+import no.uib.inf112.core.map.GameMap;
 import no.uib.inf112.core.map.MapHandler;
 import no.uib.inf112.core.map.TiledMapHandler;
 import no.uib.inf112.core.multiplayer.IClient;
@@ -44,8 +45,6 @@ public class GameGraphics extends Game {
     public static boolean soundMuted;
     public static int players;
 
-    public static Gson gson = new Gson();
-
     public static String mainPlayerName = "default name";
 
     public static final int MIN_PORT = 49152;
@@ -59,7 +58,7 @@ public class GameGraphics extends Game {
 
     public static RoboRally createRoboRallyMultiplayer(@NotNull NewGameDto setup, IClient client) {
         String mapPath = (!HEADLESS ? MAP_FOLDER : "") + setup.map + MAP_EXTENSION;
-        MapHandler mapHandler = !HEADLESS ? new TiledMapHandler(mapPath) : new HeadlessMapHandler(mapPath);
+        MapHandler mapHandler = loadMap(mapPath);
         roboRally = new RoboRally(mapHandler, new MultiPlayerHandler(setup, mapHandler, client));
         return roboRally;
     }
@@ -116,6 +115,10 @@ public class GameGraphics extends Game {
     }
 
     public static RoboRally getRoboRally() {
+        RoboRally background = RoboRally.getBackgroundGame();
+        if (background != null) {
+            return background;
+        }
         if (null == roboRally) {
             createRoboRally(MAP_FOLDER + mapFileName + MAP_EXTENSION, players);
         }
@@ -124,15 +127,27 @@ public class GameGraphics extends Game {
 
     public static void resetRoborally() {
         RoboRally.SECOND_THREAD.cancelTasks();
+        RoboRally.getScheduler().cancelTasks();
         roboRally = null;
     }
 
     public static synchronized RoboRally createRoboRally(String map, int playerCount) {
-        MapHandler mapHandler = !HEADLESS ? new TiledMapHandler(map) : new HeadlessMapHandler(map);
+        MapHandler mapHandler = loadMap(map);
         roboRally = new RoboRally(mapHandler, new PlayerHandler(playerCount, mapHandler));
         return roboRally;
     }
 
+    /**
+     * Load the given map, and compile it into the map cache for the next time it is loaded if maps are cached (see
+     * {@link CompiledMap#setCacheFolder(java.nio.file.Path)})
+     */
+    @NotNull
+    private static MapHandler loadMap(@NotNull String map) {
+        GameMap mapHandler = !HEADLESS ? new TiledMapHandler(map) : new HeadlessMapHandler(map);
+        CompiledMap.compileAndCache(mapHandler, map);
+        return mapHandler;
+    }
+
     public static BitmapFont generateFont(String fontFile, int size) {
         FreeTypeFontGenerator fontGenerator = new FreeTypeFontGenerator(Gdx.files.internal(fontFile));
         FreeTypeFontGenerator.FreeTypeFontParameter parameter = new FreeTypeFontGenerator.FreeTypeFontParameter();
@@ -1,14 +1,18 @@
 package no.uib.inf112.core;
 
-import com.badlogic.gdx.Gdx;
 import no.uib.inf112.core.map.MapHandler;
 import no.uib.inf112.core.map.cards.Deck;
 import no.uib.inf112.core.map.cards.MovementDeck;
+import no.uib.inf112.core.map.tile.TileGraphic;
 import no.uib.inf112.core.player.IPlayer;
 import no.uib.inf112.core.player.IPlayerHandler;
 import no.uib.inf112.core.round.DefaultGameRule;
 import no.uib.inf112.core.util.CancellableThreadScheduler;
+import no.uib.inf112.core.util.GameScheduler;
+import no.uib.inf112.core.util.RealTimeScheduler;
+import no.uib.inf112.core.util.TaskMetrics;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class RoboRally {
     private static final int STANDARD_ROUND_DURATION = 910;
@@ -18,10 +22,20 @@ public class RoboRally {
     private Deck deck;
 
     public static final CancellableThreadScheduler SECOND_THREAD = new CancellableThreadScheduler();
+    private static GameScheduler scheduler = new RealTimeScheduler(SECOND_THREAD);
+    //The game played in the background by the current thread, see play(Runnable)
+    private static final ThreadLocal<RoboRally> BACKGROUND_GAME = new ThreadLocal<>();
+
+    //The scheduler of a game played in the background, null for the game shown
+    @Nullable
+    private final GameScheduler backgroundScheduler;
 
     public RoboRally(@NotNull MapHandler map, @NotNull IPlayerHandler playerHandler) {
         RoboRally.SECOND_THREAD.cancelTasks();
+        scheduler.cancelTasks();
+        backgroundScheduler = null;
         this.map = map;
+        TileGraphic.cacheTiles(map);
         deck = new MovementDeck();
         this.playerHandler = playerHandler;
         for (IPlayer player : playerHandler.getPlayers()) {
@@ -30,7 +44,68 @@ public class RoboRally {
     }
 
     /**
-     * This method will always run the runnable on the main thread
+     * Create a game played in the background, such as the game of a room on the server. It is only played within
+     * {@link #play(Runnable)} and never touches the game shown by {@link GameGraphics}
+     *
+     * @param scheduler The scheduler to run all timed actions of this game with, it is only driven by whoever plays
+     *                  this game
+     */
+    public RoboRally(@NotNull MapHandler map, @NotNull IPlayerHandler playerHandler, @NotNull GameScheduler scheduler) {
+        backgroundScheduler = scheduler;
+        this.map = map;
+        deck = new MovementDeck();
+        this.playerHandler = playerHandler;
+        //the tiles of the players are found on this map
+        play(() -> {
+            for (IPlayer player : playerHandler.getPlayers()) {
+                map.addEntity(player);
+            }
+        });
+    }
+
+    /**
+     * Play this background game on the current thread. While the runnable runs {@link GameGraphics#getRoboRally()}
+     * is this game, all timed actions are scheduled with the scheduler of this game and no sound is played. Tasks
+     * scheduled must be run by driving the scheduler within the runnable
+     *
+     * @param runnable What to do in this game
+     * @throws IllegalStateException If this game is not played in the background
+     */
+    public void play(@NotNull Runnable runnable) {
+        if (backgroundScheduler == null) {
+            throw new IllegalStateException("Only games with their own scheduler can be played in the background");
+        }
+        RoboRally previous = BACKGROUND_GAME.get();
+        BACKGROUND_GAME.set(this);
+        try {
+            runnable.run();
+        } finally {
+            BACKGROUND_GAME.set(previous);
+        }
+    }
+
+    /**
+     * @return The game played in the background by the current thread, or {@code null} if none is played
+     */
+    @Nullable
+    public static RoboRally getBackgroundGame() {
+        return BACKGROUND_GAME.get();
+    }
+
+    /**
+     * @return The scheduler of the game played by the current thread
+     */
+    @NotNull
+    private static GameScheduler currentScheduler() {
+        RoboRally background = BACKGROUND_GAME.get();
+        //only games played in the background are ever set
+        //noinspection ConstantConditions
+        return background != null ? background.backgroundScheduler : scheduler;
+    }
+
+    /**
+     * This method will always run the runnable on the game thread, as decided by the current scheduler (see
+     * {@link #setScheduler(GameScheduler)})
      *
      * @param runnable
      *     The code to run
@@ -38,12 +113,55 @@ public class RoboRally {
      *     How long, in milliseconds, to wait before executing the runnable
      */
     public static void scheduleSync(@NotNull Runnable runnable, long msDelay) {
-        if (msDelay <= 0) {
-            Gdx.app.postRunnable(runnable);
-        }
-        else {
-            SECOND_THREAD.scheduleSync(runnable, msDelay);
+        scheduleSync(runnable, msDelay, null);
+    }
+
+    /**
+     * This method will always run the runnable on the game thread, as decided by the current scheduler (see
+     * {@link #setScheduler(GameScheduler)})
+     *
+     * @param runnable
+     *     The code to run
+     * @param msDelay
+     *     How long, in milliseconds, to wait before executing the runnable
+     * @param tag
+     *     What to count the runnable as in {@link TaskMetrics}, {@code null} to use the tag of the task currently running
+     */
+    public static void scheduleSync(@NotNull Runnable runnable, long msDelay, @Nullable String tag) {
+        GameScheduler scheduler = currentScheduler();
+        if (!scheduler.isVirtual()) {
+            //lateness on a virtual clock is meaningless
+            runnable = TaskMetrics.instrument(runnable, msDelay, tag);
         }
+        scheduler.scheduleSync(runnable, msDelay);
+    }
+
+    /**
+     * Update the given map before the next game task is run, several requests might be merged into one update. Use
+     * this instead of {@link MapHandler#update(float)} when the update is only needed for later tasks to see the
+     * changes.
+     *
+     * @param map The map to update
+     */
+    public static void requestMapUpdate(@NotNull MapHandler map) {
+        currentScheduler().requestMapUpdate(map);
+    }
+
+    /**
+     * @param scheduler The scheduler to run all timed game actions with, or {@code null} to run the game in real time
+     *                  on the LibGDX main thread
+     */
+    public static void setScheduler(@Nullable GameScheduler scheduler) {
+        RoboRally.scheduler = scheduler != null ? scheduler : new RealTimeScheduler(SECOND_THREAD);
+    }
+
+    /**
+     * @return The scheduler all timed game actions are run with, or the scheduler of the game played in the background
+     * by the current thread
+     */
+    @NotNull
+    public static GameScheduler getScheduler() {
+        return currentScheduler();
     }
 
     public void round() {
@@ -0,0 +1,646 @@
+package no.uib.inf112.core.map;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.FileTextureData;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.XmlReader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static no.uib.inf112.core.map.MapHandler.*;
+
+/**
+ * A board compiled from its Tiled map into a compact binary form, so it can be loaded without parsing any XML. The
+ * Tiled map is always the source of truth, a compiled map remembers the size and last modification time of the files
+ * it was compiled from (the Tiled map, its tile sets and their images) and is only used while they are unchanged.
+ * <p>
+ * The compiled form holds the properties and tile sets of the map and a grid of tile ids for each layer that never
+ * changes, read directly from the memory mapped file. Everything else about the board, such as walls and lasers, is
+ * found from the tiles when the map is loaded, just as for a Tiled map.
+ * <p>
+ * Every tile remembers the image and the region of the image it is drawn from, so textures are loaded straight from
+ * the images when the map is rendered.
+ * <p>
+ * Maps are only compiled and cached when asked to with {@link #compileAndCache(GameMap, String)}, and only if a cache
+ * folder has been set with {@link #setCacheFolder(Path)}. Without one, maps are always loaded from their Tiled map.
+ */
+public class CompiledMap {
+
+    public static final String EXTENSION = ".rrmap";
+    public static final Path DEFAULT_CACHE_FOLDER = Paths.get(System.getProperty("java.io.tmpdir"), "roborally", "maps");
+
+    /**
+     * The static layers of a map in the order they are stored
+     */
+    public static final String[] LAYER_NAMES = {BOARD_LAYER_NAME, LASERS_LAYER_NAME, COLLIDABLES_LAYER_NAME, FLAG_LAYER_NAME};
+
+    private static final int MAGIC = 0x52524D50;
+    //Change when the format changes or when tiles are read differently from a Tiled map
+    private static final int VERSION = 3;
+
+    private static final int ID_MASK = 0x0FFFFFFF;
+    private static final int FLIP_HORIZONTALLY = 1 << 31;
+    private static final int FLIP_VERTICALLY = 1 << 30;
+    private static final int ROTATION_SHIFT = 28;
+
+    private static final byte STRING_PROPERTY = 0;
+    private static final byte INT_PROPERTY = 1;
+    private static final byte FLOAT_PROPERTY = 2;
+    private static final byte BOOLEAN_PROPERTY = 3;
+    private static final byte COLOR_PROPERTY = 4;
+
+    //The image of a tile without texture
+    private static final int NO_IMAGE = -1;
+    //How many ints each tile of a tile set is stored as
+    private static final int TILE_INTS = 6;
+
+    @Nullable
+    private static volatile Path cacheFolder;
+
+    private final ByteBuffer buffer;
+
+    //The files this map was compiled from, with their size and last modification time when it was compiled
+    private final List<String> sources;
+    private final long[] sourceSizes;
+    private final long[] sourceModified;
+    private final int width;
+    private final int height;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final MapProperties properties;
+    private final List<String> images;
+    private final List<String> tileSetNames;
+    //Every tile of a tile set as its id, image, x, y, width and height
+    private final List<int[]> tileSetTiles;
+    //Where the grid of each layer starts in the buffer, -1 if the map does not have the layer
+    private final int[] layerOffsets;
+
+    /**
+     * @throws IllegalArgumentException If the buffer does not hold a compiled map of this version
+     */
+    private CompiledMap(@NotNull ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a compiled map");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Compiled map is of version " + version + ", expected " + VERSION);
+        }
+        int sourceCount = buffer.getInt();
+        sources = new ArrayList<>(sourceCount);
+        sourceSizes = new long[sourceCount];
+        sourceModified = new long[sourceCount];
+        for (int i = 0; i < sourceCount; i++) {
+            sources.add(getString(buffer));
+            sourceSizes[i] = buffer.getLong();
+            sourceModified[i] = buffer.getLong();
+        }
+        width = buffer.getInt();
+        height = buffer.getInt();
+        tileWidth = buffer.getInt();
+        tileHeight = buffer.getInt();
+
+        properties = new MapProperties();
+        int propertyCount = buffer.getInt();
+        for (int i = 0; i < propertyCount; i++) {
+            String key = getString(buffer);
+            byte type = buffer.get();
+            switch (type) {
+                case STRING_PROPERTY:
+                    properties.put(key, getString(buffer));
+                    break;
+                case INT_PROPERTY:
+                    properties.put(key, buffer.getInt());
+                    break;
+                case FLOAT_PROPERTY:
+                    properties.put(key, buffer.getFloat());
+                    break;
+                case BOOLEAN_PROPERTY:
+                    properties.put(key, buffer.get() != 0);
+                    break;
+                case COLOR_PROPERTY:
+                    properties.put(key, new Color(buffer.getInt()));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown property type " + type + " of " + key);
+            }
+        }
+
+        int imageCount = buffer.getInt();
+        images = new ArrayList<>(imageCount);
+        for (int i = 0; i < imageCount; i++) {
+            images.add(getString(buffer));
+        }
+
+        int tileSetCount = buffer.getInt();
+        tileSetNames = new ArrayList<>(tileSetCount);
+        tileSetTiles = new ArrayList<>(tileSetCount);
+        for (int i = 0; i < tileSetCount; i++) {
+            tileSetNames.add(getString(buffer));
+            int[] tiles = new int[buffer.getInt() * TILE_INTS];
+            for (int j = 0; j < tiles.length; j++) {
+                tiles[j] = buffer.getInt();
+            }
+            tileSetTiles.add(tiles);
+        }
+
+        layerOffsets = new int[LAYER_NAMES.length];
+        for (int i = 0; i < LAYER_NAMES.length; i++) {
+            if (buffer.get() != 0) {
+                layerOffsets[i] = buffer.position();
+                buffer.position(buffer.position() + width * height * Integer.BYTES);
+            } else {
+                layerOffsets[i] = -1;
+            }
+        }
+    }
+
+    /**
+     * Compile a map loaded from a Tiled map file
+     *
+     * @param map  The map to compile
+     * @param path The relative path from assets folder to the Tiled map file the map was loaded from
+     * @throws IllegalStateException If a tile is not drawn from an image file or a source file is not found
+     */
+    @NotNull
+    public static CompiledMap compile(@NotNull GameMap map, @NotNull String path) {
+        TiledMap tiledMap = map.getTiledMap();
+        int width = map.getMapWidth();
+        int height = map.getMapHeight();
+
+        List<TiledMapTileSet> tileSets = new ArrayList<>();
+        tiledMap.getTileSets().forEach(tileSets::add);
+        List<String> images = new ArrayList<>();
+        for (TiledMapTileSet tileSet : tileSets) {
+            for (TiledMapTile tile : tileSet) {
+                String image = imagePath(tile);
+                if (image != null && !images.contains(image)) {
+                    images.add(image);
+                }
+            }
+        }
+        List<String> sources = new ArrayList<>();
+        sources.add(normalize(path));
+        sources.addAll(tileSetPaths(path));
+        sources.addAll(images);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sources.size());
+            for (String source : sources) {
+                BasicFileAttributes attributes = sourceAttributes(source);
+                if (attributes == null) {
+                    throw new IllegalStateException("Failed to find the file of '" + source + "'");
+                }
+                out.writeUTF(source);
+                out.writeLong(attributes.size());
+                out.writeLong(attributes.lastModifiedTime().toMillis());
+            }
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(map.getTileWidth());
+            out.writeInt(map.getTileHeight());
+
+            MapProperties props = tiledMap.getProperties();
+            List<String> keys = new ArrayList<>();
+            props.getKeys().forEachRemaining(keys::add);
+            out.writeInt(keys.size());
+            for (String key : keys) {
+                out.writeUTF(key);
+                writeProperty(out, key, props.get(key));
+            }
+
+            out.writeInt(images.size());
+            for (String image : images) {
+                out.writeUTF(image);
+            }
+
+            out.writeInt(tileSets.size());
+            for (TiledMapTileSet tileSet : tileSets) {
+                out.writeUTF(tileSet.getName() == null ? "" : tileSet.getName());
+                out.writeInt(tileSet.size());
+                Iterator<TiledMapTile> tiles = tileSet.iterator();
+                while (tiles.hasNext()) {
+                    TiledMapTile tile = tiles.next();
+                    TextureRegion region = tile.getTextureRegion();
+                    String image = imagePath(tile);
+                    out.writeInt(tile.getId());
+                    out.writeInt(image == null ? NO_IMAGE : images.indexOf(image));
+                    out.writeInt(image == null ? 0 : region.getRegionX());
+                    out.writeInt(image == null ? 0 : region.getRegionY());
+                    out.writeInt(image == null ? 0 : region.getRegionWidth());
+                    out.writeInt(image == null ? 0 : region.getRegionHeight());
+                }
+            }
+
+            for (String layerName : LAYER_NAMES) {
+                TiledMapTileLayer layer = map.getLayer(layerName);
+                out.writeBoolean(layer != null);
+                if (layer == null) {
+                    continue;
+                }
+                for (int x = 0; x < width; x++) {
+                    for (int y = 0; y < height; y++) {
+                        out.writeInt(encodeCell(layer.getCell(x, y)));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            //writing to memory does not fail
+            throw new IllegalStateException(e);
+        }
+        return new CompiledMap(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    private static void writeProperty(@NotNull DataOutputStream out, @NotNull String key, Object value) throws IOException {
+        if (value instanceof Integer) {
+            out.writeByte(INT_PROPERTY);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT_PROPERTY);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN_PROPERTY);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Color) {
+            out.writeByte(COLOR_PROPERTY);
+            out.writeInt(Color.rgba8888((Color) value));
+        } else {
+            if (value != null && !(value instanceof String)) {
+                System.out.println("WARN: Map property '" + key + "' of type " + value.getClass().getSimpleName() + " is compiled as a string");
+            }
+            out.writeByte(STRING_PROPERTY);
+            out.writeUTF(String.valueOf(value));
+        }
+    }
+
+    /**
+     * @return The relative path from the assets folder to the image the tile is drawn from, or {@code null} if the tile
+     * has no texture
+     * @throws IllegalStateException If the texture of the tile is not loaded from an image file
+     */
+    @Nullable
+    private static String imagePath(@NotNull TiledMapTile tile) {
+        TextureRegion region = tile.getTextureRegion();
+        if (region == null || region.getTexture() == null) {
+            return null;
+        }
+        if (!(region.getTexture().getTextureData() instanceof FileTextureData)) {
+            throw new IllegalStateException("The texture of tile " + tile.getId() + " is not loaded from a file");
+        }
+        return normalize(((FileTextureData) region.getTexture().getTextureData()).getFileHandle().path());
+    }
+
+    /**
+     * Read which tile set files the Tiled map uses. Only done when compiling, loading a compiled map reads no XML
+     *
+     * @return The relative paths from the assets folder to the tile set files
+     */
+    @NotNull
+    private static List<String> tileSetPaths(@NotNull String map) {
+        FileHandle tmx = Gdx.files.internal(map);
+        List<String> paths = new ArrayList<>();
+        for (XmlReader.Element tileSet : new XmlReader().parse(tmx).getChildrenByName("tileset")) {
+            String source = tileSet.getAttribute("source", null);
+            if (source != null) {
+                paths.add(normalize(tmx.parent().path() + "/" + source));
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * @return The path with {@code ..} and {@code .} resolved and {@code /} as separator
+     */
+    @NotNull
+    private static String normalize(@NotNull String path) {
+        return Paths.get(path).normalize().toString().replace('\\', '/');
+    }
+
+    /**
+     * Internal files are found in the working directory, or else on the class path. A file inside a jar is stamped
+     * by the jar itself
+     *
+     * @return The size and last modification time of the given internal file, or {@code null} if it is not found
+     */
+    @Nullable
+    private static BasicFileAttributes sourceAttributes(@NotNull String source) {
+        try {
+            Path file = Gdx.files.internal(source).file().toPath();
+            if (!Files.isRegularFile(file)) {
+                URL url = CompiledMap.class.getResource("/" + source);
+                if (url == null) {
+                    return null;
+                }
+                URLConnection connection = url.openConnection();
+                if (connection instanceof JarURLConnection) {
+                    file = Paths.get(((JarURLConnection) connection).getJarFileURL().toURI());
+                } else {
+                    file = Paths.get(url.toURI());
+                }
+            }
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int encodeCell(@Nullable TiledMapTileLayer.Cell cell) {
+        if (cell == null || cell.getTile() == null) {
+            return 0;
+        }
+        int encoded = cell.getTile().getId() & ID_MASK;
+        if (cell.getFlipHorizontally()) {
+            encoded |= FLIP_HORIZONTALLY;
+        }
+        if (cell.getFlipVertically()) {
+            encoded |= FLIP_VERTICALLY;
+        }
+        return encoded | (cell.getRotation() & 3) << ROTATION_SHIFT;
+    }
+
+    @NotNull
+    private static String getString(@NotNull ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write this map to a file, the file is replaced at once so it is never seen half written
+     *
+     * @throws IOException If the file could not be written
+     */
+    public void write(@NotNull Path file) throws IOException {
+        Path folder = file.toAbsolutePath().getParent();
+        Files.createDirectories(folder);
+        Path temp = Files.createTempFile(folder, file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer content = buffer.duplicate();
+            content.clear();
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @param file A file written by {@link #write(Path)}
+     * @throws IOException              If the file could not be read
+     * @throws IllegalArgumentException If the file is not a compiled map of this version
+     */
+    @NotNull
+    public static CompiledMap read(@NotNull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            //the mapping stays valid after the channel is closed
+            return new CompiledMap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @return If none of the files this map was compiled from has changed size or been modified since
+     */
+    public boolean isUpToDate() {
+        for (int i = 0; i < sources.size(); i++) {
+            BasicFileAttributes attributes = sourceAttributes(sources.get(i));
+            if (attributes == null || attributes.size() != sourceSizes[i]
+                    || attributes.lastModifiedTime().toMillis() != sourceModified[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param folder Where to cache compiled maps, such as {@link #DEFAULT_CACHE_FOLDER}, or {@code null} to not use
+     *               compiled maps at all
+     */
+    public static void setCacheFolder(@Nullable Path folder) {
+        cacheFolder = folder;
+    }
+
+    /**
+     * @return Where compiled maps are cached, or {@code null} if they are not
+     */
+    @Nullable
+    public static Path getCacheFolder() {
+        return cacheFolder;
+    }
+
+    /**
+     * @return Where the compiled version of the given map is cached, or {@code null} if maps are not cached
+     */
+    @Nullable
+    public static Path cacheFile(@NotNull String map) {
+        Path folder = cacheFolder;
+        return folder == null ? null : folder.resolve(map.replaceAll("[^A-Za-z0-9._-]", "_") + EXTENSION);
+    }
+
+    /**
+     * @param map The relative path from assets folder to the Tiled map file
+     * @return The cached compiled version of the given map, or {@code null} if maps are not cached, there is none or
+     * the Tiled map has changed since it was compiled
+     */
+    @Nullable
+    public static CompiledMap loadCached(@NotNull String map) {
+        Path file = cacheFile(map);
+        if (file == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            CompiledMap compiled = read(file);
+            return compiled.isUpToDate() ? compiled : null;
+        } catch (Exception e) {
+            System.out.println("WARN: Failed to read compiled map of '" + map + "': " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Compile a map and cache it for the next time it is loaded, failing to cache the map is not an error. Does nothing
+     * if maps are not cached or the map was loaded from the cache
+     *
+     * @param map  The loaded map
+     * @param path The relative path from assets folder to the Tiled map file the map was loaded from
+     * @return If the map is now cached
+     */
+    public static boolean compileAndCache(@NotNull GameMap map, @NotNull String path) {
+        Path file = cacheFile(path);
+        if (file == null) {
+            return false;
+        } else if (map.isLoadedFromCache()) {
+            return true;
+        } else if (!map.hasTextures()) {
+            //the images of the tiles are found through their textures
+            System.out.println("WARN: Can not compile '" + path + "' as it was loaded without textures");
+            return false;
+        }
+        try {
+            compile(map, path).write(file);
+            return true;
+        } catch (Exception e) {
+            System.out.println("WARN: Failed to cache compiled map of '" + path + "': " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Create a Tiled map from this compiled map. Tiles keep their id, so {@link
+     * no.uib.inf112.core.map.tile.TileGraphic}s are found the same way as in the original Tiled map
+     *
+     * @param withTextures If the images of the tiles should be loaded, the textures are disposed with the map
+     */
+    @NotNull
+    public TiledMap toTiledMap(boolean withTextures) {
+        TiledMap tiledMap = new TiledMap();
+        tiledMap.getProperties().putAll(properties);
+
+        Array<Texture> textures = new Array<>(images.size());
+        if (withTextures) {
+            for (String image : images) {
+                Texture texture = new Texture(Gdx.files.internal(image));
+                texture.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+                textures.add(texture);
+            }
+            tiledMap.setOwnedResources(textures);
+        }
+
+        for (int i = 0; i < tileSetNames.size(); i++) {
+            TiledMapTileSet tileSet = new TiledMapTileSet();
+            tileSet.setName(tileSetNames.get(i));
+            int[] tiles = tileSetTiles.get(i);
+            for (int t = 0; t < tiles.length; t += TILE_INTS) {
+                int image = tiles[t + 1];
+                TextureRegion region = withTextures && image != NO_IMAGE
+                        ? new TextureRegion(textures.get(image), tiles[t + 2], tiles[t + 3], tiles[t + 4], tiles[t + 5])
+                        : new TextureRegion();
+                StaticTiledMapTile tile = new StaticTiledMapTile(region);
+                tile.setId(tiles[t]);
+                tileSet.putTile(tiles[t], tile);
+            }
+            tiledMap.getTileSets().addTileSet(tileSet);
+        }
+
+        for (int layerIndex = 0; layerIndex < LAYER_NAMES.length; layerIndex++) {
+            if (layerOffsets[layerIndex] < 0) {
+                continue;
+            }
+            TiledMapTileLayer layer = new TiledMapTileLayer(width, height, tileWidth, tileHeight);
+            layer.setName(LAYER_NAMES[layerIndex]);
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    int encoded = getEncodedCell(layerIndex, x, y);
+                    TiledMapTile tile = encoded == 0 ? null : tiledMap.getTileSets().getTile(encoded & ID_MASK);
+                    if (tile == null) {
+                        continue;
+                    }
+                    TiledMapTileLayer.Cell cell = new TiledMapTileLayer.Cell().setTile(tile);
+                    cell.setFlipHorizontally((encoded & FLIP_HORIZONTALLY) != 0);
+                    cell.setFlipVertically((encoded & FLIP_VERTICALLY) != 0);
+                    cell.setRotation(encoded >>> ROTATION_SHIFT & 3);
+                    layer.setCell(x, y, cell);
+                }
+            }
+            tiledMap.getLayers().add(layer);
+        }
+        return tiledMap;
+    }
+
+    private int cellIndex(int x, int y) {
+        return x * height + y;
+    }
+
+    private int getEncodedCell(int layerIndex, int x, int y) {
+        return buffer.getInt(layerOffsets[layerIndex] + cellIndex(x, y) * Integer.BYTES);
+    }
+
+    private static int layerIndex(@NotNull String layer) {
+        for (int i = 0; i < LAYER_NAMES.length; i++) {
+            if (LAYER_NAMES[i].equals(layer)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The relative paths from the assets folder to the files this map was compiled from
+     */
+    @NotNull
+    public List<String> getSources() {
+        return Collections.unmodifiableList(sources);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    @NotNull
+    public MapProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * @return The Tiled id of the tile at the given location, {@code 0} if there is no tile there, the layer is not a
+     * static layer or the location is outside the map
+     */
+    public int getTileId(@NotNull String layer, int x, int y) {
+        return getTileId(layerIndex(layer), x, y);
+    }
+
+    /**
+     * @param layerIndex The index of the layer in {@link #LAYER_NAMES}
+     * @return The Tiled id of the tile at the given location, {@code 0} if there is no tile there, the layer is not a
+     * static layer or the location is outside the map
+     */
+    public int getTileId(int layerIndex, int x, int y) {
+        if (layerIndex < 0 || layerIndex >= LAYER_NAMES.length || layerOffsets[layerIndex] < 0
+                || x < 0 || x >= width || y < 0 || y >= height) {
+            return 0;
+        }
+        return getEncodedCell(layerIndex, x, y) & ID_MASK;
+    }
+}
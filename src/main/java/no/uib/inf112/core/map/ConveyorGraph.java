@@ -0,0 +1,124 @@
+package no.uib.inf112.core.map;
+
+import no.uib.inf112.core.map.tile.Attribute;
+import no.uib.inf112.core.map.tile.TileType;
+import no.uib.inf112.core.map.tile.api.Tile;
+import no.uib.inf112.core.map.tile.tiles.ConveyorTile;
+import no.uib.inf112.core.util.Direction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * All conveyors of a map and where they lead. Each conveyor has exactly one successor, the cell it moves tiles onto.
+ * <p>
+ * Cells are identified by their index, see {@link #cellIndex(int, int)}
+ */
+public class ConveyorGraph {
+
+    /**
+     * The successor of a conveyor that moves tiles off the board, or the successor of a cell without a conveyor
+     */
+    public static final int NO_SUCCESSOR = -1;
+
+    private final int mapWidth;
+    private final int mapHeight;
+
+    private final ConveyorTile[] conveyors;
+    private final int[] successors;
+    private final boolean[] express;
+    private final boolean[] rotating;
+
+    ConveyorGraph(@NotNull MapHandler map) {
+        mapWidth = map.getMapWidth();
+        mapHeight = map.getMapHeight();
+
+        conveyors = new ConveyorTile[mapWidth * mapHeight];
+        successors = new int[mapWidth * mapHeight];
+        express = new boolean[mapWidth * mapHeight];
+        rotating = new boolean[mapWidth * mapHeight];
+
+        for (int x = 0; x < mapWidth; x++) {
+            for (int y = 0; y < mapHeight; y++) {
+                int index = cellIndex(x, y);
+                successors[index] = NO_SUCCESSOR;
+
+                Tile tile = map.getTile(MapHandler.BOARD_LAYER_NAME, x, y);
+                if (tile == null || (tile.getTileType() != TileType.CONVEYOR && tile.getTileType() != TileType.ROTATION_CONVEYOR)) {
+                    continue;
+                }
+                ConveyorTile conveyor = (ConveyorTile) tile;
+                conveyors[index] = conveyor;
+                express[index] = conveyor.hasAttribute(Attribute.HIGH_PRIORITY);
+                rotating[index] = conveyor.getTileType() == TileType.ROTATION_CONVEYOR;
+
+                Direction dir = conveyor.getDirection();
+                int nextX = x + dir.getDx();
+                int nextY = y + dir.getDy();
+                if (!map.isOutsideBoard(nextX, nextY)) {
+                    successors[index] = cellIndex(nextX, nextY);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return How many cells there are, every cell index is below this
+     */
+    public int getCellCount() {
+        return conveyors.length;
+    }
+
+    /**
+     * @return The index of the cell at the given location, or {@link #NO_SUCCESSOR} if it is outside the map
+     */
+    public int cellIndex(int x, int y) {
+        if (x < 0 || x >= mapWidth || y < 0 || y >= mapHeight) {
+            return NO_SUCCESSOR;
+        }
+        return x * mapHeight + y;
+    }
+
+    /**
+     * @return The x-coordinate of the cell with the given index
+     */
+    public int getX(int index) {
+        return index / mapHeight;
+    }
+
+    /**
+     * @return The y-coordinate of the cell with the given index
+     */
+    public int getY(int index) {
+        return index % mapHeight;
+    }
+
+    /**
+     * @return The conveyor at the given cell, or {@code null} if there is no conveyor there
+     */
+    @Nullable
+    public ConveyorTile getConveyor(int index) {
+        return index == NO_SUCCESSOR ? null : conveyors[index];
+    }
+
+    /**
+     * @return The cell the conveyor at the given cell moves tiles onto. {@link #NO_SUCCESSOR} if there is no conveyor
+     * at the given cell or the conveyor moves tiles off the map
+     */
+    public int getSuccessor(int index) {
+        return index == NO_SUCCESSOR ? NO_SUCCESSOR : successors[index];
+    }
+
+    /**
+     * @return If the conveyor at the given cell is an express conveyor
+     */
+    public boolean isExpress(int index) {
+        return index != NO_SUCCESSOR && express[index];
+    }
+
+    /**
+     * @return If the conveyor at the given cell might rotate what is moved onto it
+     */
+    public boolean isRotating(int index) {
+        return index != NO_SUCCESSOR && rotating[index];
+    }
+}
@@ -10,20 +10,20 @@ import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import no.uib.inf112.core.GameGraphics;
 import no.uib.inf112.core.map.tile.Attribute;
 import no.uib.inf112.core.map.tile.TileGraphic;
+import no.uib.inf112.core.map.tile.TileType;
+import no.uib.inf112.core.map.tile.api.CollidableTile;
+import no.uib.inf112.core.map.tile.api.MultiDirectionalTile;
 import no.uib.inf112.core.map.tile.api.Tile;
 import no.uib.inf112.core.map.tile.tiles.LaserTile;
+import no.uib.inf112.core.map.tiled.TexturelessTmxMapLoader;
 import no.uib.inf112.core.player.Entity;
-import no.uib.inf112.core.util.UVector2Int;
+import no.uib.inf112.core.util.Direction;
 import no.uib.inf112.core.util.Vector2Int;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
-
-import static no.uib.inf112.core.map.tile.TileGraphic.LASER_HORIZONTAL;
-import static no.uib.inf112.core.map.tile.TileGraphic.LASER_VERTICAL;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public abstract class GameMap implements MapHandler {
 
@@ -32,26 +32,78 @@ public abstract class GameMap implements MapHandler {
     private TiledMapTileLayer entityLayer;
     private TiledMapTileLayer entityLaserLayer;
 
-    //A map of all know entities and their last know location
-    private Map<UVector2Int, Entity> entities;
-    private Set<Tile> entityLasers;
-    private Map<TiledMapTileLayer, Tile[][]> tiles = new HashMap<>();
+    //Every entity on the map, only copied when an entity is added or removed so it can be read while entities move
+    private List<Entity> entities;
+    private List<Entity> readOnlyEntities;
+    //The entity at each cell where it was last updated or relocated, indexed by cellIndex
+    private Entity[] entityGrid;
+    //Every entity on the map and the cell drawing it
+    private Map<Entity, TrackedEntity> trackedEntities;
+    //The entities that have changed since the last update, linked through TrackedEntity#nextDirty. Guarded by itself
+    private final Object dirtyLock = new Object();
+    private TrackedEntity firstDirty;
+    private TrackedEntity lastDirty;
+    //The laser traces from the entities, indexed by cellIndex
+    private Tile[] entityLasers;
+    //The cell index of every laser trace currently on the map, only the first entityLaserCount are valid
+    private int[] entityLaserCells;
+    private int entityLaserCount;
+    private List<LaserBeam> laserBeams;
+    private ConveyorGraph conveyorGraph;
+
+    //The layers that never change during a game, in the order they are stored in the tile grid
+    private TiledMapTileLayer[] staticLayers;
+    //All tiles of the static layers, see tileIndex for how to find a tile
+    private Tile[] tiles;
+    //All tiles of the static layers grouped by their type
+    private EnumMap<TileType, List<Tile>> tilesByType;
+    //Which edges of each cell are blocked by walls, indexed by cellIndex
+    private byte[] wallMasks;
 
     private int mapWidth;
     private int mapHeight;
     private int tileWidth;
     private int tileHeight;
+    private boolean loadedFromCache;
+    private boolean withTextures;
 
+    private static final int BOARD_LAYER_INDEX = 0;
+    private static final int LASERS_LAYER_INDEX = 1;
+    private static final int COLLIDABLES_LAYER_INDEX = 2;
+    private static final int FLAG_LAYER_INDEX = 3;
+    private static final int STATIC_LAYERS = 4;
 
     public GameMap(String map) {
-        try {
-            TmxMapLoader.Parameters params = new TmxMapLoader.Parameters();
-            params.textureMagFilter = Texture.TextureFilter.Linear;
-            params.textureMinFilter = Texture.TextureFilter.Linear;
-            tiledMap = new TmxMapLoader().load(map, params);
-        } catch (final Exception e) {
-            System.err.println("Failed to load map at '" + map + "'");
-            throw e;
+        this(map, true);
+    }
+
+    /**
+     * @param map          The relative path from assets folder to the Tiled map file
+     * @param withTextures If the images of the tiles should be loaded, a map loaded without them can be loaded on any
+     *                     thread but never rendered or compiled
+     */
+    protected GameMap(String map, boolean withTextures) {
+        CompiledMap compiled = CompiledMap.loadCached(map);
+        loadedFromCache = compiled != null;
+        if (compiled != null) {
+            //nothing is rendered when headless, so the map can be loaded without textures
+            this.withTextures = withTextures && !GameGraphics.HEADLESS;
+            tiledMap = compiled.toTiledMap(this.withTextures);
+        } else {
+            this.withTextures = withTextures;
+            try {
+                if (withTextures) {
+                    TmxMapLoader.Parameters params = new TmxMapLoader.Parameters();
+                    params.textureMagFilter = Texture.TextureFilter.Linear;
+                    params.textureMinFilter = Texture.TextureFilter.Linear;
+                    tiledMap = new TmxMapLoader().load(map, params);
+                } else {
+                    tiledMap = new TexturelessTmxMapLoader().load(map);
+                }
+            } catch (final Exception e) {
+                System.err.println("Failed to load map at '" + map + "'");
+                throw e;
+            }
         }
 
         mapWidth = tiledMap.getProperties().get("width", int.class);
@@ -96,16 +148,156 @@ public abstract class GameMap implements MapHandler {
         tiledMap.getLayers().add(entityLayer);
 
 
-        tiles = new HashMap<>();
-        tiles.put(boardLayer, new Tile[mapWidth][mapHeight]);
-        tiles.put(laserLayer, new Tile[mapWidth][mapHeight]);
-        tiles.put(entityLaserLayer, null);
-        tiles.put(entityLayer, null);
-        tiles.put(collidablesLayer, new Tile[mapWidth][mapHeight]);
-        tiles.put(flagLayer, new Tile[mapWidth][mapHeight]);
+        staticLayers = new TiledMapTileLayer[STATIC_LAYERS];
+        staticLayers[BOARD_LAYER_INDEX] = boardLayer;
+        staticLayers[LASERS_LAYER_INDEX] = laserLayer;
+        staticLayers[COLLIDABLES_LAYER_INDEX] = collidablesLayer;
+        staticLayers[FLAG_LAYER_INDEX] = flagLayer;
+        loadTiles(compiled);
+        loadTilesByType();
+        loadWallMasks();
+        loadLaserBeams();
+        conveyorGraph = new ConveyorGraph(this);
+
+        entities = new CopyOnWriteArrayList<>();
+        readOnlyEntities = Collections.unmodifiableList(entities);
+        //entities compare by their position, which changes as they move
+        trackedEntities = Collections.synchronizedMap(new IdentityHashMap<>());
+        entityGrid = new Entity[mapWidth * mapHeight];
+        entityLasers = new Tile[mapWidth * mapHeight];
+        entityLaserCells = new int[mapWidth * mapHeight];
+    }
+
+    /**
+     * Create every tile of the static layers up front, so looking them up later is a plain array access. Everything
+     * else known about the static layers is found from these tiles, no matter where the map was loaded from
+     *
+     * @param compiled The compiled map to read the tile ids from, or {@code null} to read them from the Tiled map
+     */
+    private void loadTiles(@Nullable CompiledMap compiled) {
+        tiles = new Tile[STATIC_LAYERS * mapWidth * mapHeight];
+        for (int layerIndex = 0; layerIndex < STATIC_LAYERS; layerIndex++) {
+            TiledMapTileLayer layer = staticLayers[layerIndex];
+            if (layer == null) {
+                continue;
+            }
+            for (int x = 0; x < mapWidth; x++) {
+                for (int y = 0; y < mapHeight; y++) {
+                    int id = tileId(compiled, layer, layerIndex, x, y);
+                    if (id == 0) {
+                        continue;
+                    }
+                    TileGraphic tg = TileGraphic.fromTiledId(id);
+                    if (tg != null) {
+                        tiles[tileIndex(layerIndex, x, y)] = tg.createInstance(x, y);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The Tiled id of the tile at the given location, {@code 0} if there is none
+     */
+    private static int tileId(@Nullable CompiledMap compiled, @NotNull TiledMapTileLayer layer, int layerIndex, int x, int y) {
+        if (compiled != null) {
+            return compiled.getTileId(layerIndex, x, y);
+        }
+        TiledMapTileLayer.Cell cell = layer.getCell(x, y);
+        return cell == null ? 0 : cell.getTile().getId();
+    }
+
+    /**
+     * Group the static tiles by their type, so phases only have to look at the tiles they care about
+     */
+    private void loadTilesByType() {
+        EnumMap<TileType, List<Tile>> tempTiles = new EnumMap<>(TileType.class);
+        for (TileType type : TileType.values()) {
+            tempTiles.put(type, new ArrayList<>());
+        }
+        for (Tile tile : tiles) {
+            if (tile != null) {
+                tempTiles.get(tile.getTileType()).add(tile);
+            }
+        }
+        tilesByType = new EnumMap<>(TileType.class);
+        for (Map.Entry<TileType, List<Tile>> entry : tempTiles.entrySet()) {
+            tilesByType.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+    }
+
+    /**
+     * Compile every static tile that might collide, walls and pushers, into which edges of its cell it blocks
+     */
+    private void loadWallMasks() {
+        wallMasks = new byte[mapWidth * mapHeight];
+        for (int layerIndex = 0; layerIndex < STATIC_LAYERS; layerIndex++) {
+            for (int x = 0; x < mapWidth; x++) {
+                for (int y = 0; y < mapHeight; y++) {
+                    Tile tile = tiles[tileIndex(layerIndex, x, y)];
+                    if (tile == null || !tile.hasSuperClass(CollidableTile.class)) {
+                        continue;
+                    }
+                    for (Direction dir : ((CollidableTile) tile).getDirections()) {
+                        wallMasks[cellIndex(x, y)] |= dir.getMask();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the path of every laser shot by a wall
+     */
+    private void loadLaserBeams() {
+        List<LaserBeam> beams = new ArrayList<>();
+        for (int x = 0; x < mapWidth; x++) {
+            for (int y = 0; y < mapHeight; y++) {
+                Tile tile = tiles[tileIndex(COLLIDABLES_LAYER_INDEX, x, y)];
+                if (tile != null && tile.hasAttribute(Attribute.SHOOTS_LASER)) {
+                    beams.add(new LaserBeam(this, (MultiDirectionalTile) tile));
+                }
+            }
+        }
+        laserBeams = Collections.unmodifiableList(beams);
+    }
+
+    private int cellIndex(int x, int y) {
+        return x * mapHeight + y;
+    }
+
+    private int tileIndex(int layerIndex, int x, int y) {
+        return (layerIndex * mapWidth + x) * mapHeight + y;
+    }
+
+    /**
+     * @return The index of the given layer in the tile grid, or {@code -1} if it is not a static layer
+     */
+    private int staticLayerIndex(@NotNull TiledMapTileLayer layer) {
+        for (int i = 0; i < STATIC_LAYERS; i++) {
+            if (staticLayers[i] == layer) {
+                return i;
+            }
+        }
+        return -1;
+    }
 
-        entities = new ConcurrentHashMap<>();
-        entityLasers = new HashSet<>();
+    /**
+     * @return The index of the layer with the given name in the tile grid, or {@code -1} if it is not a static layer
+     */
+    private static int staticLayerIndex(@NotNull String layerName) {
+        switch (layerName) {
+            case BOARD_LAYER_NAME:
+                return BOARD_LAYER_INDEX;
+            case LASERS_LAYER_NAME:
+                return LASERS_LAYER_INDEX;
+            case COLLIDABLES_LAYER_NAME:
+                return COLLIDABLES_LAYER_INDEX;
+            case FLAG_LAYER_NAME:
+                return FLAG_LAYER_INDEX;
+            default:
+                return -1;
+        }
     }
 
     /**
@@ -117,6 +309,20 @@ public abstract class GameMap implements MapHandler {
         }
     }
 
+    /**
+     * @return If this map was loaded from its compiled form in the map cache, see {@link CompiledMap#loadCached(String)}
+     */
+    public boolean isLoadedFromCache() {
+        return loadedFromCache;
+    }
+
+    /**
+     * @return If the tiles of this map have their images
+     */
+    public boolean hasTextures() {
+        return withTextures;
+    }
+
     @Override
     public MapProperties getProperties() {
         return tiledMap.getProperties();
@@ -133,8 +339,17 @@ public abstract class GameMap implements MapHandler {
         if (getTile(entityLayer, entity.getX(), entity.getY()) != null) {
             throw new IllegalStateException("Cannot add an entity on top of another entity");
         }
-        entities.put(new UVector2Int(entity.getX(), entity.getY()), entity);
-        entity.update(true);
+        TrackedEntity tracked = new TrackedEntity(entity, entity.getX(), entity.getY());
+        indexEntity(tracked, entity.getX(), entity.getY());
+        entities.add(entity);
+        trackedEntities.put(entity, tracked);
+        entity.setUpdateListener(e -> markDirty(tracked));
+        if (entity.shouldUpdate()) {
+            //the listener is only called when the state changes
+            markDirty(tracked);
+        } else {
+            entity.update(true);
+        }
     }
 
     @Override
@@ -147,74 +362,168 @@ public abstract class GameMap implements MapHandler {
         if (entity == null) {
             return;
         }
-        UVector2Int pos = new UVector2Int(entity.getX(), entity.getY());
-        Entity e = entities.get(pos);
+        TrackedEntity tracked = trackedEntities.remove(entity);
+        if (tracked == null) {
+            return;
+        }
+        entity.setUpdateListener(null);
+        tracked.removed = true;
+        //entities compare by their position, so find this very entity
+        for (int i = 0; i < entities.size(); i++) {
+            if (entities.get(i) == entity) {
+                entities.remove(i);
+                break;
+            }
+        }
 
-        if (entity.equals(e)) {
-            entityLayer.setCell(entity.getX(), entity.getY(), null);
-            entities.remove(pos);
+        Vector2Int pos = tracked.lastPos;
+        if (entityLayer.getCell(pos.x, pos.y) == tracked.cell) {
+            entityLayer.setCell(pos.x, pos.y, null);
         }
+        unindexEntity(tracked);
     }
 
     @Override
-    public void addEntityLaser(@NotNull Tile laser) {
-        for (Tile knownLaser : getLaserEntities()) {
-
-            if (laser.getX() == knownLaser.getX() && laser.getY() == knownLaser.getY()) {
-                // Already a laser tile in this layer, se if we need to change it to a cross or just ignore it (same orientation)
-                if (laser.getTile() != knownLaser.getTile()) {
-                    removeEntityLaser(knownLaser);
-                    entityLasers.add(new LaserTile(new Vector2Int(knownLaser.getX(), knownLaser.getY()), TileGraphic.LASER_CROSS, Color.WHITE));
-                    entityLaserLayer.setCell(laser.getX(), laser.getY(), new TiledMapTileLayer.Cell().setTile(TileGraphic.LASER_CROSS.getTile()));
-                    return;
-                } else {
-                    return;
-                }
+    public void relocateEntity(@NotNull Entity entity, int x, int y) {
+        TrackedEntity tracked = trackedEntities.get(entity);
+        if (tracked != null) {
+            indexEntity(tracked, x, y);
+        }
+    }
+
+    /**
+     * The entity has been drawn at the given position, find it there instead of where it was last drawn
+     */
+    void relocateEntity(@NotNull TrackedEntity tracked, int x, int y) {
+        tracked.lastPos.x = x;
+        tracked.lastPos.y = y;
+        indexEntity(tracked, x, y);
+    }
+
+    private void indexEntity(@NotNull TrackedEntity tracked, int x, int y) {
+        unindexEntity(tracked);
+        if (!isOutsideBoard(x, y)) {
+            tracked.gridIndex = cellIndex(x, y);
+            entityGrid[tracked.gridIndex] = tracked.entity;
+        }
+    }
+
+    private void unindexEntity(@NotNull TrackedEntity tracked) {
+        int index = tracked.gridIndex;
+        //another entity might already have moved here
+        if (index >= 0 && entityGrid[index] == tracked.entity) {
+            entityGrid[index] = null;
+        }
+        tracked.gridIndex = -1;
+    }
+
+    /**
+     * Queue the entity to be redrawn, unless it already is
+     */
+    private void markDirty(@NotNull TrackedEntity tracked) {
+        synchronized (dirtyLock) {
+            if (tracked.dirty) {
+                return;
+            }
+            tracked.dirty = true;
+            if (lastDirty == null) {
+                firstDirty = tracked;
+            } else {
+                lastDirty.nextDirty = tracked;
             }
+            lastDirty = tracked;
         }
-        entityLaserLayer.setCell(laser.getX(), laser.getY(), new TiledMapTileLayer.Cell().setTile(laser.getTile()));
-        entityLasers.add(laser);
-    }
-
-    private boolean removeEntityLaser(Tile entityLaser) {
-        Tile tile = getTile(entityLaserLayer, entityLaser.getX(), entityLaser.getY());
-        if (tile != null && tile.getTile().getId() == TileGraphic.LASER_CROSS.getId()) {
-            //There is two lasers here remove only the one we want and restore tile to the other
-            entityLaserLayer.setCell(entityLaser.getX(), entityLaser.getY(), null);
-            for (Tile laserTile : entityLasers) {
-                if (laserTile.getX() == entityLaser.getX() && laserTile.getY() == entityLaser.getY()) {
-                    entityLasers.remove(laserTile);
-                    entityLaserLayer.setCell(entityLaser.getX(), entityLaser.getY(), null);
-                    Vector2Int pos = new Vector2Int(laserTile.getX(), laserTile.getY());
-                    LaserTile newLaserTile = new LaserTile(pos, (laserTile.hasAttribute(Attribute.DIR_WEST)) ? LASER_VERTICAL : LASER_HORIZONTAL);
-                    addEntityLaser(newLaserTile);
-                    return true;
-                }
+    }
+
+    /**
+     * @return The next entity that has changed since it was last drawn, or {@code null} if no entity has changed
+     */
+    @Nullable
+    TrackedEntity pollDirtyEntity() {
+        synchronized (dirtyLock) {
+            TrackedEntity tracked = firstDirty;
+            if (tracked == null) {
+                return null;
             }
+            firstDirty = tracked.nextDirty;
+            if (firstDirty == null) {
+                lastDirty = null;
+            }
+            tracked.nextDirty = null;
+            tracked.dirty = false;
+            return tracked;
         }
-        entityLaserLayer.setCell(entityLaser.getX(), entityLaser.getY(), null);
-        return entityLasers.remove(entityLaser);
+    }
+
+    @Override
+    public void addEntityLaser(@NotNull Tile laser) {
+        if (isOutsideBoard(laser.getX(), laser.getY())) {
+            return;
+        }
+        int index = cellIndex(laser.getX(), laser.getY());
+        Tile knownLaser = entityLasers[index];
+        if (knownLaser != null) {
+            // Already a laser tile in this layer, se if we need to change it to a cross or just ignore it (same orientation)
+            if (laser.getTile() != knownLaser.getTile()) {
+                entityLasers[index] = new LaserTile(new Vector2Int(laser.getX(), laser.getY()), TileGraphic.LASER_CROSS, Color.WHITE);
+                entityLaserLayer.setCell(laser.getX(), laser.getY(), new TiledMapTileLayer.Cell().setTile(TileGraphic.LASER_CROSS.getTile()));
+            }
+            return;
+        }
+        entityLaserLayer.setCell(laser.getX(), laser.getY(), new TiledMapTileLayer.Cell().setTile(laser.getTile()));
+        entityLasers[index] = laser;
+        entityLaserCells[entityLaserCount++] = index;
     }
 
     @Override
     public void removeEntityLasers() {
-        for (int y = 0; y < getMapHeight(); y++) {
-            for (int x = 0; x < getMapWidth(); x++) {
-                entityLaserLayer.setCell(x, y, null);
+        for (int i = 0; i < entityLaserCount; i++) {
+            int index = entityLaserCells[i];
+            entityLaserLayer.setCell(index / mapHeight, index % mapHeight, null);
+            entityLasers[index] = null;
+        }
+        entityLaserCount = 0;
+    }
+
+    @NotNull
+    @Override
+    public List<LaserBeam> getLaserBeams() {
+        return laserBeams;
+    }
+
+    @NotNull
+    @Override
+    public List<Tile> getTiles(@NotNull TileType tileType) {
+        if (ENTITY_LAYER_NAME.equals(tileType.getLayerName())) {
+            List<Tile> found = new ArrayList<>();
+            for (Entity entity : entities) {
+                if (entity.getTileType() == tileType) {
+                    found.add(entity);
+                }
             }
+            return found;
         }
-        entityLasers.clear();
+        return tilesByType.get(tileType);
     }
 
-    /**
-     * @return the set of all the laser traces from the entities currently on the map
-     */
-    private Set<Tile> getLaserEntities() {
-        return entityLasers;
+    @NotNull
+    @Override
+    public ConveyorGraph getConveyorGraph() {
+        return conveyorGraph;
+    }
+
+    @Override
+    public int getWallMask(int x, int y) {
+        if (isOutsideBoard(x, y)) {
+            return 0;
+        }
+        return wallMasks[cellIndex(x, y)];
     }
 
-    public Map<UVector2Int, Entity> getEntities() {
-        return entities;
+    @NotNull
+    @Override
+    public List<Entity> getAllEntities() {
+        return readOnlyEntities;
     }
 
     @Override
@@ -260,7 +569,14 @@ public abstract class GameMap implements MapHandler {
     @Override
     @Nullable
     public Tile getTile(@NotNull String layer, int x, int y) {
-        return getTile(getLayer(layer), x, y);
+        int layerIndex = staticLayerIndex(layer);
+        if (layerIndex < 0) {
+            return getTile(getLayer(layer), x, y);
+        }
+        if (isOutsideBoard(x, y)) {
+            return null;
+        }
+        return tiles[tileIndex(layerIndex, x, y)];
     }
 
     @Override
@@ -270,41 +586,82 @@ public abstract class GameMap implements MapHandler {
             return null;
         }
 
-        if (layer.equals(entityLayer)) {
-            return entities.get(new UVector2Int(x, y));
+        if (layer == entityLayer) {
+            return entityGrid[cellIndex(x, y)];
         }
 
-        if (layer.equals(entityLaserLayer)) {
-            for (Tile tile : entityLasers) {
-                if (tile.getX() == x && tile.getY() == y) {
-                    return tile;
-                }
-            }
-            return null;
+        if (layer == entityLaserLayer) {
+            return getEntityLaser(x, y);
         }
 
-        Tile[][] tiles = this.tiles.get(layer);
-        if (tiles == null) {
+        int layerIndex = staticLayerIndex(layer);
+        if (layerIndex < 0) {
             return null;
         }
+        return tiles[tileIndex(layerIndex, x, y)];
+    }
 
-        if (tiles[x][y] == null) {
-            TiledMapTileLayer.Cell cell = layer.getCell(x, y);
-            if (cell == null) {
-                return null;
-            }
-            TileGraphic tg = TileGraphic.fromTiledId(cell.getTile().getId());
-            if (tg == null) {
-                return null;
-            }
-            tiles[x][y] = tg.createInstance(x, y);
-        }
-        return tiles[x][y];
+    @Nullable
+    private Tile getEntityLaser(int x, int y) {
+        return entityLasers[cellIndex(x, y)];
     }
 
     @Override
     @NotNull
     public List<Tile> getAllTiles(int x, int y) {
-        return tiles.keySet().stream().map(layer -> getTile(layer, x, y)).filter(Objects::nonNull).collect(Collectors.toList());
+        Tile[] buffer = new Tile[MAX_TILES_PER_POSITION];
+        int found = getAllTiles(x, y, buffer);
+        List<Tile> allTiles = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            allTiles.add(buffer[i]);
+        }
+        return allTiles;
+    }
+
+    @Override
+    public int getAllTiles(int x, int y, @NotNull Tile[] buffer) {
+        if (isOutsideBoard(x, y)) {
+            return 0;
+        }
+        int found = 0;
+        for (int layerIndex = 0; layerIndex < STATIC_LAYERS; layerIndex++) {
+            Tile tile = tiles[tileIndex(layerIndex, x, y)];
+            if (tile != null) {
+                buffer[found++] = tile;
+            }
+        }
+        Tile laser = getEntityLaser(x, y);
+        if (laser != null) {
+            buffer[found++] = laser;
+        }
+        Tile entity = entityGrid[cellIndex(x, y)];
+        if (entity != null) {
+            buffer[found++] = entity;
+        }
+        return found;
+    }
+
+    /**
+     * An entity on the map together with the cell drawing it and where it was drawn last
+     */
+    static final class TrackedEntity {
+
+        final Entity entity;
+        final TiledMapTileLayer.Cell cell;
+        //changed in place, so moving allocates nothing
+        final Vector2Int lastPos;
+        volatile boolean removed;
+        //the cell the entity is found at in the entity grid, -1 if none
+        private int gridIndex = -1;
+
+        //guarded by the dirty lock of the map
+        private boolean dirty;
+        private TrackedEntity nextDirty;
+
+        private TrackedEntity(@NotNull Entity entity, int x, int y) {
+            this.entity = entity;
+            lastPos = new Vector2Int(x, y);
+            cell = new TiledMapTileLayer.Cell();
+        }
     }
 }
@@ -0,0 +1,104 @@
+package no.uib.inf112.core.map;
+
+import no.uib.inf112.core.map.tile.Attribute;
+import no.uib.inf112.core.map.tile.api.MultiDirectionalTile;
+import no.uib.inf112.core.map.tile.api.Tile;
+import no.uib.inf112.core.map.tile.tiles.LaserTile;
+import no.uib.inf112.core.util.Direction;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static no.uib.inf112.core.map.MapHandler.LASERS_LAYER_NAME;
+
+/**
+ * The path of a laser shot from a wall, from the wall itself until it is stopped by another wall. As walls never change
+ * during a game the path only has to be found once per map.
+ */
+public class LaserBeam {
+
+    private final Tile origin;
+    private final Direction direction;
+    private final List<LaserTile> path;
+
+    /**
+     * @param map    The map the laser is on
+     * @param origin The wall shooting the laser
+     * @throws IllegalArgumentException If the origin does not have exactly one direction
+     * @throws IllegalStateException    If something in the laser layer along the path is not a laser
+     */
+    LaserBeam(@NotNull MapHandler map, @NotNull MultiDirectionalTile origin) {
+        if (origin.getDirections().size() != 1) {
+            throw new IllegalArgumentException("Wall shooting laser has more than one direction");
+        }
+        this.origin = origin;
+        //Wall shoot laser in opposite direction
+        direction = origin.getDirections().iterator().next().inverse();
+
+        List<LaserTile> tempPath = new ArrayList<>();
+        int x = origin.getX();
+        int y = origin.getY();
+        while (!map.isOutsideBoard(x, y)) {
+            tempPath.add(getLaser(map, x, y));
+
+            //something on the current tile prohibits moving in the direction
+            if (!map.canLeave(x, y, direction)) {
+                break;
+            }
+            x += direction.getDx();
+            y += direction.getDy();
+            //Colliding with wall facing the previous tile
+            if (!map.canEnter(x, y, direction)) {
+                break;
+            }
+        }
+        path = Collections.unmodifiableList(tempPath);
+    }
+
+    @NotNull
+    private static LaserTile getLaser(@NotNull MapHandler map, int x, int y) {
+        Tile laser = map.getTile(LASERS_LAYER_NAME, x, y);
+        if (!(laser instanceof LaserTile)) {
+            throw new IllegalStateException("Found something in the laser layer that's not a laser: " + laser);
+        }
+        return (LaserTile) laser;
+    }
+
+    /**
+     * @return The wall shooting this laser
+     */
+    @NotNull
+    public Tile getOrigin() {
+        return origin;
+    }
+
+    /**
+     * @return The direction the laser travels in
+     */
+    @NotNull
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return The lasers this beam pass over, in the order they are hit, starting with the laser on the wall itself
+     */
+    @NotNull
+    public List<LaserTile> getPath() {
+        return path;
+    }
+
+    /**
+     * @return How much damage this laser does to what it hits
+     */
+    public int getDamage() {
+        return origin.hasAttribute(Attribute.HIGH_PRIORITY) ? 2 : 1;
+    }
+
+    @Override
+    public String toString() {
+        return "LaserBeam{origin=(" + origin.getX() + ", " + origin.getY() + "), direction=" + direction + ", length=" + path.size() + "}";
+    }
+}
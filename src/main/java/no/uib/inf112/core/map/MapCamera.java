@@ -24,6 +24,11 @@ public abstract class MapCamera extends GameMap {
         setupCamera();
     }
 
+    protected MapCamera(String map, boolean withTextures) {
+        super(map, withTextures);
+        setupCamera();
+    }
+
     protected MapCamera() {
         setupCamera();
     }
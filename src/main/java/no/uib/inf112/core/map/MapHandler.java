@@ -6,8 +6,10 @@ import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.maps.MapProperties;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
+import no.uib.inf112.core.map.tile.TileType;
 import no.uib.inf112.core.map.tile.api.Tile;
 import no.uib.inf112.core.player.Entity;
+import no.uib.inf112.core.util.Direction;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -39,6 +41,9 @@ public interface MapHandler {
     String COLLIDABLES_LAYER_NAME = "collidables";
     String FLAG_LAYER_NAME = "flags";
 
+    //The maximum number of tiles there can be on a single location, one for each layer above
+    int MAX_TILES_PER_POSITION = 6;
+
     /**
      * Render the map and it's content
      */
@@ -98,6 +103,31 @@ public interface MapHandler {
      */
     void removeEntity(@Nullable Entity entity);
 
+    /**
+     * Find the entity where it is now instead of where it was at the last {@link #update(float)}, without drawing it
+     * there. Lets many entities move one after another without updating the whole map between each move
+     *
+     * @param entity The entity that has moved
+     */
+    default void relocateEntity(@NotNull Entity entity) {
+        relocateEntity(entity, entity.getX(), entity.getY());
+    }
+
+    /**
+     * Find the entity at the given position, such as where it is about to be moved, without drawing it there. If
+     * another entity has already been found at the entity's old position that entity is left there, so entities can
+     * swap places by being relocated one after another
+     *
+     * @param entity The entity to relocate
+     */
+    void relocateEntity(@NotNull Entity entity, int x, int y);
+
+    /**
+     * @return All entities currently on the map, in the order they were added
+     */
+    @NotNull
+    List<Entity> getAllEntities();
+
     /**
      * Adds an laserTile to the laserEntities layer, if there is one there currently it creates a cross tile if they have different orientation, otherwise it ignores it.
      *
@@ -165,5 +195,57 @@ public interface MapHandler {
     @NotNull
     List<Tile> getAllTiles(int x, int y);
 
+    /**
+     * Find all tiles on a given location without allocating a new list.
+     *
+     * @param buffer Where to put the found tiles, must have room for at least {@link #MAX_TILES_PER_POSITION} tiles
+     * @return How many tiles was put into {@code buffer}, the rest of the buffer is left untouched
+     */
+    int getAllTiles(int x, int y, @NotNull Tile[] buffer);
+
     void removeEntityLasers();
+
+    /**
+     * @return The lasers shot by walls on this map
+     */
+    @NotNull
+    List<LaserBeam> getLaserBeams();
+
+    /**
+     * Tiles of types found on the entity layer are looked up every call, all other tiles are found when the map is
+     * loaded. Laser traces from entities are never included.
+     *
+     * @param tileType The type of tiles to find
+     * @return All tiles of the given type on this map
+     */
+    @NotNull
+    List<Tile> getTiles(@NotNull TileType tileType);
+
+    /**
+     * @return All conveyors on this map and where they lead
+     */
+    @NotNull
+    ConveyorGraph getConveyorGraph();
+
+    /**
+     * Walls never change during a game, so which edges of each cell are blocked is found when the map is loaded. See
+     * {@link Direction#getMask()} for which bit belongs to which edge
+     *
+     * @return A mask of the edges of the given cell blocked by walls, {@code 0} if outside the map
+     */
+    int getWallMask(int x, int y);
+
+    /**
+     * @return If no wall stops tiles from leaving the given cell in the given direction
+     */
+    default boolean canLeave(int x, int y, @NotNull Direction dir) {
+        return (getWallMask(x, y) & dir.getMask()) == 0;
+    }
+
+    /**
+     * @return If no wall stops tiles moving in the given direction from entering the given cell
+     */
+    default boolean canEnter(int x, int y, @NotNull Direction dir) {
+        return (getWallMask(x, y) & dir.inverse().getMask()) == 0;
+    }
 }
@@ -5,13 +5,11 @@ import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.utils.Disposable;
 import no.uib.inf112.core.GameGraphics;
+import no.uib.inf112.core.map.GameMap.TrackedEntity;
 import no.uib.inf112.core.map.tiled.CustomOrthogonalTiledMapRenderer;
 import no.uib.inf112.core.player.Entity;
-import no.uib.inf112.core.util.UVector2Int;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Map;
-
 
 public class TiledMapHandler extends MapCamera implements Disposable {
 
@@ -22,8 +20,17 @@ public class TiledMapHandler extends MapCamera implements Disposable {
      * @throws IllegalArgumentException if max zoom is less than min zoom
      */
     public TiledMapHandler(String map) {
-        super(map);
-        if (!GameGraphics.HEADLESS) {
+        this(map, true);
+    }
+
+    /**
+     * @param map          The relative path from assets folder to the Tiled map file
+     * @param withTextures If the map will be rendered, if not it is loaded without any textures
+     * @throws IllegalArgumentException if max zoom is less than min zoom
+     */
+    protected TiledMapHandler(String map, boolean withTextures) {
+        super(map, withTextures);
+        if (withTextures && !GameGraphics.HEADLESS) {
             renderer = new CustomOrthogonalTiledMapRenderer(getTiledMap());
         }
     }
@@ -37,37 +44,49 @@ public class TiledMapHandler extends MapCamera implements Disposable {
         renderer.render();
     }
 
+    /**
+     * Only entities that have changed since the last update are redrawn, each entity keeps the same cell while on the
+     * map.
+     */
     @Override
     public void update(float delta) {
-        Map<UVector2Int, Entity> entities = getEntities();
-
-        for (Map.Entry<UVector2Int, Entity> entry : entities.entrySet()) {
-            Entity entity = entry.getValue();
-            UVector2Int oldPos = entry.getKey();
-            if (entity.shouldUpdate()) {
-
-                int x = entity.getX();
-                int y = entity.getY();
+        TiledMapTileLayer layer = getEntityLayer();
+
+        TrackedEntity tracked;
+        while ((tracked = pollDirtyEntity()) != null) {
+            Entity entity = tracked.entity;
+            if (tracked.removed || !entity.shouldUpdate()) {
+                //removed from the map, or already drawn
+                continue;
+            }
 
-                entity.update(false);
-                getEntityLayer().setCell(oldPos.x, oldPos.y, null);
+            int x = entity.getX();
+            int y = entity.getY();
+            int oldX = tracked.lastPos.x;
+            int oldY = tracked.lastPos.y;
 
-                if (isOutsideBoard(x, y)) {
-                    throw new IllegalArgumentException("Given location (" + x + ", " + y + ") is out of bounds for " + entity.toString());
-                }
-                TiledMapTileLayer.Cell cell = new TiledMapTileLayer.Cell().setTile(entity.getTile());
-                getEntityLayer().setCell(x, y, cell);
+            entity.update(false);
+            //another entity might already have been drawn where this entity was
+            if (layer.getCell(oldX, oldY) == tracked.cell) {
+                layer.setCell(oldX, oldY, null);
+            }
 
-                entities.remove(oldPos, entity);
-                entities.put(new UVector2Int(x, y), entity);
+            if (isOutsideBoard(x, y)) {
+                throw new IllegalArgumentException("Given location (" + x + ", " + y + ") is out of bounds for " + entity.toString());
             }
+            tracked.cell.setTile(entity.getTile());
+            layer.setCell(x, y, tracked.cell);
+
+            relocateEntity(tracked, x, y);
         }
     }
 
 
     @Override
     public void dispose() {
-        renderer.dispose();
+        if (renderer != null) {
+            renderer.dispose();
+        }
         getTiledMap().dispose();
     }
 }
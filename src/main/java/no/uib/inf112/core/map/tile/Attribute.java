@@ -105,6 +105,13 @@ public enum Attribute {
         this.requiredInterfaces = Arrays.asList(requiredInterfaces);
     }
 
+    /**
+     * @return The bit of this attribute in a bitmask of attributes
+     */
+    public long getMask() {
+        return 1L << ordinal();
+    }
+
     /**
      * @param tileClass The tile class to check
      * @return {@code true} if the given class is an accepted super class for this attribute
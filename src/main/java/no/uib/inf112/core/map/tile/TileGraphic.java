@@ -1,17 +1,18 @@
 package no.uib.inf112.core.map.tile;
 
 import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
 import no.uib.inf112.core.GameGraphics;
+import no.uib.inf112.core.RoboRally;
+import no.uib.inf112.core.map.MapHandler;
 import no.uib.inf112.core.map.tile.api.Tile;
 import no.uib.inf112.core.util.Vector2Int;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Set;
 
 import static no.uib.inf112.core.map.tile.Attribute.*;
@@ -207,6 +208,14 @@ public enum TileGraphic {
     private final TileType tileType;
     @NotNull
     private Set<Attribute> attributes;
+    //bitmask of all attributes, see Attribute#getMask
+    private final long attributeMask;
+    //The graphic of this tile in cachedMap
+    private TiledMapTile cachedTile;
+    //The map cachedTile was found in, written after cachedTile so it is safe to read from other threads
+    private volatile MapHandler cachedMap;
+    //If the implementation class of the tile type fulfill the criteria of every attribute
+    private final boolean validAttributes;
 
     private static HashMap<Integer, TileGraphic> TileIdMap = new HashMap<>();
 
@@ -234,10 +243,42 @@ public enum TileGraphic {
         this.tilesetName = tilesetName;
         this.tileType = tileType;
 
-        HashSet<Attribute> tempSet = new HashSet<>();
+        EnumSet<Attribute> tempSet = EnumSet.noneOf(Attribute.class);
         Collections.addAll(tempSet, attributes);
         tempSet.addAll(tileType.getAttributes());
         this.attributes = Collections.unmodifiableSet(tempSet);
+
+        long mask = 0;
+        for (Attribute attribute : tempSet) {
+            mask |= attribute.getMask();
+        }
+        attributeMask = mask;
+
+        Class<? extends Tile> implClass = tileType.getImplClass();
+        validAttributes = implClass == null || tempSet.stream().allMatch(att -> att.verifyInterfaces(implClass));
+    }
+
+    /**
+     * Find the graphic of every TileGraphic in the given map up front, so {@link #getTile()} does not have to search the
+     * tilesets. Graphics from tilesets not in the map are skipped.
+     *
+     * @param map The map to find the graphics in
+     */
+    public static void cacheTiles(@NotNull MapHandler map) {
+        TiledMapTileSets tileSets = map.getMapTileSets();
+        if (tileSets == null) {
+            return;
+        }
+        for (TileGraphic value : values()) {
+            if (tileSets.getTileSet(value.tilesetName) != null) {
+                value.cacheTile(map);
+            }
+        }
+    }
+
+    private void cacheTile(@NotNull MapHandler map) {
+        cachedTile = map.getMapTileSets().getTileSet(tilesetName).getTile(id);
+        cachedMap = map;
     }
 
     /**
@@ -245,7 +286,16 @@ public enum TileGraphic {
      */
     @NotNull
     public TiledMapTile getTile() {
-        return GameGraphics.getRoboRally().getCurrentMap().getMapTileSets().getTileSet(tilesetName).getTile(id);
+        RoboRally background = RoboRally.getBackgroundGame();
+        if (background != null) {
+            //the cached tile belongs to the game shown, which might be played on another thread
+            return background.getCurrentMap().getMapTileSets().getTileSet(tilesetName).getTile(id);
+        }
+        MapHandler map = GameGraphics.getRoboRally().getCurrentMap();
+        if (cachedMap != map) {
+            cacheTile(map);
+        }
+        return cachedTile;
     }
 
     /**
@@ -256,6 +306,14 @@ public enum TileGraphic {
         return attributes;
     }
 
+    /**
+     * @param attribute The attribute to check
+     * @return If this graphic or its type has the given attribute
+     */
+    public boolean hasAttribute(@Nullable Attribute attribute) {
+        return attribute != null && (attributeMask & attribute.getMask()) != 0;
+    }
+
     public int getId() {
         return id;
     }
@@ -276,21 +334,12 @@ public enum TileGraphic {
      */
     @Nullable
     public Tile createInstance(int x, int y) {
-        if (tileType.getImplClass() == null) {
+        if (tileType.getFactory() == null) {
             return null;
         }
-
-        if (!getAttributes().stream().allMatch(att -> att.verifyInterfaces(tileType.getImplClass()))) {
+        if (!validAttributes) {
             throw new IllegalStateException("TileType class (" + tileType.getImplClass() + ") does not have the required interface " + tileType.getAttributes());
         }
-        try {
-            Constructor<? extends Tile> constructor = tileType.getImplClass().getDeclaredConstructor(Vector2Int.class, TileGraphic.class);
-            return constructor.newInstance(new Vector2Int(x, y), this);
-        } catch (InstantiationException | IllegalAccessException | NoSuchMethodException | InvocationTargetException e) {
-            e.printStackTrace();
-        }
-
-        return null;
+        return tileType.getFactory().apply(new Vector2Int(x, y), this);
     }
 }
-
@@ -1,15 +1,17 @@
 package no.uib.inf112.core.map.tile;
 
 import no.uib.inf112.core.map.MapHandler;
-import no.uib.inf112.core.map.tile.api.Tile;
+import no.uib.inf112.core.map.tile.api.*;
 import no.uib.inf112.core.map.tile.tiles.*;
 import no.uib.inf112.core.player.Robot;
+import no.uib.inf112.core.util.Vector2Int;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.EnumSet;
 import java.util.Set;
+import java.util.function.BiFunction;
 
 import static no.uib.inf112.core.map.tile.Attribute.*;
 
@@ -19,37 +21,94 @@ import static no.uib.inf112.core.map.tile.Attribute.*;
 public enum TileType {
 
 
-    CONVEYOR(MapHandler.BOARD_LAYER_NAME, ConveyorTile.class),
-    ROTATION_CONVEYOR(MapHandler.BOARD_LAYER_NAME, RotationConveyor.class),
-    PUSHER(MapHandler.BOARD_LAYER_NAME, PusherTile.class),
+    CONVEYOR(MapHandler.BOARD_LAYER_NAME, ConveyorTile.class, ConveyorTile::new),
+    ROTATION_CONVEYOR(MapHandler.BOARD_LAYER_NAME, RotationConveyor.class, RotationConveyor::new),
+    PUSHER(MapHandler.BOARD_LAYER_NAME, PusherTile.class, PusherTile::new),
     DEFAULT(MapHandler.BOARD_LAYER_NAME),
-    FLAG(MapHandler.FLAG_LAYER_NAME, FlagTile.class),
-    HAMMER_AND_WRENCH(MapHandler.BOARD_LAYER_NAME, WrenchAndHammerTile.class),
-    ROBOT(MapHandler.ENTITY_LAYER_NAME, Robot.class, PUSHABLE, LAYS_DOWN_LASER),
-    GEAR(MapHandler.BOARD_LAYER_NAME, GearTile.class),
-    SPAWN(MapHandler.BOARD_LAYER_NAME, SpawnTile.class),
-    VOID(MapHandler.BOARD_LAYER_NAME, DeathTile.class, ACTIVE_ONLY_ON_STEP),
-    WALL(MapHandler.COLLIDABLES_LAYER_NAME, WallTile.class),
-    LASER(MapHandler.LASERS_LAYER_NAME, LaserTile.class),
-    WRENCH(MapHandler.BOARD_LAYER_NAME, WrenchTile.class);
+    FLAG(MapHandler.FLAG_LAYER_NAME, FlagTile.class, FlagTile::new),
+    HAMMER_AND_WRENCH(MapHandler.BOARD_LAYER_NAME, WrenchAndHammerTile.class, WrenchAndHammerTile::new),
+    //Robots are not created from the map, they are added as entities
+    ROBOT(MapHandler.ENTITY_LAYER_NAME, Robot.class, null, PUSHABLE, LAYS_DOWN_LASER),
+    GEAR(MapHandler.BOARD_LAYER_NAME, GearTile.class, GearTile::new),
+    SPAWN(MapHandler.BOARD_LAYER_NAME, SpawnTile.class, SpawnTile::new),
+    VOID(MapHandler.BOARD_LAYER_NAME, DeathTile.class, DeathTile::new, ACTIVE_ONLY_ON_STEP),
+    WALL(MapHandler.COLLIDABLES_LAYER_NAME, WallTile.class, WallTile::new),
+    LASER(MapHandler.LASERS_LAYER_NAME, LaserTile.class, LaserTile::new),
+    WRENCH(MapHandler.BOARD_LAYER_NAME, WrenchTile.class, WrenchTile::new);
 
     private final String layerName;
     private final Class<? extends Tile> implClass;
+    private final BiFunction<Vector2Int, TileGraphic, Tile> factory;
     private final Set<Attribute> attributes;
+    //bitmask of which of the CAPABILITIES the implementation class has
+    private int capabilities;
+
+    /**
+     * Super classes that are checked so often they are precomputed for every tile type
+     */
+    private static final Class<?>[] CAPABILITIES = {CollidableTile.class, DamageableTile.class, MovableTile.class,
+            ColorableTile.class, HealableTile.class, ActionTile.class, Cleanup.class, BackupableTile.class,
+            MultiDirectionalTile.class, SingleDirectionalTile.class, ConditionalRotateEffectTile.class, DockableTile.class};
+
+    static {
+        for (TileType type : values()) {
+            if (type.implClass == null) {
+                continue;
+            }
+            for (int i = 0; i < CAPABILITIES.length; i++) {
+                if (CAPABILITIES[i].isAssignableFrom(type.implClass)) {
+                    type.capabilities |= 1 << i;
+                }
+            }
+        }
+    }
 
     TileType(@NotNull String layerName) {
-        this(layerName, null);
+        this(layerName, null, null);
     }
 
-    TileType(@NotNull String layerName, @Nullable Class<? extends Tile> implClass, Attribute... attributes) {
+    /**
+     * @param layerName  The expected layer name of this tile type
+     * @param implClass  The class that this TileType must implement
+     * @param factory    Creates a new instance of {@code implClass}, {@code null} if instances cannot be created from a
+     *                   {@link TileGraphic}
+     * @param attributes Attributes every tile of this type has
+     */
+    TileType(@NotNull String layerName, @Nullable Class<? extends Tile> implClass,
+             @Nullable BiFunction<Vector2Int, TileGraphic, Tile> factory, Attribute... attributes) {
         this.layerName = layerName;
         this.implClass = implClass;
+        this.factory = factory;
 
-        HashSet<Attribute> tempSet = new HashSet<>();
+        EnumSet<Attribute> tempSet = EnumSet.noneOf(Attribute.class);
         Collections.addAll(tempSet, attributes);
         this.attributes = Collections.unmodifiableSet(tempSet);
     }
 
+    /**
+     * @param superClass The class to find the capability bit of
+     * @return The bit of the given class in {@link #getCapabilities()}, or {@code 0} if the given class is not
+     * precomputed
+     */
+    public static int getCapabilityBit(@NotNull Class<? extends Tile> superClass) {
+        for (int i = 0; i < CAPABILITIES.length; i++) {
+            if (CAPABILITIES[i] == superClass) {
+                return 1 << i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A bitmask of the most used super classes the implementation class has. Subclasses of the implementation class
+     * might have more.
+     *
+     * @return Bitmask of capabilities, see {@link #getCapabilityBit(Class)}
+     */
+    public int getCapabilities() {
+        return capabilities;
+    }
+
     /**
      * These will be added to the concrete {@link TileGraphic}
      *
@@ -68,6 +127,15 @@ public enum TileType {
         return implClass;
     }
 
+    /**
+     * @return How to create a new tile of this type at the given position with the given graphic, or {@code null} if
+     * tiles of this type cannot be created from a {@link TileGraphic}
+     */
+    @Nullable
+    public BiFunction<Vector2Int, TileGraphic, Tile> getFactory() {
+        return factory;
+    }
+
     /**
      * Note that this is not a hard rule, there might be TileTypes on other layers (see f.eks {@link MapHandler#LASERS_LAYER_NAME} and {@link MapHandler#ENITTY_LASER_LAYER_NAME}).
      *
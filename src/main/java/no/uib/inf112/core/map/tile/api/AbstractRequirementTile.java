@@ -22,15 +22,24 @@ public abstract class AbstractRequirementTile extends AbstractTile implements Re
         if ((tile == null || equals(tile)) && !canRunOnSelf()) {
             return false;
         }
+        //indexed loops, as this is checked for every tile an action might be run on
         List<Attribute> atts = requiredAttributes();
-        if (atts != null && !atts.stream().allMatch(tile::hasAttribute)) {
-            return false;
+        if (atts != null) {
+            for (int i = 0; i < atts.size(); i++) {
+                if (!tile.hasAttribute(atts.get(i))) {
+                    return false;
+                }
+            }
         }
         List<Class<? extends Tile>> interfaces = requiredSuperClasses();
-        if (interfaces == null) {
-            return true;
+        if (interfaces != null) {
+            for (int i = 0; i < interfaces.size(); i++) {
+                if (!tile.hasSuperClass(interfaces.get(i))) {
+                    return false;
+                }
+            }
         }
-        return interfaces.stream().allMatch(tile::hasSuperClass);
+        return true;
     }
 
     @Nullable
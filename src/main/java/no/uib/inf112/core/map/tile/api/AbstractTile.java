@@ -19,12 +19,15 @@ public abstract class AbstractTile implements Tile {
     private final Vector2Int pos;
     private final TileGraphic tg;
     private final TileType tt;
+    //if this is an instance of the implementation class of the type, then the capabilities of the type are exact
+    private final boolean exactType;
 
     public AbstractTile(@NotNull Vector2Int pos, @NotNull TileGraphic tg) {
 
         this.pos = pos;
         this.tg = tg;
         this.tt = tg.getTileType();
+        exactType = getClass() == tt.getImplClass();
     }
 
     @Override
@@ -51,11 +54,19 @@ public abstract class AbstractTile implements Tile {
 
     @Override
     public boolean hasAttribute(@Nullable Attribute attribute) {
-        return tg.getAttributes().contains(attribute);
+        return tg.hasAttribute(attribute);
     }
 
     @Override
     public boolean hasSuperClass(@NotNull Class<? extends Tile> superClass) {
+        int bit = TileType.getCapabilityBit(superClass);
+        if (bit != 0) {
+            if ((tt.getCapabilities() & bit) != 0) {
+                return true;
+            } else if (exactType) {
+                return false;
+            }
+        }
         return superClass.isAssignableFrom(getClass());
     }
 }
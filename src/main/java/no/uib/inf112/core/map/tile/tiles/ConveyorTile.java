@@ -18,6 +18,8 @@ import java.util.Set;
  */
 public class ConveyorTile extends AbstractRequirementTile implements ActionTile<MovableTile>, SingleDirectionalTile {
 
+    private static final List<Class<? extends Tile>> REQUIRED_SUPER_CLASSES = Collections.singletonList(MovableTile.class);
+
     private Direction dir;
 
     public ConveyorTile(@NotNull Vector2Int pos, @NotNull TileGraphic tg) {
@@ -56,7 +58,7 @@ public class ConveyorTile extends AbstractRequirementTile implements ActionTile<
     @Nullable
     @Override
     public List<Class<? extends Tile>> requiredSuperClasses() {
-        return Collections.singletonList(MovableTile.class);
+        return REQUIRED_SUPER_CLASSES;
     }
 
     @Override
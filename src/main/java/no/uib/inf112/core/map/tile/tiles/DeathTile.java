@@ -18,6 +18,8 @@ import java.util.List;
  */
 public class DeathTile extends AbstractRequirementTile implements ActionTile<MovableTile> {
 
+    private static final List<Class<? extends Tile>> REQUIRED_SUPER_CLASSES = Collections.singletonList(MovableTile.class);
+
     public DeathTile(@NotNull Vector2Int pos, @NotNull TileGraphic tg) {
         super(pos, tg);
     }
@@ -39,6 +41,6 @@ public class DeathTile extends AbstractRequirementTile implements ActionTile<Mov
     @Nullable
     @Override
     public List<Class<? extends Tile>> requiredSuperClasses() {
-        return Collections.singletonList(MovableTile.class);
+        return REQUIRED_SUPER_CLASSES;
     }
 }
@@ -17,6 +17,8 @@ import java.util.List;
  */
 public class FlagTile extends AbstractRequirementTile implements ActionTile<IPlayer> {
 
+    private static final List<Class<? extends Tile>> REQUIRED_SUPER_CLASSES = Collections.singletonList(IPlayer.class);
+
     private final int flagNr;
 
     public FlagTile(@NotNull Vector2Int pos, @NotNull TileGraphic tg) {
@@ -25,6 +27,13 @@ public class FlagTile extends AbstractRequirementTile implements ActionTile<IPla
         flagNr = Integer.valueOf(tg.name().replace("FLAG", ""));
     }
 
+    /**
+     * @return The number of this flag, flags must be visited in order
+     */
+    public int getFlagNr() {
+        return flagNr;
+    }
+
     @Override
     public boolean action(@NotNull IPlayer player) {
         if (player.canGetFlag(flagNr)) {
@@ -45,6 +54,6 @@ public class FlagTile extends AbstractRequirementTile implements ActionTile<IPla
 
     @Override
     public List<Class<? extends Tile>> requiredSuperClasses() {
-        return Collections.singletonList(IPlayer.class);
+        return REQUIRED_SUPER_CLASSES;
     }
 }
@@ -20,6 +20,8 @@ import java.util.List;
  */
 public class GearTile extends AbstractRequirementTile implements ActionTile<SingleDirectionalTile> {
 
+    private static final List<Class<? extends Tile>> REQUIRED_SUPER_CLASSES = Collections.singletonList(SingleDirectionalTile.class);
+
     private Attribute dir;
 
     public GearTile(@NotNull Vector2Int pos, @NotNull TileGraphic tg) {
@@ -66,7 +68,7 @@ public class GearTile extends AbstractRequirementTile implements ActionTile<Sing
     @Nullable
     @Override
     public List<Class<? extends Tile>> requiredSuperClasses() {
-        return Collections.singletonList(SingleDirectionalTile.class);
+        return REQUIRED_SUPER_CLASSES;
     }
 
     @Override
@@ -15,6 +15,8 @@ import java.util.Set;
 
 public class PusherTile extends AbstractRequirementTile implements ActionTile<MovableTile>, CollidableTile {
 
+    private static final List<Attribute> REQUIRED_ATTRIBUTES = Collections.singletonList(Attribute.PUSHABLE);
+
     //The wall tile is used for collision
     private WallTile wall;
     private Direction pushDir;
@@ -55,6 +57,6 @@ public class PusherTile extends AbstractRequirementTile implements ActionTile<Mo
     @Nullable
     @Override
     public List<Attribute> requiredAttributes() {
-        return Collections.singletonList(Attribute.PUSHABLE); //pushable implies movable
+        return REQUIRED_ATTRIBUTES; //pushable implies movable
     }
 }
@@ -10,6 +10,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -17,6 +18,8 @@ import java.util.List;
  */
 public class WrenchAndHammerTile extends WrenchTile implements Cleanup<HealableTile> {
 
+    private static final List<Class<? extends Tile>> REQUIRED_SUPER_CLASSES = Collections.unmodifiableList(Arrays.asList(BackupableTile.class, HealableTile.class));
+
     public WrenchAndHammerTile(@NotNull Vector2Int pos, @NotNull TileGraphic tg) {
         super(pos, tg);
     }
@@ -29,6 +32,6 @@ public class WrenchAndHammerTile extends WrenchTile implements Cleanup<HealableT
     @Nullable
     @Override
     public List<Class<? extends Tile>> requiredSuperClasses() {
-        return Arrays.asList(BackupableTile.class, HealableTile.class);
+        return REQUIRED_SUPER_CLASSES;
     }
 }
@@ -18,6 +18,8 @@ import java.util.List;
  */
 public class WrenchTile extends AbstractRequirementTile implements ActionTile<BackupableTile> {
 
+    private static final List<Class<? extends Tile>> REQUIRED_SUPER_CLASSES = Collections.singletonList(BackupableTile.class);
+
     public WrenchTile(@NotNull Vector2Int pos, @NotNull TileGraphic tg) {
         super(pos, tg);
     }
@@ -39,6 +41,6 @@ public class WrenchTile extends AbstractRequirementTile implements ActionTile<Ba
     @Nullable
     @Override
     public List<Class<? extends Tile>> requiredSuperClasses() {
-        return Collections.singletonList(BackupableTile.class);
+        return REQUIRED_SUPER_CLASSES;
     }
 }
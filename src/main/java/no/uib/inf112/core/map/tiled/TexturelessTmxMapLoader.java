@@ -0,0 +1,87 @@
+package no.uib.inf112.core.map.tiled;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.ImageResolver;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.utils.XmlReader.Element;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Load a Tiled map without loading any of its images. The tiles get the same ids as with {@link TmxMapLoader}, but
+ * have no texture, so the map can be loaded on any thread but never rendered.
+ * <p>
+ * As the tiles are cut from the size of the image given in the tile set, tile sets made of single images are not
+ * supported
+ */
+public class TexturelessTmxMapLoader extends TmxMapLoader {
+
+    @Override
+    public TiledMap load(String fileName) {
+        Parameters params = new Parameters();
+        convertObjectToTileSpace = params.convertObjectToTileSpace;
+        flipY = params.flipY;
+        FileHandle tmxFile = resolve(fileName);
+        root = xml.parse(tmxFile);
+        return loadTilemap(root, tmxFile, name -> new TextureRegion());
+    }
+
+    @Override
+    protected void loadTileSet(TiledMap map, Element element, FileHandle tmxFile, ImageResolver imageResolver) {
+        if (!element.getName().equals("tileset")) {
+            return;
+        }
+        int firstgid = element.getIntAttribute("firstgid", 1);
+        String source = element.getAttribute("source", null);
+        if (source != null) {
+            element = xml.parse(getRelativeFileHandle(tmxFile, source));
+        }
+        Element image = element.getChildByName("image");
+        if (image == null) {
+            throw new IllegalArgumentException("Tile set '" + element.get("name", null) + "' is not made of one image");
+        }
+
+        TiledMapTileSet tileSet = new TiledMapTileSet();
+        tileSet.setName(element.get("name", null));
+        tileSet.getProperties().put("firstgid", firstgid);
+        Element properties = element.getChildByName("properties");
+        if (properties != null) {
+            loadProperties(tileSet.getProperties(), properties);
+        }
+
+        //cut the tiles the same way as TmxMapLoader cuts the image
+        int tileWidth = element.getIntAttribute("tilewidth", 0);
+        int tileHeight = element.getIntAttribute("tileheight", 0);
+        int spacing = element.getIntAttribute("spacing", 0);
+        int margin = element.getIntAttribute("margin", 0);
+        int stopWidth = image.getIntAttribute("width", 0) - tileWidth;
+        int stopHeight = image.getIntAttribute("height", 0) - tileHeight;
+        int id = firstgid;
+        for (int y = margin; y <= stopHeight; y += tileHeight + spacing) {
+            for (int x = margin; x <= stopWidth; x += tileWidth + spacing) {
+                tileSet.putTile(id, createTile(id));
+                id++;
+            }
+        }
+
+        for (Element tileElement : element.getChildrenByName("tile")) {
+            TiledMapTile tile = tileSet.getTile(firstgid + tileElement.getIntAttribute("id", 0));
+            Element tileProperties = tileElement.getChildByName("properties");
+            if (tile != null && tileProperties != null) {
+                loadProperties(tile.getProperties(), tileProperties);
+            }
+        }
+        map.getTileSets().addTileSet(tileSet);
+    }
+
+    @NotNull
+    private static TiledMapTile createTile(int id) {
+        StaticTiledMapTile tile = new StaticTiledMapTile(new TextureRegion());
+        tile.setId(id);
+        return tile;
+    }
+}
@@ -5,6 +5,8 @@ import no.uib.inf112.core.RoboRally;
 import no.uib.inf112.core.io.InputHandler;
 import no.uib.inf112.core.map.cards.Card;
 import no.uib.inf112.core.multiplayer.dtos.ConnectedPlayersDto;
+import no.uib.inf112.core.multiplayer.dtos.DtoCodec;
+import no.uib.inf112.core.multiplayer.dtos.DtoCodecs;
 import no.uib.inf112.core.multiplayer.dtos.NewGameDto;
 import no.uib.inf112.core.multiplayer.dtos.SelectedCardsDto;
 import no.uib.inf112.core.multiplayer.dtos.StartRoundDto;
@@ -13,12 +15,14 @@ import no.uib.inf112.core.player.MultiPlayerHandler;
 import no.uib.inf112.core.screens.GameScreen;
 import no.uib.inf112.core.screens.menuscreens.ErrorScreen;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -27,16 +31,19 @@ import java.util.stream.Collectors;
 public class Client implements IClient {
 
     private Socket clientSocket;
-    private DataOutputStream outToServer;
-    private BufferedReader inFromServer;
+    private OutputStream outToServer;
+    private DataInputStream inFromServer;
     private GameGraphics game;
     private MultiPlayerHandler playerHandler;
     private List<String> players;
+    private final MessageCodec codec = new MessageCodec();
+    //only used by the listener thread
+    private byte[] payload = new byte[1024];
 
     public Client(@NotNull String ip, int port) throws IOException {
         clientSocket = new Socket(ip, port);
-        outToServer = new DataOutputStream(clientSocket.getOutputStream());
-        inFromServer = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
+        outToServer = clientSocket.getOutputStream();
+        inFromServer = new DataInputStream(new BufferedInputStream(clientSocket.getInputStream()));
 
         requestClientNameFromServer();
 
@@ -50,52 +57,65 @@ public class Client implements IClient {
      * The listener thread is running this while loop waiting for input from the server and doing corresponding actions
      */
     private void handleInput() {
-        String result = "";
-        while (!clientSocket.isClosed() && result != null) {
+        while (!clientSocket.isClosed()) {
             try {
-                result = inFromServer.readLine();
-                if (result == null || result.equals("null")) {
+                int type = inFromServer.read();
+                if (type < 0) {
                     RoboRally.scheduleSync(() -> game.setScreen(new ErrorScreen(game, "You where disconnected from the host")), 0);
 
                     return;
                 }
-                ClientAction command = ClientAction.fromCommandString(result.substring(0, result.indexOf(":")));
-                String data = result.substring(result.indexOf(":") + 1);
+                int length = MessageCodec.checkLength(inFromServer.readInt());
+                if (payload.length < length) {
+                    payload = new byte[length];
+                }
+                inFromServer.readFully(payload, 0, length);
+                ByteBuffer data = ByteBuffer.wrap(payload, 0, length);
+
+                ClientAction command = ClientAction.fromId(type);
+                if (command == null) {
+                    System.out.println("Unknown operation :" + type);
+                    continue;
+                }
                 switch (command) {
                     case START_GAME:
-                        setupGame(data);
+                        setupGame(MessageCodec.decode(data, DtoCodecs.NEW_GAME));
                         break;
                     case GIVE_CARDS:
-                        giveCards(data);
+                        giveCards(MessageCodec.decode(data, DtoCodecs.START_ROUND));
                         break;
                     case NAME:
                         //clientName = data;
                         // Only used to check connectivity
                         break;
                     case CONNECTED_PLAYERS:
-                        receiveConnectedPlayers(data);
+                        receiveConnectedPlayers(MessageCodec.decode(data, DtoCodecs.CONNECTED_PLAYERS));
                         break;
                     case THREAD_NAME:
                         //Do nothing
                         break;
                     case START_ROUND:
                         GameScreen.getUiHandler().updateCountDown(0);
-                        playerHandler.runRound(GameGraphics.gson.fromJson(data, StartRoundDto.class));
+                        playerHandler.runRound(MessageCodec.decode(data, DtoCodecs.START_ROUND));
                         break;
                     case COUNT_DOWN:
                         // This seconds int has the information about the current number for the countdown
-                        int seconds = 30 - GameGraphics.gson.fromJson(data, Integer.class); // Count down, not count up
+                        int seconds = 30 - MessageCodec.decode(data, DtoCodecs.UNSIGNED_BYTE); // Count down, not count up
                         GameScreen.getUiHandler().updateCountDown(seconds);
                         break;
                     case PARTY_MODE:
                         InputHandler.enableMode();
                         break;
+                    case ERROR:
+                        System.out.println("Error from server: " + MessageCodec.decode(data, DtoCodecs.STRING));
+                        break;
                     default:
-                        System.out.println("Unknown operation :" + result);
+                        System.out.println("Unknown operation :" + command);
                         break;
                 }
-            } catch (IOException e) {
+            } catch (IOException | IllegalArgumentException e) {
                 System.out.println("IOExeption " + e);
+                closeConnection();
             }
         }
     }
@@ -105,24 +125,22 @@ public class Client implements IClient {
      *
      * @param data a startround dto containing cards for each player and the drawn cards for this instance's mainplayer
      */
-    private void giveCards(@NotNull String data) {
-        RoboRally.scheduleSync(() ->
-                playerHandler.startRound(GameGraphics.gson.fromJson(data, StartRoundDto.class)), 0);
+    private void giveCards(@NotNull StartRoundDto data) {
+        RoboRally.scheduleSync(() -> playerHandler.startRound(data), 0);
     }
 
     /**
      * Start a new roborally game
      *
-     * @param data a newGame dto containing parameters for the new game
+     * @param newGameDto a newGame dto containing parameters for the new game
      */
-    private void setupGame(@NotNull String data) {
+    private void setupGame(@NotNull NewGameDto newGameDto) {
         if (game == null) {
             throw new IllegalArgumentException("Tried to start game with a null reference to GameGraphics");
         }
-        NewGameDto newGameDto = GameGraphics.gson.fromJson(data, NewGameDto.class);
         RoboRally.scheduleSync(() -> {
             game.setScreen(new GameScreen(game, newGameDto, this));
-            writeToServer(ServerAction.FINISHED_SETUP + "");
+            writeToServer(ServerAction.FINISHED_SETUP);
             IPlayerHandler playerHandler = GameGraphics.getRoboRally().getPlayerHandler();
             if (playerHandler instanceof MultiPlayerHandler) {
                 this.playerHandler = (MultiPlayerHandler) playerHandler;
@@ -134,14 +152,29 @@ public class Client implements IClient {
     }
 
     /**
-     * Sends given text to the server
+     * Sends given message without payload to the server
+     *
+     * @param action what the server should do
+     * @return true if able to write to the server
+     */
+    private boolean writeToServer(@NotNull ServerAction action) {
+        return writeToServer(action, null, null);
+    }
+
+    /**
+     * Sends given message to the server
      *
-     * @param text to send to the server
+     * @param action what the server should do
+     * @param codec  how to write the payload, {@code null} if there is no payload
+     * @param value  the payload
      * @return true if able to write to the server
      */
-    private boolean writeToServer(@NotNull String text) {
+    private synchronized <T> boolean writeToServer(@NotNull ServerAction action, @Nullable DtoCodec<T> codec, @Nullable T value) {
+        //the codec reuses its buffer, and messages from different threads must not be mixed
+        ByteBuffer frame = codec == null ? this.codec.encode(action) : this.codec.encode(action, codec, value);
         try {
-            outToServer.writeUTF(text);
+            outToServer.write(frame.array(), frame.arrayOffset(), frame.limit());
+            outToServer.flush();
             return true;
 
         } catch (IOException e) {
@@ -155,8 +188,7 @@ public class Client implements IClient {
      *
      * @return a list of the names of all the connected players
      */
-    private List<String> receiveConnectedPlayers(@NotNull String data) {
-        ConnectedPlayersDto result = GameGraphics.gson.fromJson(data, ConnectedPlayersDto.class);
+    private List<String> receiveConnectedPlayers(@NotNull ConnectedPlayersDto result) {
         if (result.players != null) {
             players = result.players.stream()
                     .filter(Objects::nonNull)
@@ -171,7 +203,7 @@ public class Client implements IClient {
      * Request this clients name from the server
      */
     private void requestClientNameFromServer() {
-        writeToServer(ServerAction.GET_NAME + "");
+        writeToServer(ServerAction.GET_NAME);
     }
 
     @Override
@@ -182,30 +214,40 @@ public class Client implements IClient {
 
     @Override
     public void setPartyModeOn() {
-        writeToServer(ServerAction.PARTY_MODE + "");
+        writeToServer(ServerAction.PARTY_MODE);
     }
 
     @Override
     public void setName(@NotNull String name) {
-        writeToServer(ServerAction.SET_DISPLAY_NAME + name);
+        writeToServer(ServerAction.SET_DISPLAY_NAME, DtoCodecs.STRING, name);
     }
 
     @Override
     public void startGame(@NotNull GameGraphics game) {
         this.game = game;
-        writeToServer(ServerAction.START_GAME + "");
+        writeToServer(ServerAction.START_GAME);
     }
 
     @Override
     public void sendSelectedCards(boolean poweredDown, @NotNull List<Card> cards) {
         SelectedCardsDto message = new SelectedCardsDto(poweredDown, cards);
-        writeToServer(ServerAction.SEND_SELECTED_CARDS + GameGraphics.gson.toJson(message, SelectedCardsDto.class));
+        writeToServer(ServerAction.SEND_SELECTED_CARDS, DtoCodecs.SELECTED_CARDS, message);
+
+    }
 
+    @Override
+    public void joinRoom(@NotNull String room) {
+        writeToServer(ServerAction.JOIN_ROOM, DtoCodecs.STRING, room);
     }
 
     @Override
     public void setHost() {
-        writeToServer(ServerAction.SET_HOST_ID + "");
+        writeToServer(ServerAction.SET_HOST_ID);
+    }
+
+    @Override
+    public void setMap(@NotNull String map) {
+        writeToServer(ServerAction.SET_MAP, DtoCodecs.STRING, map);
     }
 
     @Override
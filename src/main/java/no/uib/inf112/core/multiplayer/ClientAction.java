@@ -2,10 +2,10 @@ package no.uib.inf112.core.multiplayer;
 
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-
 /**
  * Action the server can send to the client
+ * <p>
+ * The position of an action is its id in {@link MessageCodec}, so new actions must be added at the end
  */
 public enum ClientAction {
 
@@ -16,9 +16,10 @@ public enum ClientAction {
     THREAD_NAME("threadName"),
     START_ROUND("startRound"),
     COUNT_DOWN("countDown"),
-    PARTY_MODE("partyMode");
+    PARTY_MODE("partyMode"),
+    ERROR("error");
 
-    private static HashMap<String, ClientAction> ClientActionMap = new HashMap<>();
+    private static final ClientAction[] VALUES = values();
     private final String command;
 
     ClientAction(String command) {
@@ -31,23 +32,15 @@ public enum ClientAction {
 
     @Override
     public String toString() {
-        return command + ":";
-    }
-
-    static {
-        for (ClientAction value : values()) {
-            ClientActionMap.put(value.getCommand(), value);
-        }
+        return command;
     }
 
     /**
-     * @param command The command of the wanted ClientAction
-     * @return The ClientAction with the given command. Will be {@code null} if the given id is not known
+     * @param id The id of the wanted ClientAction, as sent by {@link MessageCodec}
+     * @return The ClientAction with the given id. Will be {@code null} if the given id is not known
      */
     @Nullable
-    public static ClientAction fromCommandString(String command) {
-        return ClientActionMap.get(command);
+    public static ClientAction fromId(int id) {
+        return id >= 0 && id < VALUES.length ? VALUES[id] : null;
     }
-
-
 }
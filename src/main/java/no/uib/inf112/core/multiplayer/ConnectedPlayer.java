@@ -0,0 +1,189 @@
+package no.uib.inf112.core.multiplayer;
+
+import no.uib.inf112.core.multiplayer.dtos.PlayerDto;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * One client connected to a {@link Server}, only used by the selector thread of the server
+ */
+class ConnectedPlayer {
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    /**
+     * Handles a message read from the client
+     */
+    @FunctionalInterface
+    interface MessageHandler {
+        /**
+         * @param type    The id of the {@link ServerAction} sent
+         * @param payload The payload of the message, see {@link MessageCodec}. Only valid while handling it
+         */
+        void handle(int type, @NotNull ByteBuffer payload) throws IOException;
+    }
+
+    private final SocketChannel channel;
+    private SelectionKey key;
+    private ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private final Queue<ByteBuffer> out = new ArrayDeque<>();
+    private int[] starts = new int[1];
+
+    final PlayerDto player = new PlayerDto();
+    boolean connected = true;
+    boolean readyToStart = false;
+    @Nullable
+    Room room;
+
+    /**
+     * @param channel The connection to the client
+     */
+    ConnectedPlayer(@NotNull SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @param key The key of this connection in the selector of the server
+     */
+    void setKey(@NotNull SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * @return The name of this connection in its room
+     */
+    @NotNull
+    String getName() {
+        return "Player " + player.id;
+    }
+
+    /**
+     * Send a message to the client
+     *
+     * @param frame The message encoded by {@link MessageCodec}, as one buffer or in parts to be written together. The
+     *              buffers are left as they were so they can be sent to others
+     */
+    void sendMessage(@NotNull ByteBuffer... frame) {
+        if (!connected) {
+            return;
+        }
+        if (starts.length < frame.length) {
+            starts = new int[frame.length];
+        }
+        long remaining = 0;
+        for (int i = 0; i < frame.length; i++) {
+            starts[i] = frame[i].position();
+            remaining += frame[i].remaining();
+        }
+        try {
+            if (out.isEmpty()) {
+                remaining -= channel.write(frame);
+            }
+            if (remaining > 0) {
+                //only copied when the client does not keep up, as the frame is reused by the next message
+                ByteBuffer copy = ByteBuffer.allocate((int) remaining);
+                for (ByteBuffer part : frame) {
+                    copy.put(part);
+                }
+                copy.flip();
+                out.add(copy);
+                flush();
+            }
+        } catch (IOException e) {
+            close();
+        } finally {
+            for (int i = 0; i < frame.length; i++) {
+                frame[i].position(starts[i]);
+            }
+        }
+    }
+
+    /**
+     * Write as much of the waiting messages as the connection accepts without blocking, the rest is written when the
+     * selector says the connection is writable
+     */
+    void flush() throws IOException {
+        while (!out.isEmpty()) {
+            ByteBuffer buffer = out.peek();
+            channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                break;
+            }
+            out.poll();
+        }
+        if (key.isValid()) {
+            key.interestOps(out.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Read what the client has sent
+     *
+     * @param handler What to do with every complete message
+     */
+    void read(@NotNull MessageHandler handler) throws IOException {
+        if (channel.read(in) < 0) {
+            close();
+            return;
+        }
+        in.flip();
+        try {
+            while (connected && in.remaining() >= MessageCodec.HEADER_BYTES) {
+                int frameLength;
+                try {
+                    frameLength = MessageCodec.HEADER_BYTES + MessageCodec.checkLength(in.getInt(in.position() + Byte.BYTES));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(e);
+                }
+                if (in.remaining() < frameLength) {
+                    if (frameLength > in.capacity()) {
+                        ByteBuffer bigger = ByteBuffer.allocate(frameLength);
+                        bigger.put(in);
+                        bigger.flip();
+                        in = bigger;
+                    }
+                    break;
+                }
+                int frameEnd = in.position() + frameLength;
+                int limit = in.limit();
+                int type = in.get() & 0xFF;
+                in.getInt();
+                //the payload is read straight from the buffer
+                in.limit(frameEnd);
+                try {
+                    handler.handle(type, in);
+                } finally {
+                    in.limit(limit);
+                    in.position(frameEnd);
+                }
+            }
+        } finally {
+            //handled frames are dropped even when a handler fails, so the buffer is always ready for the next read
+            in.compact();
+        }
+    }
+
+    /**
+     * Close the connection to this client. A player that has joined a game keeps its place in the room and is given
+     * random cards
+     */
+    void close() {
+        connected = false;
+        out.clear();
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
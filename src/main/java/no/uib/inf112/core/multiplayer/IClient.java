@@ -39,11 +39,25 @@ public interface IClient {
      */
     void sendSelectedCards(boolean poweredDown, List<Card> cards);
 
+    /**
+     * Move to another game on the server, only possible before the game has started
+     *
+     * @param room name of the room to join, rooms are created when someone joins them
+     */
+    void joinRoom(String room);
+
     /**
      * Sets this client as responsible host on the server
      */
     void setHost();
 
+    /**
+     * Choose the map of the game, only the host can do so before the game has started
+     *
+     * @param map name of the map, as found in {@link no.uib.inf112.core.GameGraphics#MAP_FOLDER}
+     */
+    void setMap(String map);
+
     /**
      * Close the connections to the server
      */
@@ -0,0 +1,170 @@
+package no.uib.inf112.core.multiplayer;
+
+import no.uib.inf112.core.multiplayer.dtos.DtoCodec;
+import no.uib.inf112.core.multiplayer.dtos.DtoCodecs;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * The wire format shared by {@link Client} and {@link Server}. Every message is a frame of one byte telling the
+ * {@link ServerAction} or {@link ClientAction}, the length of the payload as an int and then the payload itself,
+ * written by one of the {@link DtoCodecs}.
+ * <p>
+ * Messages are encoded into a buffer owned by the codec, which is reused for the next message. A codec must therefore
+ * only be used by one thread at the time.
+ */
+public class MessageCodec {
+
+    /**
+     * Bytes in front of every payload
+     */
+    public static final int HEADER_BYTES = Byte.BYTES + Integer.BYTES;
+    /**
+     * Larger frames are not accepted, so a broken or hostile peer can not make us allocate without limit
+     */
+    public static final int MAX_PAYLOAD_BYTES = 1 << 24;
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private final ByteBuffer[] parts = new ByteBuffer[3];
+
+    /**
+     * @param action What the client should do
+     * @return The whole frame of a message without payload, only valid until the next message is encoded
+     */
+    @NotNull
+    public ByteBuffer encode(@NotNull ClientAction action) {
+        return encode(action.ordinal(), null, null);
+    }
+
+    /**
+     * @param action What the client should do
+     * @param codec  How to write the payload
+     * @param value  The payload
+     * @return The whole frame of the message, only valid until the next message is encoded
+     */
+    @NotNull
+    public <T> ByteBuffer encode(@NotNull ClientAction action, @NotNull DtoCodec<T> codec, T value) {
+        return encode(action.ordinal(), codec, value);
+    }
+
+    /**
+     * @param action What the server should do
+     * @return The whole frame of a message without payload, only valid until the next message is encoded
+     */
+    @NotNull
+    public ByteBuffer encode(@NotNull ServerAction action) {
+        return encode(action.ordinal(), null, null);
+    }
+
+    /**
+     * @param action What the server should do
+     * @param codec  How to write the payload
+     * @param value  The payload
+     * @return The whole frame of the message, only valid until the next message is encoded
+     */
+    @NotNull
+    public <T> ByteBuffer encode(@NotNull ServerAction action, @NotNull DtoCodec<T> codec, T value) {
+        return encode(action.ordinal(), codec, value);
+    }
+
+    /**
+     * Encode a message whose payload starts with bytes shared by many messages, followed by a value only for this
+     * message. The shared bytes are not copied, so they are only encoded once however many clients the message is
+     * sent to.
+     *
+     * @param action What the client should do
+     * @param shared The start of the payload, see {@link #share(DtoCodec, Object)}
+     * @param codec  How to write the rest of the payload
+     * @param value  The rest of the payload
+     * @return The header, the shared bytes and the rest of the payload, to be sent with a gathering write. Only valid
+     * until the next message is encoded
+     */
+    @NotNull
+    public <T> ByteBuffer[] encode(@NotNull ClientAction action, @NotNull ByteBuffer shared, @NotNull DtoCodec<T> codec, T value) {
+        int ownLength = codec.size(value);
+        encode(action.ordinal(), shared.remaining() + ownLength, codec, value, ownLength);
+
+        ByteBuffer header = buffer.duplicate();
+        header.limit(HEADER_BYTES);
+        ByteBuffer own = buffer.duplicate();
+        own.position(HEADER_BYTES);
+        parts[0] = header;
+        parts[1] = shared;
+        parts[2] = own;
+        return parts;
+    }
+
+    /**
+     * @param codec How to write the value
+     * @param value The value many messages start their payload with
+     * @return The encoded value, which can not be changed
+     */
+    @NotNull
+    public static <T> ByteBuffer share(@NotNull DtoCodec<T> codec, T value) {
+        ByteBuffer shared = ByteBuffer.allocate(codec.size(value));
+        codec.write(shared, value);
+        shared.flip();
+        return shared.asReadOnlyBuffer();
+    }
+
+    @NotNull
+    private <T> ByteBuffer encode(int type, @Nullable DtoCodec<T> codec, T value) {
+        int length = codec == null ? 0 : codec.size(value);
+        return encode(type, length, codec, value, length);
+    }
+
+    /**
+     * @param length    The length of the whole payload
+     * @param ownLength How much of the payload the codec writes, the rest is sent from a shared buffer
+     */
+    @NotNull
+    private <T> ByteBuffer encode(int type, int length, @Nullable DtoCodec<T> codec, T value, int ownLength) {
+        checkLength(length);
+        if (buffer.capacity() < HEADER_BYTES + ownLength) {
+            buffer = ByteBuffer.allocate(Math.max(HEADER_BYTES + ownLength, 2 * buffer.capacity()));
+        }
+        buffer.clear();
+        buffer.put((byte) type);
+        buffer.putInt(length);
+        if (codec != null) {
+            codec.write(buffer, value);
+        }
+        if (buffer.position() != HEADER_BYTES + ownLength) {
+            throw new IllegalStateException("Codec wrote " + (buffer.position() - HEADER_BYTES) + " bytes, but said it would write " + ownLength);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * @param payload The payload of a message
+     * @param codec   How to read the payload
+     * @return The payload read
+     * @throws IOException if the payload is not valid
+     */
+    public static <T> T decode(@NotNull ByteBuffer payload, @NotNull DtoCodec<T> codec) throws IOException {
+        try {
+            return codec.read(payload);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Invalid payload", e);
+        }
+    }
+
+    /**
+     * @param length The length of a payload
+     * @return The given length
+     * @throws IllegalArgumentException if the length is negative or above {@link #MAX_PAYLOAD_BYTES}
+     */
+    public static int checkLength(int length) {
+        if (length < 0 || length > MAX_PAYLOAD_BYTES) {
+            throw new IllegalArgumentException("Invalid payload length " + length);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,437 @@
+package no.uib.inf112.core.multiplayer;
+
+import com.badlogic.gdx.graphics.Color;
+import no.uib.inf112.core.GameGraphics;
+import no.uib.inf112.core.RoboRally;
+import no.uib.inf112.core.map.MapHandler;
+import no.uib.inf112.core.map.cards.Deck;
+import no.uib.inf112.core.map.cards.MovementDeck;
+import no.uib.inf112.core.multiplayer.dtos.*;
+import no.uib.inf112.core.player.IPlayer;
+import no.uib.inf112.core.player.PlayerHandler;
+import no.uib.inf112.core.player.ServerPlayerHandler;
+import no.uib.inf112.core.testutils.HeadlessMapHandler;
+import no.uib.inf112.core.util.ComparableTuple;
+import no.uib.inf112.core.util.HashedWheelScheduler;
+import no.uib.inf112.core.util.SimulationScheduler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * One game hosted by a {@link Server}. Every room has its own map, players, deck, countdown and round state, and is
+ * only used by the selector thread of the server.
+ * <p>
+ * The room deals the cards, decides when each round starts and plays every round on its own headless game, so the
+ * server always knows the state of the game. The clients play the same rounds to show them.
+ */
+class Room {
+
+    private static final int MAX_SECONDS = 31;
+    private static final long SECOND_MS = 1000;
+    //the countdown only needs to be as precise as a tenth of a second
+    private static final long COUNTDOWN_TICK_MS = 100;
+    private static final int COUNTDOWN_WHEEL_SIZE = 16;
+    //guards against a round that never ends
+    private static final int MAX_ROUND_TASKS = 100_000;
+
+    private final Server server;
+    private final MessageCodec codec;
+    private final String name;
+    private final int maxPlayers;
+    private String map;
+    private final List<ConnectedPlayer> players = new ArrayList<>();
+    //cards need their textures when not headless, which are not loaded before the game has started
+    @Nullable
+    private Deck deck;
+    private int hostId;
+    private int seconds;
+    private boolean gameStarted;
+    private boolean startedRound;
+    private boolean countdownStarted = false;
+    //the wheels of all rooms tick on the same thread, and run the countdown on the selector thread
+    private final HashedWheelScheduler countdown;
+    //the players of the game in the order they were sent to the clients
+    private List<PlayerDto> gamePlayers;
+    //the game as played by the server, made when the first round is played as the cards of its deck need their
+    //textures when not headless
+    @Nullable
+    private RoboRally game;
+    private SimulationScheduler gameScheduler;
+
+    /**
+     * @param server     The server hosting this room
+     * @param name       The name clients use to join this room
+     * @param maxPlayers How many players that can be in this room at the same time
+     */
+    Room(@NotNull Server server, @NotNull String name, int maxPlayers) {
+        this.server = server;
+        codec = server.getCodec();
+        this.name = name;
+        this.maxPlayers = maxPlayers;
+        map = server.getDefaultMap();
+        countdown = new HashedWheelScheduler(COUNTDOWN_TICK_MS, COUNTDOWN_WHEEL_SIZE, server::execute);
+    }
+
+    @NotNull
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return If the game in this room has started, no one can join or leave a started game
+     */
+    boolean isStarted() {
+        return gameStarted;
+    }
+
+    /**
+     * @return If no one is connected to this room
+     */
+    boolean isAbandoned() {
+        for (ConnectedPlayer player : players) {
+            if (player.connected) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Let a player into this room if the game has not started and there is a free slot
+     *
+     * @param player The player joining
+     * @return If the player joined this room
+     */
+    boolean join(@NotNull ConnectedPlayer player) {
+        //a player that went away before joining the game does not need its slot
+        players.removeIf(other -> !other.connected && other.player.name == null);
+        int id = freeId();
+        if (gameStarted || id < 0) {
+            return false;
+        }
+        player.player.id = id;
+        player.readyToStart = false;
+        player.room = this;
+        players.add(player);
+        if (player.player.name != null) {
+            sendMessageToAll(getConnectedPlayers());
+        }
+        return true;
+    }
+
+    /**
+     * Remove a player from this room
+     *
+     * @param player The player leaving
+     */
+    void leave(@NotNull ConnectedPlayer player) {
+        if (players.remove(player) && player.player.name != null) {
+            sendMessageToAll(getConnectedPlayers());
+        }
+    }
+
+    /**
+     * @return The lowest id not used by any player, or {@code -1} if all slots are taken
+     */
+    private int freeId() {
+        for (int id = 0; id < maxPlayers; id++) {
+            boolean used = false;
+            for (ConnectedPlayer player : players) {
+                if (player.player.id == id) {
+                    used = true;
+                    break;
+                }
+            }
+            if (!used) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Handle input from a client in this room
+     *
+     * @param connectedPlayer The client that sent the message
+     * @param command         What the client wants
+     * @param payload         The rest of the message
+     */
+    void handleInput(@NotNull ConnectedPlayer connectedPlayer, @NotNull ServerAction command, @NotNull ByteBuffer payload) throws IOException {
+        PlayerDto player = connectedPlayer.player;
+        switch (command) {
+            case GET_NAME:
+                connectedPlayer.sendMessage(codec.encode(ClientAction.THREAD_NAME, DtoCodecs.STRING, connectedPlayer.getName()));
+                break;
+            case SET_DISPLAY_NAME:
+                player.name = MessageCodec.decode(payload, DtoCodecs.STRING);
+                connectedPlayer.sendMessage(codec.encode(ClientAction.NAME, DtoCodecs.STRING, player.name + "for" + connectedPlayer.getName()));
+                sendMessageToAll(getConnectedPlayers());
+                break;
+            case GET_CONNECTED_PLAYERS:
+                connectedPlayer.sendMessage(getConnectedPlayers());
+                break;
+            case START_GAME:
+                startGame(player.id);
+                break;
+            case SEND_SELECTED_CARDS:
+                setCards(player, MessageCodec.decode(payload, DtoCodecs.SELECTED_CARDS));
+                connectedPlayer.readyToStart = true;
+                if (shouldStartCountdown()) {
+                    giveDisconnectedPlayersRandomCard();
+                    startCountdown();
+                    countdownStarted = true;
+                }
+                checkAllPlayersReady();
+                //user waits for rest of players
+                break;
+            case SET_HOST_ID:
+                hostId = player.id;
+                break;
+            case FINISHED_SETUP:
+                startRound(ClientAction.GIVE_CARDS);
+                break;
+            case PARTY_MODE:
+                sendMessageToAll(codec.encode(ClientAction.PARTY_MODE));
+                break;
+            case SET_MAP:
+                setMap(connectedPlayer, MessageCodec.decode(payload, DtoCodecs.STRING));
+                break;
+            default:
+                System.out.println("Dit not understand command received from client " + player.id + " in room '" + name + "': " + command);
+                server.sendError(connectedPlayer, "Did not understand message");
+                break;
+        }
+    }
+
+    /**
+     * Set selected cards for the given client
+     *
+     * @param data SelectedCards dto containing data about the selected cards and power down status for this client
+     */
+    private void setCards(@NotNull PlayerDto player, @NotNull SelectedCardsDto data) {
+        player.isPoweredDown = data.poweredDown;
+        player.cards = data.cards;
+    }
+
+    /**
+     * Change the map of this room, only the host can do so and only before the game has started
+     *
+     * @param connectedPlayer The client that wants to change the map
+     * @param newMap          The name of the map, as found in {@link GameGraphics#MAP_FOLDER}
+     */
+    private void setMap(@NotNull ConnectedPlayer connectedPlayer, @NotNull String newMap) {
+        if (gameStarted || connectedPlayer.player.id != hostId) {
+            server.sendError(connectedPlayer, "Only the host can change the map before the game has started");
+        } else if (!Server.isMap(newMap)) {
+            server.sendError(connectedPlayer, "Unknown map '" + newMap + "'");
+        } else {
+            map = newMap;
+        }
+    }
+
+    /**
+     * Starts a new game if the calling client is the host
+     *
+     * @param id id of the client sending the request
+     */
+    private void startGame(int id) {
+        if (hostId == id) {
+            gameStarted = true;
+            Stack<ComparableTuple<String, Color>> colors = PlayerHandler.addColors();
+            List<PlayerDto> playerDtos = new ArrayList<>();
+            Iterator<ConnectedPlayer> iterator = players.iterator();
+            while (iterator.hasNext()) {
+                ConnectedPlayer player = iterator.next();
+                if (player.player.name != null) {
+                    player.player.color = colors.pop().value;
+                    playerDtos.add(player.player);
+                } else {
+                    player.close();
+                    iterator.remove();
+                }
+            }
+            gamePlayers = playerDtos;
+            NewGameDto newGameDto = new NewGameDto(map, playerDtos, hostId);
+            for (ConnectedPlayer player : players) {
+                newGameDto.userId = player.player.id;
+                player.sendMessage(codec.encode(ClientAction.START_GAME, DtoCodecs.NEW_GAME, newGameDto));
+            }
+        }
+    }
+
+    /**
+     * Checks to see if the countdown should start,
+     *
+     * @return true if we are only waiting for one connected player
+     */
+    private boolean shouldStartCountdown() {
+        int count = 0;
+        for (ConnectedPlayer player : players) {
+            if (player.connected && !player.readyToStart) {
+                if (++count > 1) {
+                    return false;
+                }
+            }
+        }
+        return count == 1 && !countdownStarted;
+    }
+
+    /**
+     * Send a message to all clients in this room, the message is only encoded once
+     *
+     * @param message message to send, encoded by {@link MessageCodec}
+     */
+    private void sendMessageToAll(@NotNull ByteBuffer message) {
+        for (ConnectedPlayer player : players) {
+            if (player.player.name != null) {
+                player.sendMessage(message);
+            }
+        }
+    }
+
+    /**
+     * Helper function giving disconnected players random cards
+     */
+    private void giveDisconnectedPlayersRandomCard() {
+        for (ConnectedPlayer player : players) {
+            if (player.player.name != null && !player.connected) {
+                player.player.cards = DtoMapper.drawRandomCards(player.player.drawnCards);
+            }
+        }
+    }
+
+    /**
+     * Starts the countdown, every second is counted on the selector thread of the server
+     */
+    private void startCountdown() {
+        seconds = 0;
+        countdown.scheduleSync(this::countDown, 0);
+    }
+
+    /**
+     * Count one second, the next second is scheduled until the countdown is over or the round has started
+     */
+    private void countDown() {
+        if (!startedRound && seconds < MAX_SECONDS) {
+            sendMessageToAll(codec.encode(ClientAction.COUNT_DOWN, DtoCodecs.UNSIGNED_BYTE, seconds));
+            seconds++;
+            countdown.scheduleSync(this::countDown, SECOND_MS);
+        } else if (!startedRound) {
+            for (ConnectedPlayer player : players) {
+                if (player.connected && !player.readyToStart && player.player.drawnCards != null) {
+                    player.player.cards = DtoMapper.drawRandomCards(player.player.drawnCards);
+                }
+            }
+            countdownStarted = false;
+            startRound(ClientAction.START_ROUND);
+        } else {
+            countdownStarted = false;
+        }
+    }
+
+    /**
+     * Checks to see if all players have selected their cards
+     */
+    private void checkAllPlayersReady() {
+        for (ConnectedPlayer player : players) {
+            if (player.connected && !player.readyToStart) {
+                startedRound = false;
+                return;
+            }
+        }
+        startRound(ClientAction.START_ROUND);
+    }
+
+    /**
+     * Starts the given round. The players are the same for every client, so they are only encoded once and every
+     * client is sent them followed by its own drawn cards
+     *
+     * @param command command to send with the dto either startround or GIVE_CARDS
+     */
+    private void startRound(@NotNull ClientAction command) {
+        startedRound = true;
+        List<PlayerDto> players = new ArrayList<>();
+        for (ConnectedPlayer player : this.players) {
+            if (player.player.name != null) {
+                players.add(player.player);
+            }
+        }
+        if (command == ClientAction.START_ROUND && gameStarted) {
+            playRound(players);
+        }
+        if (deck == null) {
+            deck = new MovementDeck();
+        }
+        deck.shuffle();
+        //the same bytes as DtoCodecs.START_ROUND, which writes the players without their drawn cards before the drawn
+        //cards of the client
+        ByteBuffer sharedPlayers = MessageCodec.share(DtoCodecs.PLAYERS, players);
+        for (ConnectedPlayer player : this.players) {
+            if (player.player.name != null) {
+                List<CardDto> drawnCards = DtoMapper.mapToDto(Arrays.asList(deck.draw(IPlayer.MAX_DRAW_CARDS)));
+                player.player.drawnCards = drawnCards;
+                player.sendMessage(codec.encode(command, sharedPlayers, DtoCodecs.CARDS, drawnCards));
+                player.readyToStart = false;
+            }
+        }
+    }
+
+    /**
+     * Play the round every player has selected its cards for on the game of this room, the whole round is played
+     * before this returns
+     *
+     * @param players The players as sent to the clients when the round starts
+     */
+    private void playRound(@NotNull List<PlayerDto> players) {
+        if (game == null) {
+            MapHandler mapHandler = new HeadlessMapHandler(GameGraphics.MAP_FOLDER + map + GameGraphics.MAP_EXTENSION, false);
+            gameScheduler = new SimulationScheduler();
+            game = new RoboRally(mapHandler, new ServerPlayerHandler(gamePlayers, mapHandler), gameScheduler);
+        }
+        ((ServerPlayerHandler) game.getPlayerHandler()).setCards(players);
+        game.play(() -> {
+            game.round();
+            gameScheduler.runUntilIdle(MAX_ROUND_TASKS);
+        });
+    }
+
+    /**
+     * @return The game played by this room, or {@code null} if no round has been played yet
+     */
+    @Nullable
+    RoboRally getGame() {
+        return game;
+    }
+
+    /**
+     * Collects playerDtos from all connected players and creates a ConnectedPlayers message
+     *
+     * @return message with all connected players, disconnected players are sent as {@code null}. Only valid until
+     * the next message is encoded
+     */
+    @NotNull
+    private ByteBuffer getConnectedPlayers() {
+        List<PlayerDto> playerDtos = players.stream().map(connectedPlayer -> {
+            if (connectedPlayer.connected) {
+                return connectedPlayer.player;
+            }
+            return null;
+        }).collect(Collectors.toList());
+        return codec.encode(ClientAction.CONNECTED_PLAYERS, DtoCodecs.CONNECTED_PLAYERS, new ConnectedPlayersDto(playerDtos));
+    }
+
+    /**
+     * Stop the countdown and close the connection to every player in this room
+     */
+    void close() {
+        countdown.shutdown();
+        for (ConnectedPlayer player : players) {
+            player.close();
+        }
+    }
+}
@@ -1,375 +1,314 @@
 package no.uib.inf112.core.multiplayer;
 
-import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.Gdx;
 import no.uib.inf112.core.GameGraphics;
-import no.uib.inf112.core.map.cards.Card;
-import no.uib.inf112.core.multiplayer.dtos.*;
-import no.uib.inf112.core.player.IPlayer;
-import no.uib.inf112.core.player.PlayerHandler;
-import no.uib.inf112.core.util.ComparableTuple;
+import no.uib.inf112.core.multiplayer.dtos.DtoCodecs;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.DataInputStream;
-import java.io.EOFException;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.net.SocketException;
-import java.util.*;
-import java.util.stream.Collectors;
-
+import java.nio.ByteBuffer;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
+/**
+ * Host of multiplayer games. Every connection is served by one thread waiting on a selector, so a player slot does
+ * not cost a thread before someone connects. All game state is only touched by the selector thread, work from other
+ * threads is handed to it with {@link #execute(Runnable)}.
+ * <p>
+ * A server can host many games at once, each in its own {@link Room}. Clients start in the {@link #DEFAULT_ROOM} and
+ * can move to another room with {@link ServerAction#JOIN_ROOM} before their game has started. A room is created when
+ * the first client joins it and removed when everyone in it has left. Rooms start with the default map of the server,
+ * which the host of a room can change with {@link ServerAction#SET_MAP}.
+ */
 public class Server {
 
-    private List<ConnectedPlayer> players = new ArrayList<>();
-    private int hostId;
-    private ServerSocket servSock;
-    private static Timer timer = new Timer();
-    private static int seconds = 0;
-    private boolean startedRound;
-    private boolean countdownStarted = false;
+    /**
+     * The room every client starts in
+     */
+    public static final String DEFAULT_ROOM = "";
+
+    private static final Pattern MAP_NAME = Pattern.compile("[\\w\\- ]+");
 
-    public Server(int port, int numThreads) throws IOException {
-        servSock = new ServerSocket(port);
+    //only changed by the selector thread, concurrent so the number of rooms can be read by anyone
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    private final int maxPlayers;
+    private final String defaultMap;
+    private final Selector selector;
+    private final ServerSocketChannel servChannel;
+    private final Thread thread;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    //only used by the selector thread
+    private final MessageCodec codec = new MessageCodec();
+    private volatile boolean running = true;
 
-        // Create a series of threads and start them.
-        for (int i = 0; i < numThreads; i++) {
-            ConnectedPlayer player = new ConnectedPlayer(servSock, i);
-            players.add(player);
-            player.setDaemon(true);
-            player.start();
+    /**
+     * @param port       The port to listen on, {@code 0} to use any free port
+     * @param maxPlayers How many players that can be in each room at the same time
+     * @param defaultMap The name of the map new rooms are played on, see {@link #isMap(String)}
+     * @throws IOException              If not able to listen on the given port
+     * @throws IllegalArgumentException If the default map does not exist
+     */
+    public Server(int port, int maxPlayers, @NotNull String defaultMap) throws IOException {
+        if (!isMap(defaultMap)) {
+            throw new IllegalArgumentException("Unknown map '" + defaultMap + "'");
+        }
+        this.maxPlayers = maxPlayers;
+        this.defaultMap = defaultMap;
+        selector = Selector.open();
+        servChannel = ServerSocketChannel.open();
+        try {
+            servChannel.bind(new InetSocketAddress(port));
+            servChannel.configureBlocking(false);
+            servChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            servChannel.close();
+            selector.close();
+            throw e;
         }
+
+        thread = new Thread(this::run, "Server selector");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
-     * Starts a new game if the calling client is the host
-     *
-     * @param id id of the client sending the request
+     * @return The port this server listens on
      */
-    private void startGame(int id) {
-        if (hostId == id) {
-            Stack<ComparableTuple<String, Color>> colors = PlayerHandler.addColors();
-            List<PlayerDto> playerDtos = new ArrayList<>();
-            Iterator<ConnectedPlayer> iterator = players.iterator();
-            while (iterator.hasNext()) {
-                ConnectedPlayer player = iterator.next();
-                if (player.player.name != null) {
-                    player.player.color = colors.pop().value;
-                    playerDtos.add(player.player);
-                } else {
-                    try {
-                        player.interrupt();
-                        player.close();
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                    iterator.remove();
-                }
-            }
-            NewGameDto newGameDto = new NewGameDto(GameGraphics.mapFileName, playerDtos, hostId);
-            for (ConnectedPlayer player : players) {
-                if (player.player.name != null) {
-                    newGameDto.userId = player.player.id;
-                    String message = ClientAction.START_GAME + GameGraphics.gson.toJson(newGameDto);
-                    player.sendMessage(message);
-                }
-            }
-        }
+    public int getPort() {
+        return servChannel.socket().getLocalPort();
     }
 
     /**
-     * Close connections to all clients
+     * @return The name of the map new rooms are played on
      */
-    public void close() {
-        for (ConnectedPlayer player :
-                players) {
-            try {
-                player.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-        try {
-            servSock.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    @NotNull
+    String getDefaultMap() {
+        return defaultMap;
     }
 
     /**
-     * A Thread subclass to handle one client conversation.
+     * @param name The name of a map, without folder or extension
+     * @return If there is a map with the given name in {@link GameGraphics#MAP_FOLDER}. Names with anything but
+     * letters, digits, spaces, dashes and underscores are never maps, so clients can not point outside the folder
      */
-    class ConnectedPlayer extends Thread {
-        private ServerSocket handlerServSock;
-        private int threadNumber;
-        private boolean connected = false;
-        private boolean readyToStart = false;
-        private PlayerDto player = new PlayerDto();
-        private PrintWriter outToClient;
+    public static boolean isMap(@NotNull String name) {
+        return MAP_NAME.matcher(name).matches()
+                && Gdx.files.internal(GameGraphics.MAP_FOLDER + name + GameGraphics.MAP_EXTENSION).exists();
+    }
 
-        /**
-         * Construct a Handler.
-         *
-         * @param threadNumber this connected players thread identification number
-         */
-        ConnectedPlayer(@NotNull ServerSocket s, int threadNumber) {
-            handlerServSock = s;
-            this.threadNumber = threadNumber;
-            setName("Thread " + this.threadNumber);
-            player.id = threadNumber;
-            setDaemon(true);
-        }
+    /**
+     * @return The codec to encode messages to clients with, must only be used by the selector thread
+     */
+    @NotNull
+    MessageCodec getCodec() {
+        return codec;
+    }
 
-        /**
-         * Send a message to the client
-         *
-         * @param message message to send
-         */
-        private void sendMessage(@NotNull String message) {
-            if (connected && handlerServSock.isBound()) {
-                outToClient.print(message + "\r\n");
-                outToClient.flush();
-            }
-        }
+    /**
+     * Run a task on the selector thread
+     *
+     * @param runnable What to do
+     */
+    public void execute(@NotNull Runnable runnable) {
+        tasks.add(runnable);
+        selector.wakeup();
+    }
 
-        @Override
-        public void run() {
-            /* Wait for a connection. Synchronized on the ServerSocket
-             * while calling its accept() method.
-             */
-            connected = true;
-            while (connected) {
-                connected = false;
-                try {
-                    Socket clientSocket;
-                    // Wait here for the next connection.
-                    synchronized (handlerServSock) {
-                        clientSocket = handlerServSock.accept();
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        e.printStackTrace();
                     }
-                    connected = true;
-                    DataInputStream inFromClient = new DataInputStream(clientSocket.getInputStream());
-                    outToClient = new PrintWriter(clientSocket.getOutputStream(), true);
-                    String line;
-                    while ((line = inFromClient.readUTF()) != null) {
-                        handleInput(line);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
                     }
-                } catch (EOFException e) {
-                    connected = false;
+                    ConnectedPlayer player = (ConnectedPlayer) key.attachment();
                     try {
-                        handlerServSock.close();
-                    } catch (IOException e1) {
-                        e1.printStackTrace();
+                        if (key.isReadable()) {
+                            player.read((type, payload) -> handleInput(player, type, payload));
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            player.flush();
+                        }
+                    } catch (IOException e) {
+                        player.close();
+                    } catch (Exception e) {
+                        //do not let one client stop the server, but do not trust the state of its messages either
+                        e.printStackTrace();
+                        player.close();
                     }
-                } catch (SocketException ex) {
-                    //Socket closed by application
-                    return;
-                } catch (IOException ex) {
-                    ex.printStackTrace();
-                }
-            }
-        }
-
-        /**
-         * Handle input from the client
-         *
-         * @param line the input
-         */
-        private void handleInput(String line) {
-            ServerAction command = ServerAction.fromCommandString(line.substring(0, line.indexOf(":")));
-            String data = line.substring(line.indexOf(":") + 1);
-            switch (command) {
-                case GET_NAME:
-                    sendMessage(ClientAction.THREAD_NAME + getName());
-                    break;
-                case SET_DISPLAY_NAME:
-                    player.name = data;
-                    sendMessage(ClientAction.NAME + player.name + "for" + getName());
-                    sendMessageToAll(ClientAction.CONNECTED_PLAYERS + getConnectedPlayers());
-                    break;
-                case GET_CONNECTED_PLAYERS:
-                    sendMessage(ClientAction.CONNECTED_PLAYERS + getConnectedPlayers());
-                    break;
-                case START_GAME:
-                    startGame(player.id);
-                    break;
-                case SEND_SELECTED_CARDS:
-                    setCards(GameGraphics.gson.fromJson(data, SelectedCardsDto.class));
-                    readyToStart = true;
-                    if (shouldStartCountdown()) {
-                        giveDisconnectedPlayersRandomCard();
-                        startCountdown();
-                        countdownStarted = true;
+                    if (!player.connected) {
+                        //the room of a player that has left might now be empty
+                        removeAbandonedRooms();
                     }
-                    checkAllPlayersReady();
-                    //user waits for rest of players
-                    break;
-                case SET_HOST_ID:
-                    hostId = player.id;
-                    break;
-                case FINISHED_SETUP:
-                    startRound(ClientAction.GIVE_CARDS);
-                    break;
-                case PARTY_MODE:
-                    sendMessageToAll(ClientAction.PARTY_MODE + "");
-                    break;
-                default:
-                    System.out.println("Dit not understand command received from client " + threadNumber + ":" + line);
-                    sendMessage("error: Did not understand message");
-                    break;
-
+                }
+            } catch (ClosedSelectorException e) {
+                return;
+            } catch (IOException e) {
+                e.printStackTrace();
             }
         }
+    }
 
-        /**
-         * Set selected cards for this given client
-         *
-         * @param data SelectedCards dto containing data about the selected cards and power down status for this client
-         */
-        private void setCards(@NotNull SelectedCardsDto data) {
-            player.isPoweredDown = data.poweredDown;
-            player.cards = data.cards;
+    /**
+     * Accept a new connection if there is a free player slot in the default room
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = servChannel.accept();
+        if (channel == null) {
+            return;
         }
-
-        /**
-         * Close the connection to this client
-         *
-         * @throws IOException if not able to close the streams and socket
-         */
-        private void close() throws IOException {
-            if (outToClient != null) {
-                outToClient.close();
-            }
-            handlerServSock.close();
-            connected = false;
-            interrupt();
+        ConnectedPlayer player = new ConnectedPlayer(channel);
+        if (!getRoom(DEFAULT_ROOM).join(player)) {
+            channel.close();
+            removeAbandonedRooms();
+            return;
         }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        player.setKey(channel.register(selector, SelectionKey.OP_READ, player));
+        removeAbandonedRooms();
     }
 
     /**
-     * Checks to see if the countdown should start,
-     *
-     * @return true if we are only waiting for one connected player
+     * @return The room with the given name, a new room is created if there is none
      */
-    private boolean shouldStartCountdown() {
-        int count = 0;
-        for (ConnectedPlayer player : players) {
-            if (player.connected && !player.readyToStart) {
-                if (++count > 1) {
-                    return false;
-                }
-            }
-        }
-        return count == 1 && !countdownStarted;
-
+    @NotNull
+    private Room getRoom(@NotNull String name) {
+        return rooms.computeIfAbsent(name, roomName -> new Room(this, roomName, maxPlayers));
     }
 
     /**
-     * Send a message to all clients
-     *
-     * @param message message to send
+     * Remove rooms everyone has left
      */
-    private void sendMessageToAll(@NotNull String message) {
-        for (ConnectedPlayer player : players) {
-            if (player.player.name != null) {
-                player.sendMessage(message);
+    private void removeAbandonedRooms() {
+        Iterator<Room> iterator = rooms.values().iterator();
+        while (iterator.hasNext()) {
+            Room room = iterator.next();
+            if (room.isAbandoned()) {
+                room.close();
+                iterator.remove();
             }
         }
     }
 
     /**
-     * Helper function giving disconnected players random cards
+     * @return The room with the given name, or {@code null} if there is none. Must only be used by the selector thread
      */
-    private void giveDisconnectedPlayersRandomCard() {
-        for (ConnectedPlayer player : players) {
-            if (player.player.name != null && !player.connected) {
-                player.player.cards = DtoMapper.drawRandomCards(player.player.drawnCards);
-            }
-        }
+    @Nullable
+    Room findRoom(@NotNull String name) {
+        return rooms.get(name);
     }
 
     /**
-     * Starts the countdown
+     * @return How many rooms there are on this server
      */
-    private void startCountdown() {
-        seconds = 0;
-        TimerTask task = new TimerTask() {
-            private final int MAX_SECONDS = 31;
-
-            @Override
-            public void run() {
-                if (!startedRound && seconds < MAX_SECONDS) {
-                    sendMessageToAll(ClientAction.COUNT_DOWN + GameGraphics.gson.toJson(seconds, Integer.class));
-                    seconds++;
-                } else if (!startedRound) {
-                    for (ConnectedPlayer player : players) {
-                        if (player.connected && !player.readyToStart && player.player.drawnCards != null) {
-                            player.player.cards = DtoMapper.drawRandomCards(player.player.drawnCards);
-                        }
-                    }
-                    countdownStarted = false;
-                    startRound(ClientAction.START_ROUND);
-                    cancel();
-                } else {
-                    countdownStarted = false;
-                    cancel();
-                }
-            }
-        };
-        timer.schedule(task, 0, 1000);
+    public int getRoomCount() {
+        return rooms.size();
     }
 
     /**
-     * Checks to see if all players have selected their cards
+     * Handle input from a client, everything but joining a room is handled by the room of the client
+     *
+     * @param player  The client that sent the message
+     * @param type    The id of the action the client wants
+     * @param payload The rest of the message
      */
-    private void checkAllPlayersReady() {
-        for (ConnectedPlayer player : players) {
-            if (player.connected && !player.readyToStart) {
-                startedRound = false;
-                return;
-            }
+    private void handleInput(@NotNull ConnectedPlayer player, int type, @NotNull ByteBuffer payload) throws IOException {
+        ServerAction command = ServerAction.fromId(type);
+        if (command == null || player.room == null) {
+            System.out.println("Dit not understand command received from client " + player.player.id + ": " + type);
+            sendError(player, "Did not understand message");
+        } else if (command == ServerAction.JOIN_ROOM) {
+            joinRoom(player, MessageCodec.decode(payload, DtoCodecs.STRING));
+        } else {
+            player.room.handleInput(player, command, payload);
         }
-        startRound(ClientAction.START_ROUND);
     }
 
     /**
-     * Starts the given round
+     * Tell a client that something went wrong
      *
-     * @param command command to send with the dto either startround or GIVE_CARDS
+     * @param player  The client to tell
+     * @param message What went wrong
      */
-    private void startRound(@NotNull ClientAction command) {
-        startedRound = true;
-        List<PlayerDto> players = new ArrayList<>();
-        for (ConnectedPlayer player : this.players) {
-            if (player.player.name != null) {
-                players.add(player.player);
-            }
+    void sendError(@NotNull ConnectedPlayer player, @NotNull String message) {
+        player.sendMessage(codec.encode(ClientAction.ERROR, DtoCodecs.STRING, message));
+    }
+
+    /**
+     * Move a client to another room, if neither the game it is in nor the game it wants to join has started
+     *
+     * @param player The client moving
+     * @param name   The name of the room to join
+     */
+    private void joinRoom(@NotNull ConnectedPlayer player, @NotNull String name) {
+        Room current = player.room;
+        if (current == null || current.getName().equals(name)) {
+            return;
         }
-        GameGraphics.getRoboRally().getDeck().shuffle();
-        for (ConnectedPlayer player : this.players) {
-            if (player.player.name != null) {
-                List<Card> cards = Arrays.asList(GameGraphics.getRoboRally().getDeck().draw(IPlayer.MAX_DRAW_CARDS));
-                player.player.drawnCards = DtoMapper.mapToDto(cards);
-                player.sendMessage(command + GameGraphics.gson.toJson(new StartRoundDto(players, cards), StartRoundDto.class));
-                player.readyToStart = false;
-            }
+        boolean joined = !current.isStarted() && getRoom(name).join(player);
+        if (joined) {
+            current.leave(player);
+        }
+        //the client can trust the rooms to be cleaned up when it is answered
+        removeAbandonedRooms();
+        if (joined) {
+            player.sendMessage(codec.encode(ClientAction.THREAD_NAME, DtoCodecs.STRING, player.getName()));
+        } else {
+            sendError(player, "Could not join room '" + name + "'");
         }
     }
 
     /**
-     * Collects playerDtos from all connected players and creates a ConnectedPlayers dto
-     *
-     * @return json object of all connected players
+     * Close connections to all clients
      */
-    @NotNull
-    private String getConnectedPlayers() {
-        List<PlayerDto> playerDtos = players.stream().map(connectedPlayer -> {
-            if (connectedPlayer.connected) {
-                return connectedPlayer.player;
+    public void close() {
+        execute(() -> {
+            running = false;
+            for (Room room : rooms.values()) {
+                room.close();
             }
-            return null;
-        }).collect(Collectors.toList());
-        return GameGraphics.gson.toJson(new ConnectedPlayersDto(playerDtos));
+            rooms.clear();
+            try {
+                servChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        try {
+            //make sure the port is free when this returns
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
-
 }
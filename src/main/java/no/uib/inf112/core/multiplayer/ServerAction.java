@@ -2,10 +2,10 @@ package no.uib.inf112.core.multiplayer;
 
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-
 /**
  * Actions a client can send to the server
+ * <p>
+ * The position of an action is its id in {@link MessageCodec}, so new actions must be added at the end
  */
 public enum ServerAction {
 
@@ -16,10 +16,12 @@ public enum ServerAction {
     SEND_SELECTED_CARDS("sendSelectedCards"),
     SET_HOST_ID("setHostId"),
     FINISHED_SETUP("finishedSetup"),
-    PARTY_MODE("partyMode");
+    PARTY_MODE("partyMode"),
+    JOIN_ROOM("joinRoom"),
+    SET_MAP("setMap");
 
     public final String command;
-    private static HashMap<String, ServerAction> ServerActionMap = new HashMap<>();
+    private static final ServerAction[] VALUES = values();
 
     ServerAction(String command) {
         this.command = command;
@@ -28,22 +30,15 @@ public enum ServerAction {
 
     @Override
     public String toString() {
-        return command + ":";
-    }
-
-
-    static {
-        for (ServerAction value : values()) {
-            ServerActionMap.put(value.command, value);
-        }
+        return command;
     }
 
     /**
-     * @param command The command of the wanted ServerAction
-     * @return The ServerAction with the given command. Will be {@code null} if the given id is not known
+     * @param id The id of the wanted ServerAction, as sent by {@link MessageCodec}
+     * @return The ServerAction with the given id. Will be {@code null} if the given id is not known
      */
     @Nullable
-    public static ServerAction fromCommandString(String command) {
-        return ServerActionMap.get(command);
+    public static ServerAction fromId(int id) {
+        return id >= 0 && id < VALUES.length ? VALUES[id] : null;
     }
 }
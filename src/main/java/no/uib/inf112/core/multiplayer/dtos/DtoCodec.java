@@ -0,0 +1,32 @@
+package no.uib.inf112.core.multiplayer.dtos;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes and reads one kind of value to and from a {@link ByteBuffer} without reflection. The codecs of the dtos are
+ * found in {@link DtoCodecs}.
+ *
+ * @param <T> The type of value
+ */
+public interface DtoCodec<T> {
+
+    /**
+     * @param value The value to write
+     * @return How many bytes {@link #write(ByteBuffer, Object)} will use for the given value
+     */
+    int size(T value);
+
+    /**
+     * @param out   Where to write, must have at least {@link #size(Object)} bytes remaining
+     * @param value The value to write
+     */
+    void write(ByteBuffer out, T value);
+
+    /**
+     * @param in Where to read from
+     * @return The value read
+     * @throws java.nio.BufferUnderflowException if the value is not whole
+     * @throws IllegalArgumentException          if the bytes is not a valid value
+     */
+    T read(ByteBuffer in);
+}
@@ -0,0 +1,375 @@
+package no.uib.inf112.core.multiplayer.dtos;
+
+import com.badlogic.gdx.graphics.Color;
+import no.uib.inf112.core.map.cards.Movement;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The codecs of the dtos sent between client and server. Every field is written in a fixed order, so nothing but the
+ * values themselves is sent.
+ * <p>
+ * Cards are three bytes, the movement and the priority. A player starts with a byte of flags telling which of its
+ * fields are sent, so players that have not picked a name or drawn any cards yet only cost what they use.
+ */
+public class DtoCodecs {
+
+    private static final int PRESENT = 1;
+    private static final int HAS_NAME = 1 << 1;
+    private static final int HAS_COLOR = 1 << 2;
+    private static final int HAS_CARDS = 1 << 3;
+    private static final int HAS_DRAWN_CARDS = 1 << 4;
+    private static final int POWERED_DOWN = 1 << 5;
+
+    private static final Movement[] MOVEMENTS = Movement.values();
+
+    private static final int MAX_CARDS = 0xFFFF;
+    private static final int MAX_PLAYERS = 0xFF;
+
+    /**
+     * A number from 0 to 255
+     */
+    public static final DtoCodec<Integer> UNSIGNED_BYTE = new DtoCodec<Integer>() {
+        @Override
+        public int size(Integer value) {
+            return Byte.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer out, Integer value) {
+            out.put(value.byteValue());
+        }
+
+        @Override
+        public Integer read(ByteBuffer in) {
+            return in.get() & 0xFF;
+        }
+    };
+
+    /**
+     * UTF-8 with the number of bytes in front, the characters are encoded straight into the buffer
+     */
+    public static final DtoCodec<String> STRING = new DtoCodec<String>() {
+        @Override
+        public int size(String value) {
+            return Integer.BYTES + utf8Length(value);
+        }
+
+        @Override
+        public void write(ByteBuffer out, String value) {
+            out.putInt(utf8Length(value));
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    out.put((byte) c);
+                } else if (c < 0x800) {
+                    out.put((byte) (0xC0 | c >> 6));
+                    out.put((byte) (0x80 | c & 0x3F));
+                } else if (isSurrogatePair(value, i)) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    out.put((byte) (0xF0 | codePoint >> 18));
+                    out.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                    out.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                    out.put((byte) (0x80 | codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    //same as String#getBytes
+                    out.put((byte) '?');
+                } else {
+                    out.put((byte) (0xE0 | c >> 12));
+                    out.put((byte) (0x80 | c >> 6 & 0x3F));
+                    out.put((byte) (0x80 | c & 0x3F));
+                }
+            }
+        }
+
+        @Override
+        public String read(ByteBuffer in) {
+            int length = in.getInt();
+            if (length < 0 || length > in.remaining()) {
+                throw new IllegalArgumentException("Invalid string length " + length);
+            }
+            if (!in.hasArray()) {
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return value;
+        }
+    };
+
+    /**
+     * A list of at most 65535 cards
+     */
+    public static final DtoCodec<List<CardDto>> CARDS = new DtoCodec<List<CardDto>>() {
+        @Override
+        public int size(List<CardDto> value) {
+            checkListSize(value.size(), MAX_CARDS);
+            return Short.BYTES + value.size() * (Byte.BYTES + Short.BYTES);
+        }
+
+        @Override
+        public void write(ByteBuffer out, List<CardDto> value) {
+            checkListSize(value.size(), MAX_CARDS);
+            out.putShort((short) value.size());
+            //indexed so no iterator is made
+            for (int i = 0; i < value.size(); i++) {
+                CardDto card = value.get(i);
+                out.put((byte) card.movement.ordinal());
+                out.putShort((short) card.priority);
+            }
+        }
+
+        @Override
+        public List<CardDto> read(ByteBuffer in) {
+            int size = in.getShort() & 0xFFFF;
+            List<CardDto> cards = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                int movement = in.get() & 0xFF;
+                if (movement >= MOVEMENTS.length) {
+                    throw new IllegalArgumentException("Unknown movement " + movement);
+                }
+                cards.add(new CardDto(MOVEMENTS[movement], in.getShort() & 0xFFFF));
+            }
+            return cards;
+        }
+    };
+
+    /**
+     * A single player with all its fields, {@code null} is written as a single byte
+     */
+    public static final DtoCodec<PlayerDto> PLAYER = new PlayerCodec(true);
+
+    /**
+     * A single player without its drawn cards, which only the player itself is to see
+     */
+    public static final DtoCodec<PlayerDto> PUBLIC_PLAYER = new PlayerCodec(false);
+
+    /**
+     * A list of at most 255 players, the players might be {@code null}. Lists of players are sent to everyone, so the
+     * players are written with {@link #PUBLIC_PLAYER}
+     */
+    public static final DtoCodec<List<PlayerDto>> PLAYERS = new DtoCodec<List<PlayerDto>>() {
+        @Override
+        public int size(List<PlayerDto> value) {
+            checkListSize(value.size(), MAX_PLAYERS);
+            int size = Byte.BYTES;
+            for (int i = 0; i < value.size(); i++) {
+                size += PUBLIC_PLAYER.size(value.get(i));
+            }
+            return size;
+        }
+
+        @Override
+        public void write(ByteBuffer out, List<PlayerDto> value) {
+            checkListSize(value.size(), MAX_PLAYERS);
+            out.put((byte) value.size());
+            for (int i = 0; i < value.size(); i++) {
+                PUBLIC_PLAYER.write(out, value.get(i));
+            }
+        }
+
+        @Override
+        public List<PlayerDto> read(ByteBuffer in) {
+            int size = in.get() & 0xFF;
+            List<PlayerDto> players = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                players.add(PUBLIC_PLAYER.read(in));
+            }
+            return players;
+        }
+    };
+
+    public static final DtoCodec<ConnectedPlayersDto> CONNECTED_PLAYERS = new DtoCodec<ConnectedPlayersDto>() {
+        @Override
+        public int size(ConnectedPlayersDto value) {
+            return PLAYERS.size(value.players);
+        }
+
+        @Override
+        public void write(ByteBuffer out, ConnectedPlayersDto value) {
+            PLAYERS.write(out, value.players);
+        }
+
+        @Override
+        public ConnectedPlayersDto read(ByteBuffer in) {
+            return new ConnectedPlayersDto(PLAYERS.read(in));
+        }
+    };
+
+    public static final DtoCodec<StartRoundDto> START_ROUND = new DtoCodec<StartRoundDto>() {
+        @Override
+        public int size(StartRoundDto value) {
+            return PLAYERS.size(value.players) + CARDS.size(value.drawnCards);
+        }
+
+        @Override
+        public void write(ByteBuffer out, StartRoundDto value) {
+            PLAYERS.write(out, value.players);
+            CARDS.write(out, value.drawnCards);
+        }
+
+        @Override
+        public StartRoundDto read(ByteBuffer in) {
+            List<PlayerDto> players = PLAYERS.read(in);
+            return new StartRoundDto(players, DtoMapper.mapFromDto(CARDS.read(in)));
+        }
+    };
+
+    public static final DtoCodec<NewGameDto> NEW_GAME = new DtoCodec<NewGameDto>() {
+        @Override
+        public int size(NewGameDto value) {
+            return STRING.size(value.map) + PLAYERS.size(value.players) + Byte.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer out, NewGameDto value) {
+            STRING.write(out, value.map);
+            PLAYERS.write(out, value.players);
+            out.put((byte) value.userId);
+        }
+
+        @Override
+        public NewGameDto read(ByteBuffer in) {
+            String map = STRING.read(in);
+            List<PlayerDto> players = PLAYERS.read(in);
+            return new NewGameDto(map, players, in.get() & 0xFF);
+        }
+    };
+
+    public static final DtoCodec<SelectedCardsDto> SELECTED_CARDS = new DtoCodec<SelectedCardsDto>() {
+        @Override
+        public int size(SelectedCardsDto value) {
+            return Byte.BYTES + CARDS.size(value.cards);
+        }
+
+        @Override
+        public void write(ByteBuffer out, SelectedCardsDto value) {
+            out.put((byte) (value.poweredDown ? 1 : 0));
+            CARDS.write(out, value.cards);
+        }
+
+        @Override
+        public SelectedCardsDto read(ByteBuffer in) {
+            boolean poweredDown = in.get() != 0;
+            return new SelectedCardsDto(poweredDown, DtoMapper.mapFromDto(CARDS.read(in)));
+        }
+    };
+
+    /**
+     * Writes and reads a player, with or without its drawn cards. Whether the drawn cards are there is told by the flags
+     * of the player, so a player written without them is read by either codec
+     */
+    private static class PlayerCodec implements DtoCodec<PlayerDto> {
+
+        private final boolean withDrawnCards;
+
+        private PlayerCodec(boolean withDrawnCards) {
+            this.withDrawnCards = withDrawnCards;
+        }
+
+        @Override
+        public int size(PlayerDto value) {
+            if (value == null) {
+                return Byte.BYTES;
+            }
+            int size = 2 * Byte.BYTES;
+            size += value.name != null ? STRING.size(value.name) : 0;
+            size += value.color != null ? Integer.BYTES : 0;
+            size += value.cards != null ? CARDS.size(value.cards) : 0;
+            size += withDrawnCards && value.drawnCards != null ? CARDS.size(value.drawnCards) : 0;
+            return size;
+        }
+
+        @Override
+        public void write(ByteBuffer out, PlayerDto value) {
+            if (value == null) {
+                out.put((byte) 0);
+                return;
+            }
+            int flags = PRESENT;
+            flags |= value.name != null ? HAS_NAME : 0;
+            flags |= value.color != null ? HAS_COLOR : 0;
+            flags |= value.cards != null ? HAS_CARDS : 0;
+            flags |= withDrawnCards && value.drawnCards != null ? HAS_DRAWN_CARDS : 0;
+            flags |= value.isPoweredDown ? POWERED_DOWN : 0;
+            out.put((byte) flags);
+            out.put((byte) value.id);
+            if (value.name != null) {
+                STRING.write(out, value.name);
+            }
+            if (value.color != null) {
+                out.putInt(Color.rgba8888(value.color));
+            }
+            if (value.cards != null) {
+                CARDS.write(out, value.cards);
+            }
+            if ((flags & HAS_DRAWN_CARDS) != 0) {
+                CARDS.write(out, value.drawnCards);
+            }
+        }
+
+        @Override
+        public PlayerDto read(ByteBuffer in) {
+            int flags = in.get() & 0xFF;
+            if ((flags & PRESENT) == 0) {
+                return null;
+            }
+            PlayerDto player = new PlayerDto();
+            player.id = in.get() & 0xFF;
+            if ((flags & HAS_NAME) != 0) {
+                player.name = STRING.read(in);
+            }
+            if ((flags & HAS_COLOR) != 0) {
+                player.color = new Color(in.getInt());
+            }
+            if ((flags & HAS_CARDS) != 0) {
+                player.cards = CARDS.read(in);
+            }
+            if ((flags & HAS_DRAWN_CARDS) != 0) {
+                player.drawnCards = CARDS.read(in);
+            }
+            player.isPoweredDown = (flags & POWERED_DOWN) != 0;
+            return player;
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException If a list of the given size cannot be written
+     */
+    private static void checkListSize(int size, int max) {
+        if (size > max) {
+            throw new IllegalArgumentException("Cannot write a list of " + size + " elements, at most " + max + " can be written");
+        }
+    }
+
+    private static boolean isSurrogatePair(String value, int index) {
+        return Character.isHighSurrogate(value.charAt(index))
+                && index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1));
+    }
+
+    /**
+     * @return How many bytes the given string is in UTF-8
+     */
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80 || Character.isSurrogate(c) && !isSurrogatePair(value, i)) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (isSurrogatePair(value, i)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
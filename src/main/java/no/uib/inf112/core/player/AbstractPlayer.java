@@ -2,6 +2,7 @@ package no.uib.inf112.core.player;
 
 import com.badlogic.gdx.graphics.Color;
 import no.uib.inf112.core.GameGraphics;
+import no.uib.inf112.core.RoboRally;
 import no.uib.inf112.core.map.MapHandler;
 import no.uib.inf112.core.map.tile.api.Tile;
 import no.uib.inf112.core.ui.Sound;
@@ -72,6 +73,8 @@ public abstract class AbstractPlayer extends Robot implements IPlayer {
         health = MAX_HEALTH;
         map.update(0);
         teleport(getValidBackupSpawnpoint(map));
+        //make sure the next task finds this player at the backup
+        RoboRally.requestMapUpdate(map);
     }
 
     @Override
@@ -3,9 +3,11 @@ package no.uib.inf112.core.player;
 import no.uib.inf112.core.map.tile.api.*;
 import no.uib.inf112.core.util.Direction;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collections;
 import java.util.Set;
+import java.util.function.Consumer;
 
 
 /**
@@ -32,6 +34,12 @@ public interface Entity extends HealableTile, MovableTile, ColorableTile, Collid
      */
     void update(boolean update);
 
+    /**
+     * @param listener Called with this entity every time its update state goes from false to true, {@code null} to
+     *                 remove the current listener
+     */
+    void setUpdateListener(@Nullable Consumer<Entity> listener);
+
     @Override
     default boolean willCollide(Tile tile, Direction dir) {
         //entities cannot be walked on
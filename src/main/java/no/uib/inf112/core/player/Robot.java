@@ -14,14 +14,27 @@ import no.uib.inf112.core.util.ComparableTuple;
 import no.uib.inf112.core.util.Direction;
 import no.uib.inf112.core.util.Vector2Int;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
 
 public abstract class Robot extends AbstractRequirementTile implements Entity {
 
     private boolean stopMoving = false;
     private Direction direction;
     private boolean update;
+    private Consumer<Entity> updateListener;
+
+    //Buffers to look up tiles with without allocating, one for each nested lookup
+    private Tile[][] tileBuffers = new Tile[2][];
+    private int tileBufferDepth;
+    //The robots found in front of this robot when pushing, reused between pushes
+    private Robot[] pushChain = new Robot[8];
     private ComparableTuple<String, Color> color;
     private Vector2Int pos;
+    //The rest of the current movement, rescheduled for every step
+    private StepTask stepTask = new StepTask();
 
     /**
      * @param pos       The position the player starts at
@@ -133,45 +146,104 @@ public abstract class Robot extends AbstractRequirementTile implements Entity {
             update();
             Sound.ROBOT_MOVING.play();
             if (dx - sdx != 0 || dy - sdy != 0) {
-                RoboRally.scheduleSync(() -> move(dx - sdx, dy - sdy, maxTime - maxTimePerMovement), maxTimePerMovement);
+                if (stepTask.scheduled) {
+                    //the steps of an earlier movement are still waiting, let them finish as they were
+                    stepTask = new StepTask();
+                }
+                stepTask.dx = dx - sdx;
+                stepTask.dy = dy - sdy;
+                stepTask.maxTime = maxTime - maxTimePerMovement;
+                stepTask.scheduled = true;
+                RoboRally.scheduleSync(stepTask, maxTimePerMovement);
             }
         }
     }
 
 
-    private boolean push(MovableTile mTile, Direction dir) {
-        if (mTile.move(dir)) {
-            ((Entity) mTile).update();
-            GameGraphics.getRoboRally().getCurrentMap().update(0);
-            move(dir);
+    /**
+     * Push every robot in the line in front of this robot one step. The whole line is checked before anything is moved,
+     * so either every robot in the line is pushed or none are. The map is updated once when the line has moved.
+     *
+     * @param x The x-coordinate of the first robot to push
+     * @param y The y-coordinate of the first robot to push
+     * @return If the robots were pushed
+     */
+    private boolean push(@NotNull MapHandler map, @NotNull Direction dir, int x, int y) {
+        int length = 0;
+        try {
+            while (true) {
+                Tile tile = map.getTile(MapHandler.ENTITY_LAYER_NAME, x, y);
+                if (tile == null || equals(tile)) {
+                    break;
+                }
+                if (!tile.hasAttribute(Attribute.PUSHABLE)) {
+                    return false;
+                }
+                if (!(tile instanceof Robot)) {
+                    throw new IllegalStateException("Only robots can be pushed, found " + tile);
+                }
+                if (length == pushChain.length) {
+                    pushChain = Arrays.copyOf(pushChain, length * 2);
+                }
+                pushChain[length++] = (Robot) tile;
+
+                if (!map.canLeave(x, y, dir)) {
+                    return false;
+                }
+                x += dir.getDx();
+                y += dir.getDy();
+                if (map.isOutsideBoard(x, y)) {
+                    //the last robot is pushed off the map
+                    break;
+                }
+                if (!map.canEnter(x, y, dir)) {
+                    return false;
+                }
+            }
+
+            //move the furthest robot first so every robot moves onto an empty cell
+            for (int i = length - 1; i >= 0; i--) {
+                pushChain[i].pushed(map, dir);
+            }
+            map.update(0);
             return true;
+        } finally {
+            Arrays.fill(pushChain, 0, length, null);
         }
-        return false;
     }
 
-    @Override
-    public boolean move(@NotNull Direction dir) {
-        int dx = dir.getDx();
-        int dy = dir.getDy();
-
-        if (willCollide(this, 0, 0, dir)) {
-            return false;
+    /**
+     * Move one step without checking for collisions, the pusher has already done so
+     */
+    private void pushed(@NotNull MapHandler map, @NotNull Direction dir) {
+        int nextX = pos.x + dir.getDx();
+        int nextY = pos.y + dir.getDy();
+        if (map.isOutsideBoard(nextX, nextY)) {
+            fall();
+        } else {
+            step(map, nextX, nextY);
         }
+    }
 
-        // Robot walks out of map
-        if (GameGraphics.getRoboRally().getCurrentMap().isOutsideBoard(pos.x + dx, pos.y + dy)) {
-            kill();
-            update();
-            Sound.ROBOT_FALLING.play();
-            stopMoving();
-            return true;
-        }
+    private void fall() {
+        kill();
+        update();
+        Sound.ROBOT_FALLING.play();
+        stopMoving();
+    }
 
-        if (!willCollide(this, dx, dy, dir)) {
-            pos.x += dx;
-            pos.y += dy;
-            update();
-            for (Tile tile : GameGraphics.getRoboRally().getCurrentMap().getAllTiles(pos.x, pos.y)) {
+    /**
+     * Move onto the given position and let the tiles there act on this robot
+     */
+    private void step(@NotNull MapHandler map, int x, int y) {
+        pos.x = x;
+        pos.y = y;
+        update();
+        Tile[] buffer = borrowTileBuffer();
+        try {
+            int found = map.getAllTiles(x, y, buffer);
+            for (int i = 0; i < found; i++) {
+                Tile tile = buffer[i];
                 if (tile.hasAttribute(Attribute.ACTIVE_ONLY_ON_STEP)) {
                     ActionTile cTile = (ActionTile) tile;
                     if (cTile.canDoAction(this)) {
@@ -180,41 +252,62 @@ public abstract class Robot extends AbstractRequirementTile implements Entity {
                     }
                 }
             }
-            return true;
-        } else {
-            MovableTile toBePushed = null;
-            for (Tile tile : GameGraphics.getRoboRally().getCurrentMap().getAllTiles(pos.x + dx, pos.y + dy)) {
-                if (tile.hasAttribute(Attribute.PUSHABLE)) {
-                    if (toBePushed == null) {
-                        toBePushed = (MovableTile) tile;
-                    } else {
-                        throw new IllegalStateException("Expected one pushable on a position, found two");
-                    }
-                } else if (tile.hasSuperClass(CollidableTile.class)) {
-                    CollidableTile collidableTile = (CollidableTile) tile;
-                    if (collidableTile.willCollide(this, dir)) {
-                        return false;
-                    }
-                }
-            }
-            return toBePushed != null && push(toBePushed, dir);
+        } finally {
+            releaseTileBuffer(buffer);
         }
     }
 
+    @Override
+    public boolean move(@NotNull Direction dir) {
+        MapHandler map = GameGraphics.getRoboRally().getCurrentMap();
+        int nextX = pos.x + dir.getDx();
+        int nextY = pos.y + dir.getDy();
 
-    private boolean willCollide(MovableTile mTile, int dx, int dy, Direction dir) {
-        int x = mTile.getX() + dx;
-        int y = mTile.getY() + dy;
+        if (!map.canLeave(pos.x, pos.y, dir)) {
+            return false;
+        }
 
-        for (Tile tile : GameGraphics.getRoboRally().getCurrentMap().getAllTiles(x, y)) {
-            if (tile.hasSuperClass(CollidableTile.class) && !equals(tile)) {
-                CollidableTile cTile = (CollidableTile) tile;
-                if (cTile.willCollide(this, dir)) {
-                    return true;
-                }
-            }
+        // Robot walks out of map
+        if (map.isOutsideBoard(nextX, nextY)) {
+            fall();
+            return true;
+        }
+
+        if (!map.canEnter(nextX, nextY, dir)) {
+            return false;
         }
-        return false;
+
+        Tile onNext = map.getTile(MapHandler.ENTITY_LAYER_NAME, nextX, nextY);
+        if (onNext != null && !equals(onNext) && !push(map, dir, nextX, nextY)) {
+            return false;
+        }
+        step(map, nextX, nextY);
+        return true;
+    }
+
+    /**
+     * Tiles might act on this robot while we look through the buffer, such as moving it, so every nested lookup needs
+     * its own buffer. Must be given back with {@link #releaseTileBuffer(Tile[])} when done
+     *
+     * @return A buffer large enough to hold every tile of a position
+     */
+    private Tile[] borrowTileBuffer() {
+        if (tileBufferDepth == tileBuffers.length) {
+            tileBuffers = Arrays.copyOf(tileBuffers, tileBuffers.length * 2);
+        }
+        Tile[] buffer = tileBuffers[tileBufferDepth];
+        if (buffer == null) {
+            buffer = new Tile[MapHandler.MAX_TILES_PER_POSITION];
+            tileBuffers[tileBufferDepth] = buffer;
+        }
+        tileBufferDepth++;
+        return buffer;
+    }
+
+    private void releaseTileBuffer(Tile[] buffer) {
+        //do not keep tiles alive longer than needed
+        Arrays.fill(buffer, null);
+        tileBufferDepth--;
     }
 
     @Override
@@ -234,7 +327,16 @@ public abstract class Robot extends AbstractRequirementTile implements Entity {
 
     @Override
     public void update(boolean update) {
+        boolean changed = update && !this.update;
         this.update = update;
+        if (changed && updateListener != null) {
+            updateListener.accept(this);
+        }
+    }
+
+    @Override
+    public void setUpdateListener(@Nullable Consumer<Entity> listener) {
+        updateListener = listener;
     }
 
     @NotNull
@@ -287,4 +389,21 @@ public abstract class Robot extends AbstractRequirementTile implements Entity {
     public void stopMoving() {
         stopMoving = true;
     }
+
+    /**
+     * The next step of a movement, so moving does not create a new task for every step
+     */
+    private class StepTask implements Runnable {
+
+        private int dx;
+        private int dy;
+        private int maxTime;
+        private boolean scheduled;
+
+        @Override
+        public void run() {
+            scheduled = false;
+            move(dx, dy, maxTime);
+        }
+    }
 }
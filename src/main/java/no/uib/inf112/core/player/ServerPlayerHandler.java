@@ -0,0 +1,149 @@
+package no.uib.inf112.core.player;
+
+import com.badlogic.gdx.graphics.Color;
+import no.uib.inf112.core.map.MapHandler;
+import no.uib.inf112.core.map.tile.tiles.SpawnTile;
+import no.uib.inf112.core.multiplayer.dtos.PlayerDto;
+import no.uib.inf112.core.util.ComparableTuple;
+import no.uib.inf112.core.util.Direction;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * The players of a game played by the server. Every player is an {@link OnlinePlayer} playing the cards its client
+ * selected, placed on the map the same way as by {@link MultiPlayerHandler} so the game on the server is the same as
+ * the game of every client.
+ * <p>
+ * The server decides when a turn starts, so ending and starting a turn does nothing
+ */
+public class ServerPlayerHandler implements IPlayerHandler {
+
+    private int playerCount;
+    private int flagCount;
+    private List<IPlayer> players;
+    private Map<IPlayer, Long> wonPlayers;
+    private boolean gameOver;
+    private long startTime;
+
+    /**
+     * @param playerDtos The players of the game, in the order they were sent to the clients
+     * @param map        The map of the game
+     */
+    public ServerPlayerHandler(@NotNull List<PlayerDto> playerDtos, @NotNull MapHandler map) {
+        playerCount = playerDtos.size();
+        players = new ArrayList<>(playerCount);
+        wonPlayers = new TreeMap<>();
+        gameOver = false;
+        startTime = System.currentTimeMillis();
+        addPlayers(map, playerDtos);
+    }
+
+    private void addPlayers(@NotNull MapHandler map, @NotNull List<PlayerDto> playerDtos) {
+        ComparableTuple<Integer, Stack<SpawnTile>> result = analyseMap(map);
+        flagCount = result.key;
+        Stack<SpawnTile> spawnTiles = result.value;
+        for (int i = 0; i < playerDtos.size(); i++) {
+            PlayerDto player = playerDtos.get(i);
+            ComparableTuple<String, Color> color = new ComparableTuple<>(player.name, player.color);
+            IPlayer onlinePlayer;
+            if (!spawnTiles.isEmpty()) {
+                SpawnTile spawnTile = spawnTiles.pop();
+                onlinePlayer = new OnlinePlayer(spawnTile.getX(), spawnTile.getY(), Direction.NORTH, map, color, player.id);
+                onlinePlayer.setDock(spawnTile.getSpawnNumber());
+            } else {
+                //where the clients put their non players
+                onlinePlayer = new OnlinePlayer(i, 0, Direction.NORTH, map, color, player.id);
+                onlinePlayer.setDock(i);
+            }
+            players.add(onlinePlayer);
+        }
+    }
+
+    /**
+     * Give every player the cards and power down state its client sent for the next round
+     *
+     * @param playerDtos The players as sent to the clients when the round starts
+     */
+    public void setCards(@NotNull List<PlayerDto> playerDtos) {
+        for (IPlayer player : players) {
+            OnlinePlayer onlinePlayer = (OnlinePlayer) player;
+            for (PlayerDto playerDto : playerDtos) {
+                if (playerDto.id == onlinePlayer.getId()) {
+                    onlinePlayer.setPoweredDown(playerDto.isPoweredDown);
+                    if (!playerDto.isPoweredDown && playerDto.cards != null) {
+                        onlinePlayer.setCards(playerDto.cards);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void endTurn() {
+        //the clients select the cards
+    }
+
+    @Override
+    public void startTurn() {
+        //the server starts the next round when every client has selected its cards
+    }
+
+    @Override
+    public List<IPlayer> getPlayers() {
+        return players;
+    }
+
+    @Override
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    @Override
+    public void checkGameOver() {
+        removePlayers();
+
+        if (players.size() == 1) {
+            wonPlayers.put(players.get(0), Math.abs(System.currentTimeMillis() - startTime));
+            players.remove(0);
+            gameOver = true;
+            return;
+        }
+
+        for (IPlayer player : players) {
+            if (!player.isDestroyed()) {
+                return;
+            }
+        }
+        gameOver = true;
+    }
+
+    @Override
+    public int getFlagCount() {
+        return flagCount;
+    }
+
+    /**
+     * @throws IllegalStateException There is no main player on the server
+     */
+    @Override
+    @NotNull
+    public IPlayer mainPlayer() {
+        throw new IllegalStateException("There is no main player in a game played by the server");
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    @Override
+    public void setGameOver(boolean state) {
+        gameOver = state;
+    }
+
+    @Override
+    public Map<IPlayer, Long> getWonPlayers() {
+        return wonPlayers;
+    }
+}
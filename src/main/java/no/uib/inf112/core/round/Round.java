@@ -12,9 +12,13 @@ import java.util.List;
  */
 public class Round {
 
+    //tag of the tasks managing the round itself, see TaskMetrics
+    private static final String ROUND_TAG = "Round";
+
     private final int phasesAmount;
     private List<Phase> registerPhases;
     private List<Phase> cleanupPhases;
+    private boolean startNextTurn = true;
 
     Round(int phasesAmount, List<Phase> registerPhases, List<Phase> cleanupPhases) {
         this.phasesAmount = phasesAmount;
@@ -22,6 +26,14 @@ public class Round {
         this.cleanupPhases = cleanupPhases;
     }
 
+    /**
+     * @param startNextTurn If the player handler should start the next turn when this round is over, when {@code false}
+     *                      whatever drives the game has to do it. Defaults to {@code true}
+     */
+    public void setStartNextTurn(boolean startNextTurn) {
+        this.startNextTurn = startNextTurn;
+    }
+
     public void startRound() {
         GameGraphics.getRoboRally().getDeck().shuffle();
         MapHandler map = GameGraphics.getRoboRally().getCurrentMap();
@@ -33,21 +45,21 @@ public class Round {
 
                 final long finalTotalDelay = totalDelay;
                 int phaseNr = i;
-                RoboRally.scheduleSync(() -> phase.startPhase(map, phaseNr), finalTotalDelay);
+                RoboRally.scheduleSync(() -> phase.startPhase(map, phaseNr), finalTotalDelay, phase.getClass().getSimpleName());
 
                 totalDelay += phase.getRunTime();
 
             }
-            map.update(0);
+            RoboRally.requestMapUpdate(map);
         }
-        RoboRally.scheduleSync(() -> GameGraphics.getRoboRally().getPlayerHandler().checkGameOver(), totalDelay + 10);
+        RoboRally.scheduleSync(() -> GameGraphics.getRoboRally().getPlayerHandler().checkGameOver(), totalDelay + 10, ROUND_TAG);
 
         for (Phase phase : cleanupPhases) {
-            RoboRally.scheduleSync(() -> phase.startPhase(map), totalDelay + (GameGraphics.HEADLESS ? 0 : 10));
+            RoboRally.scheduleSync(() -> phase.startPhase(map), totalDelay + (GameGraphics.HEADLESS ? 0 : 10), phase.getClass().getSimpleName());
         }
 
-        if (!GameGraphics.getRoboRally().getPlayerHandler().isGameOver()) {
-            RoboRally.scheduleSync(() -> GameGraphics.getRoboRally().getPlayerHandler().startTurn(), totalDelay + 20);
+        if (startNextTurn && !GameGraphics.getRoboRally().getPlayerHandler().isGameOver()) {
+            RoboRally.scheduleSync(() -> GameGraphics.getRoboRally().getPlayerHandler().startTurn(), totalDelay + 20, ROUND_TAG);
         }
     }
 }
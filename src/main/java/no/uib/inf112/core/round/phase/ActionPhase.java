@@ -1,20 +1,14 @@
 package no.uib.inf112.core.round.phase;
 
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
-import no.uib.inf112.core.GameGraphics;
 import no.uib.inf112.core.map.MapHandler;
 import no.uib.inf112.core.map.tile.Attribute;
 import no.uib.inf112.core.map.tile.TileType;
 import no.uib.inf112.core.map.tile.api.ActionTile;
-import no.uib.inf112.core.map.tile.api.MovableTile;
 import no.uib.inf112.core.map.tile.api.Tile;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 
 /**
  * @author Elg
@@ -22,12 +16,8 @@ import java.util.Set;
 public class ActionPhase extends AbstractPhase {
 
     private final TileType tileType;
-    private final boolean movableTile;
-    @Nullable
-    private final TiledMapTileLayer layer;
-
-    private Set<ActionTile<?>> tiles;
-
+    //The tiles at the position of the action tile being run
+    private final Tile[] buffer = new Tile[MapHandler.MAX_TILES_PER_POSITION];
 
     /**
      * @param tileType     The type of tile to run the actions of
@@ -45,53 +35,26 @@ public class ActionPhase extends AbstractPhase {
         }
 
         this.tileType = tileType;
-
-        movableTile = MovableTile.class.isAssignableFrom(tileType.getImplClass());
-        layer = GameGraphics.getRoboRally().getCurrentMap().getLayer(tileType.getLayerName());
-
     }
 
     @Override
     public void startPhase(@NotNull MapHandler map, int phaseNr) {
-        Set<ActionTile<?>> foundTiles = new HashSet<>();
-        if (tiles == null) {
-            for (int x = 0; x < map.getMapWidth(); x++) {
-                for (int y = 0; y < map.getMapHeight(); y++) {
-
-                    List<Tile> tiles;
-                    if (layer == null) {
-                        tiles = map.getAllTiles(x, y);
-                    } else {
-                        tiles = Collections.singletonList(map.getTile(layer, x, y));
-                    }
-
-                    for (Tile tile : tiles) {
-                        //get a tile of the correct type
-                        if (tile != null && tile.getTileType() == tileType) {
-                            ActionTile<?> actionTile = (ActionTile<?>) tile;
-                            if (movableTile) {
-                                runActionOnTiles(actionTile, tiles);
-                            } else {
-                                foundTiles.add(actionTile);
-                            }
-                        }
-                    }
-                }
-            }
-            if (movableTile) {
-                return;
-            } else {
-                tiles = foundTiles;
+        List<Tile> actionTiles = map.getTiles(tileType);
+        //indexed so no iterator is made
+        for (int i = 0; i < actionTiles.size(); i++) {
+            Tile tile = actionTiles.get(i);
+            int found = map.getAllTiles(tile.getX(), tile.getY(), buffer);
+            try {
+                runActionOnTiles((ActionTile) tile, found);
+            } finally {
+                Arrays.fill(buffer, null);
             }
         }
-
-        for (ActionTile tile : tiles) {
-            runActionOnTiles(tile, map.getAllTiles(tile.getX(), tile.getY()));
-        }
     }
 
-    private void runActionOnTiles(@NotNull ActionTile tile, List<Tile> tiles) {
-        for (Tile otherTile : tiles) {
+    private void runActionOnTiles(@NotNull ActionTile tile, int found) {
+        for (int i = 0; i < found; i++) {
+            Tile otherTile = buffer[i];
             if (!tile.equals(otherTile) && tile.canDoAction(otherTile)) {
                 //noinspection unchecked checked in actionTile.canDoAction
                 boolean success = tile.action(otherTile);
@@ -7,8 +7,6 @@ import no.uib.inf112.core.map.tile.api.Cleanup;
 import no.uib.inf112.core.map.tile.api.Tile;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
-
 /**
  * @author Elg
  */
@@ -31,21 +29,12 @@ public class CleanupPhase implements Phase {
 
     @Override
     public void startPhase(@NotNull MapHandler map, int phaseNr) {
-        for (int x = 0; x < map.getMapWidth(); x++) {
-            for (int y = 0; y < map.getMapHeight(); y++) {
-                List<Tile> tiles = map.getAllTiles(x, y);
-
-                for (Tile tile : tiles) {
-                    //get a tile of the correct type
-                    if (tile != null && tile.hasSuperClass(Cleanup.class) && tile.getTileType() == tileType) {
-                        Cleanup cleanTile = (Cleanup) tile;
-                        for (Tile otherTile : tiles) {
-                            if (cleanTile.canDoAction(otherTile)) {
-                                //noinspection unchecked checked in actionTile.canDoAction
-                                cleanTile.clean(otherTile);
-                            }
-                        }
-                    }
+        for (Tile tile : map.getTiles(tileType)) {
+            Cleanup cleanTile = (Cleanup) tile;
+            for (Tile otherTile : map.getAllTiles(tile.getX(), tile.getY())) {
+                if (cleanTile.canDoAction(otherTile)) {
+                    //noinspection unchecked checked in actionTile.canDoAction
+                    cleanTile.clean(otherTile);
                 }
             }
         }
@@ -1,77 +1,224 @@
 package no.uib.inf112.core.round.phase;
 
+import no.uib.inf112.core.RoboRally;
+import no.uib.inf112.core.map.ConveyorGraph;
 import no.uib.inf112.core.map.MapHandler;
 import no.uib.inf112.core.map.tile.Attribute;
-import no.uib.inf112.core.map.tile.TileType;
 import no.uib.inf112.core.map.tile.api.ConditionalRotateEffectTile;
 import no.uib.inf112.core.map.tile.api.MovableTile;
-import no.uib.inf112.core.map.tile.api.Tile;
 import no.uib.inf112.core.map.tile.tiles.ConveyorTile;
+import no.uib.inf112.core.player.Entity;
+import no.uib.inf112.core.util.Direction;
 import no.uib.inf112.core.util.Vector2Int;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 /**
  * The phase where CONVEYOR move the {@link MovableTile}. If a CONVEYOR has the {@link Attribute#HIGH_PRIORITY} it is considered
  * an express CONVEYOR.
  * <p>
  * In reality it this phase is two phases. First one where only the express CONVEYOR moves, then one where every CONVEYOR moves.
+ * <p>
+ * Only entities standing on a conveyor are visited. An entity is moved after the entity standing on the cell it is moved
+ * onto, so a line of entities on a conveyor belt moves together. Entities on a closed loop of conveyors are all moved at
+ * once, unless a wall stops any of them.
  *
  * @author Elg
  */
 public class ConveyorPhase extends AbstractPhase {
 
+    private static final int UNVISITED = 0;
+    private static final int VISITING = 1;
+    private static final int DONE = 2;
+
+    //Indexed by cell and reused by every sub phase, cleared when the sub phase is done
+    private Entity[] movers = new Entity[0];
+    private int[] state = new int[0];
+    //The cells with an entity to move, only the first moverCount are valid
+    private int[] moverCells = new int[0];
+    private int moverCount;
+    //The cells being followed, furthest along last
+    private int[] chain = new int[0];
+    //The entities moved and the cells they were moved from, only the first movedCount are valid
+    private Entity[] moved = new Entity[0];
+    private int[] movedFrom = new int[0];
+    private int movedCount;
+    private final Vector2Int prevPos = new Vector2Int(0, 0);
+    //A conveyor that moved an entity in the current sub phase
+    private ConveyorTile movingConveyor;
+
     public ConveyorPhase(long totalRunTime) {
         super(totalRunTime);
     }
 
     @Override
     public void startPhase(@NotNull MapHandler map, int phaseNr) {
-        subPhase(map, false);
+        //make sure the entities are known by where they actually are, after this every moved entity is relocated
         map.update(0);
+        subPhase(map, false);
         subPhase(map, true);
-        map.update(0);
+        RoboRally.requestMapUpdate(map);
     }
 
     private void subPhase(MapHandler map, boolean allConveyors) {
-        Map<MovableTile, Vector2Int> movedTiles = new HashMap<>();
-        for (int x = 0; x < map.getMapWidth(); x++) {
-            for (int y = 0; y < map.getMapHeight(); y++) {
-                Tile tile = map.getTile(MapHandler.BOARD_LAYER_NAME, x, y);
-
-                //get a tile of the correct type
-                if (tile != null &&
-                        (tile.getTileType() == TileType.CONVEYOR || tile.getTileType() == TileType.ROTATION_CONVEYOR) &&
-                        (allConveyors || tile.hasAttribute(Attribute.HIGH_PRIORITY))) {
-                    ConveyorTile conveyor = (ConveyorTile) tile;
-                    List<Tile> tiles = map.getAllTiles(x, y);
-                    for (Tile otherTile : tiles) {
-                        if (conveyor.canDoAction(otherTile)) {
-                            movedTiles.put((MovableTile) otherTile, new Vector2Int(otherTile.getX(), otherTile.getY()));
-                            if (conveyor.action((MovableTile) otherTile)) {
-                                conveyor.getActionSound().play();
-                            } else {
-                                movedTiles.remove(otherTile);
-                            }
-                        }
+        ConveyorGraph graph = map.getConveyorGraph();
+        ensureCapacity(graph.getCellCount());
+
+        List<Entity> entities = map.getAllEntities();
+        //indexed so no iterator is made
+        for (int i = 0; i < entities.size(); i++) {
+            Entity entity = entities.get(i);
+            int cell = graph.cellIndex(entity.getX(), entity.getY());
+            ConveyorTile conveyor = graph.getConveyor(cell);
+            if (conveyor != null && (allConveyors || graph.isExpress(cell)) && conveyor.canDoAction(entity)) {
+                movers[cell] = entity;
+                moverCells[moverCount++] = cell;
+            }
+        }
+        if (moverCount == 0) {
+            return;
+        }
+
+        try {
+            for (int m = 0; m < moverCount; m++) {
+                int start = moverCells[m];
+                if (state[start] != UNVISITED) {
+                    continue;
+                }
+
+                //follow the conveyors until a cell without a waiting entity (or one already visited) is found
+                int length = 0;
+                int cell = start;
+                int cycleStart = -1;
+                while (true) {
+                    chain[length++] = cell;
+                    state[cell] = VISITING;
+                    int next = graph.getSuccessor(cell);
+                    if (next == ConveyorGraph.NO_SUCCESSOR || movers[next] == null) {
+                        break;
                     }
+                    if (state[next] == VISITING) {
+                        cycleStart = indexOf(chain, length, next);
+                        break;
+                    } else if (state[next] == DONE) {
+                        break;
+                    }
+                    cell = next;
+                }
+
+                int end = length;
+                if (cycleStart >= 0) {
+                    moveCycle(map, graph, cycleStart, length);
+                    end = cycleStart;
+                }
+                //move the entity furthest along first to make room for the ones behind it
+                for (int i = end - 1; i >= 0; i--) {
+                    move(map, graph, chain[i]);
+                }
+                for (int i = 0; i < length; i++) {
+                    state[chain[i]] = DONE;
                 }
             }
+
+            if (movingConveyor != null) {
+                movingConveyor.getActionSound().play();
+            }
+            rotateMoved(graph);
+        } finally {
+            for (int m = 0; m < moverCount; m++) {
+                movers[moverCells[m]] = null;
+                state[moverCells[m]] = UNVISITED;
+            }
+            moverCount = 0;
+            Arrays.fill(moved, 0, movedCount, null);
+            movedCount = 0;
+            movingConveyor = null;
+        }
+    }
+
+    private void ensureCapacity(int cells) {
+        if (movers.length != cells) {
+            movers = new Entity[cells];
+            state = new int[cells];
+            moverCells = new int[cells];
+            chain = new int[cells];
+            moved = new Entity[cells];
+            movedFrom = new int[cells];
+        }
+    }
+
+    private static int indexOf(int[] array, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Let the conveyor at the given cell move the entity standing on it
+     */
+    private void move(MapHandler map, ConveyorGraph graph, int cell) {
+        Entity entity = movers[cell];
+        ConveyorTile conveyor = graph.getConveyor(cell);
+        //noinspection ConstantConditions
+        boolean didMove = conveyor.action(entity);
+        //let the next entity find this one where it now is
+        map.relocateEntity(entity);
+        if (didMove) {
+            moved[movedCount] = entity;
+            movedFrom[movedCount++] = cell;
+            movingConveyor = conveyor;
+        }
+    }
+
+    /**
+     * Move all entities on a loop of conveyors at the same time, as none of them can move before another one has moved.
+     * If a wall stops one of them none of them can move.
+     *
+     * @param from The index in the chain of the first cell of the loop
+     * @param to   The index in the chain after the last cell of the loop
+     */
+    private void moveCycle(MapHandler map, ConveyorGraph graph, int from, int to) {
+        if (to - from <= 2) {
+            //two entities moving into each other, neither can move
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            int cell = chain[i];
+            //noinspection ConstantConditions
+            Direction dir = graph.getConveyor(cell).getDirection();
+            int x = graph.getX(cell);
+            int y = graph.getY(cell);
+            if (!map.canLeave(x, y, dir) || !map.canEnter(x + dir.getDx(), y + dir.getDy(), dir)) {
+                return;
+            }
+        }
+        //find every entity where it is about to be so they do not push each other, each one takes over the cell of
+        //the next one in the loop
+        for (int i = from; i < to; i++) {
+            int next = i + 1 < to ? chain[i + 1] : chain[from];
+            map.relocateEntity(movers[chain[i]], graph.getX(next), graph.getY(next));
+        }
+        for (int i = from; i < to; i++) {
+            move(map, graph, chain[i]);
         }
-        map.update(0);
-        rotateMoved(map, movedTiles);
     }
 
-    private void rotateMoved(MapHandler map, Map<MovableTile, Vector2Int> movedTiles) {
-        for (Map.Entry<MovableTile, Vector2Int> entry : movedTiles.entrySet()) {
-            if (entry.getKey().getX() != entry.getValue().x || entry.getKey().getY() != entry.getValue().y) {
+    private void rotateMoved(ConveyorGraph graph) {
+        for (int i = 0; i < movedCount; i++) {
+            Entity entity = moved[i];
+            prevPos.x = graph.getX(movedFrom[i]);
+            prevPos.y = graph.getY(movedFrom[i]);
+            if (entity.getX() != prevPos.x || entity.getY() != prevPos.y) {
                 //Entity moved
-                Tile tile = map.getTile(MapHandler.BOARD_LAYER_NAME, entry.getKey().getX(), entry.getKey().getY());
-                if (tile != null && tile.getTileType() == TileType.ROTATION_CONVEYOR) {
-                    ((ConditionalRotateEffectTile) tile).rotate(entry.getKey(), entry.getValue());
+                int cell = graph.cellIndex(entity.getX(), entity.getY());
+                if (graph.isRotating(cell)) {
+                    //noinspection ConstantConditions
+                    ((ConditionalRotateEffectTile) graph.getConveyor(cell)).rotate(entity, prevPos);
                 }
             }
         }
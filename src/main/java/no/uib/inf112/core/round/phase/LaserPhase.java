@@ -2,11 +2,13 @@ package no.uib.inf112.core.round.phase;
 
 import com.badlogic.gdx.graphics.Color;
 import no.uib.inf112.core.RoboRally;
+import no.uib.inf112.core.map.LaserBeam;
 import no.uib.inf112.core.map.MapHandler;
 import no.uib.inf112.core.map.tile.Attribute;
 import no.uib.inf112.core.map.tile.TileGraphic;
 import no.uib.inf112.core.map.tile.api.*;
 import no.uib.inf112.core.map.tile.tiles.LaserTile;
+import no.uib.inf112.core.player.Entity;
 import no.uib.inf112.core.player.IPlayer;
 import no.uib.inf112.core.ui.Sound;
 import no.uib.inf112.core.util.Direction;
@@ -28,21 +30,16 @@ public class LaserPhase extends AbstractPhase {
 
     @Override
     public void startPhase(@NotNull MapHandler map, int phaseNr) {
+        for (LaserBeam beam : map.getLaserBeams()) {
+            RoboRally.scheduleSync(() -> shootAlreadyExistingLaser(map, beam), getRunTime() / 5);
+        }
 
-        for (int y = 0; y < map.getMapHeight(); y++) {
-            for (int x = 0; x < map.getMapWidth(); x++) {
-                Tile collidablesTile = map.getTile(COLLIDABLES_LAYER_NAME, x, y);
-                if (collidablesTile != null && collidablesTile.hasAttribute(Attribute.SHOOTS_LASER)) {
-                    RoboRally.scheduleSync(() -> shootAlreadyExistingLaser(map, collidablesTile), getRunTime() / 5);
-                }
-                Tile entitiesTile = map.getTile(ENTITY_LAYER_NAME, x, y);
-                if (entitiesTile != null && entitiesTile.hasAttribute(Attribute.LAYS_DOWN_LASER) && !((IPlayer) (entitiesTile)).isPoweredDown()) {
-                    RoboRally.scheduleSync(() -> shootLaserFromTile(map, entitiesTile), getRunTime() / 5);
-                }
+        for (Entity entity : map.getAllEntities()) {
+            if (entity.hasAttribute(Attribute.LAYS_DOWN_LASER) && !((IPlayer) entity).isPoweredDown()) {
+                RoboRally.scheduleSync(() -> shootLaserFromTile(map, entity), getRunTime() / 5);
             }
-
         }
-        map.update(0);
+        RoboRally.requestMapUpdate(map);
     }
 
     /**
@@ -93,40 +90,23 @@ public class LaserPhase extends AbstractPhase {
      * Meaning those that are in the lasers layer. They start at wall tiles that have the attribute to shoot lasers
      *
      * @param map  map to shoot on
-     * @param tile tile to shoot from, that includes the position of this tile
+     * @param beam the laser to shoot, its path includes the position of the wall shooting it
      */
-    private void shootAlreadyExistingLaser(@NotNull MapHandler map, @NotNull Tile tile) {
-        MultiDirectionalTile originTile = (MultiDirectionalTile) tile;
-        // assuming tiles shooting already existing lasers only have one direction, e.g. walls with laser
-        Direction direction = getDirection(originTile);
-        Vector2Int originPos = new Vector2Int(tile.getX(), tile.getY());
-
-        //Wall shoot laser in opposite direction
-        direction = direction.inverse();
-        Tile onPos = map.getTile(ENTITY_LAYER_NAME, originPos.x, originPos.y);
-        Vector2Int currentPos = originPos;
+    private void shootAlreadyExistingLaser(@NotNull MapHandler map, @NotNull LaserBeam beam) {
+        Tile onPos = null;
         Set<LaserTile> activatedLasers = new HashSet<>();
-        while (onPos == null || !onPos.hasSuperClass(CollidableTile.class)) {
-            Tile laser = map.getTile(LASERS_LAYER_NAME, currentPos.x, currentPos.y);
-            activatedLasers.add(activateLaser(laser));
-
-            if (canMove(laser, direction, map)) {
-                currentPos = new Vector2Int(currentPos.x + direction.getDx(), currentPos.y + direction.getDy());
-                Tile collidable = (map.getTile(COLLIDABLES_LAYER_NAME, currentPos.x, currentPos.y));
-                if (collidable != null && collidable.hasSuperClass(CollidableTile.class) &&
-                        ((CollidableTile) collidable).willCollide(laser, direction)) {
-                    //Colliding with wall facing the previous tile
-                    break;
-                }
-                onPos = map.getTile(ENTITY_LAYER_NAME, currentPos.x, currentPos.y);
-            } else {
+        for (LaserTile laser : beam.getPath()) {
+            onPos = map.getTile(ENTITY_LAYER_NAME, laser.getX(), laser.getY());
+            if (onPos != null && onPos.hasSuperClass(CollidableTile.class)) {
                 break;
             }
+            laser.setColor(Color.WHITE);
+            activatedLasers.add(laser);
         }
         if (onPos != null && onPos.hasSuperClass(DamageableTile.class)) {
             Sound.SHOOT_LASER.play();
             DamageableTile damageableTile = (DamageableTile) onPos;
-            damageableTile.damage(originTile.hasAttribute(Attribute.HIGH_PRIORITY) ? 2 : 1);
+            damageableTile.damage(beam.getDamage());
         } else if (onPos != null) {
             throw new IllegalStateException("Found something in the entity layer that's not hurtable");
         }
@@ -148,20 +128,6 @@ public class LaserPhase extends AbstractPhase {
         activatedLasers.clear();
     }
 
-    /**
-     * Checks if the tile can move from the current tile
-     * This method only checks the current position and does not check the next one to see if it can move there, it only checks the collidables layer
-     *
-     * @param laser     tile to "move"
-     * @param direction direction to move
-     * @param map       map to move on
-     * @return true if there is nothing on the current tile prohibiting moving in the direction
-     */
-    private boolean canMove(Tile laser, Direction direction, MapHandler map) {
-        Tile standingOnTile = map.getTile(COLLIDABLES_LAYER_NAME, laser.getX(), laser.getY());
-        return !willCollide(laser, standingOnTile, direction);
-    }
-
     /**
      * Checks if the given tile can move to the next tile
      * This method checks the current position and the one its moving too to see if there is anything blocking it from doing it
@@ -172,55 +138,7 @@ public class LaserPhase extends AbstractPhase {
      * @return true if there is nothing on the current or the next tile prohibiting moving in the direction
      */
     private boolean canMoveAcrossTile(Tile prevTile, Direction direction, MapHandler map) {
-        Tile standingOnTile = map.getTile(COLLIDABLES_LAYER_NAME, prevTile.getX(), prevTile.getY());
-        Tile nextTile = map.getTile(COLLIDABLES_LAYER_NAME, prevTile.getX() + direction.getDx(), prevTile.getY() + direction.getDy());
-        return !willCollide(prevTile, standingOnTile, direction) && !willCollide(prevTile, nextTile, direction);
-    }
-
-    /**
-     * Returns true if the laser will collide with the tile when moving in the given direction
-     *
-     * @param laser     tile to move
-     * @param tile      tile to maybe collide with
-     * @param direction direction to move
-     * @return true if the tile collides with the other tile
-     */
-    private boolean willCollide(Tile laser, Tile tile, Direction direction) {
-        if (tile != null && tile.hasSuperClass(CollidableTile.class)) {
-            CollidableTile collidableTile = (CollidableTile) tile;
-            return collidableTile.willCollide(laser, direction);
-        }
-        return false;
-    }
-
-    /**
-     * Returns the one direction in an originally multiDirectionalTile
-     * Used to get laser direction
-     *
-     * @param originTile tile to get direction from
-     * @return the direction of the tile
-     * @throws IllegalArgumentException if the tile has more than one direction
-     */
-    private Direction getDirection(MultiDirectionalTile originTile) {
-        if (originTile.getDirections().size() == 1) {
-            return originTile.getDirections().iterator().next();
-        }
-        throw new IllegalArgumentException("Wall shooting laser has more than one direction");
-    }
-
-    /**
-     * Activates an already existing laser
-     *
-     * @param laserTile laser to activate
-     * @return returns the newly activated LaserTile
-     */
-    private LaserTile activateLaser(Tile laserTile) {
-        if (laserTile instanceof LaserTile) {
-            LaserTile laser = (LaserTile) laserTile;
-            laser.setColor(Color.WHITE);
-            return laser;
-        } else {
-            throw new IllegalStateException("Found something in the laser layer that's not a laser: " + laserTile);
-        }
+        return map.canLeave(prevTile.getX(), prevTile.getY(), direction) &&
+                map.canEnter(prevTile.getX() + direction.getDx(), prevTile.getY() + direction.getDy(), direction);
     }
 }
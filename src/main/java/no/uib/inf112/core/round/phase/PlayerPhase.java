@@ -22,7 +22,8 @@ import java.util.List;
 public class PlayerPhase extends AbstractPhase {
 
     private final int delayPerPlayer;
-    private List<List<ComparableTuple<Card, IPlayer>>> cards;
+    //The moves of each register, in the order they are played
+    private List<List<Runnable>> moves;
     private int lastIndex;
 
     public PlayerPhase(int delayPerPlayer) {
@@ -30,7 +31,7 @@ public class PlayerPhase extends AbstractPhase {
         this.delayPerPlayer = delayPerPlayer;
         List<IPlayer> players = GameGraphics.getRoboRally().getPlayerHandler().getPlayers();
 
-        cards = new ArrayList<>();
+        moves = new ArrayList<>();
         for (int i = 0; i < IPlayer.MAX_PLAYER_CARDS; i++) {
 
             List<ComparableTuple<Card, IPlayer>> roundList = new ArrayList<>();
@@ -40,21 +41,30 @@ public class PlayerPhase extends AbstractPhase {
                 }
             }
             Collections.sort(roundList);
-            cards.add(roundList);
+
+            //made up front so playing the cards does not create any tasks
+            List<Runnable> registerMoves = new ArrayList<>(roundList.size());
+            for (ComparableTuple<Card, IPlayer> tuple : roundList) {
+                registerMoves.add(() -> {
+                    tuple.value.move(tuple.key.getAction(), delayPerPlayer);
+                    Sound.ROBOT_MOVING.play();
+                });
+            }
+            moves.add(registerMoves);
         }
     }
 
+    /**
+     * @param phaseNr The register to play, if unknown the register after the last one played is played
+     */
     @Override
     public void startPhase(@NotNull MapHandler map, int phaseNr) {
-        List<ComparableTuple<Card, IPlayer>> phaseCards = cards.get(lastIndex);
-        lastIndex++;
-
-        for (int i = 0; i < phaseCards.size(); i++) {
-            ComparableTuple<Card, IPlayer> tuple = phaseCards.get(i);
-            RoboRally.scheduleSync(() -> {
-                tuple.value.move(tuple.key.getAction(), delayPerPlayer);
-                Sound.ROBOT_MOVING.play();
-            }, delayPerPlayer * (i + 1));
+        int index = phaseNr == UNKNOWN_PHASE_NUMBER ? lastIndex : phaseNr;
+        lastIndex = index + 1;
+        List<Runnable> registerMoves = moves.get(index);
+
+        for (int i = 0; i < registerMoves.size(); i++) {
+            RoboRally.scheduleSync(registerMoves.get(i), delayPerPlayer * (i + 1));
         }
     }
 }
@@ -6,29 +6,29 @@ import no.uib.inf112.core.map.tile.TileType;
 import no.uib.inf112.core.map.tile.api.MovableTile;
 import no.uib.inf112.core.map.tile.api.Tile;
 import no.uib.inf112.core.map.tile.tiles.PusherTile;
-import no.uib.inf112.core.util.UVector2Int;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Map;
+import java.util.List;
 
-public class PusherPhase extends AbstractStaticTilePhase {
+public class PusherPhase extends AbstractPhase {
 
     public PusherPhase(long totalRunTime) {
-        super(totalRunTime, TileType.PUSHER);
+        super(totalRunTime);
     }
 
     @Override
     public void startPhase(@NotNull MapHandler map, int phaseNr) {
-        for (Map.Entry<UVector2Int, Tile> entry : getTiles(map).entrySet()) {
-            PusherTile tile = (PusherTile) entry.getValue();
-            UVector2Int pos = entry.getKey();
+        List<Tile> pushers = map.getTiles(TileType.PUSHER);
+        //indexed so no iterator is made
+        for (int i = 0; i < pushers.size(); i++) {
+            PusherTile tile = (PusherTile) pushers.get(i);
 
             if ((phaseNr % 2 == 0 && tile.hasAttribute(Attribute.PUSH_ODD)) ||
                     (phaseNr % 2 != 0 && tile.hasAttribute(Attribute.PUSH_EVEN))) {
                 continue;
             }
 
-            Tile entTile = map.getTile(MapHandler.ENTITY_LAYER_NAME, pos.x, pos.y);
+            Tile entTile = map.getTile(MapHandler.ENTITY_LAYER_NAME, tile.getX(), tile.getY());
 
 
             if (tile.canDoAction(entTile)) {
@@ -10,13 +10,16 @@ import no.uib.inf112.core.io.InputHandler;
 import no.uib.inf112.core.multiplayer.IClient;
 import no.uib.inf112.core.multiplayer.dtos.NewGameDto;
 import no.uib.inf112.core.screens.menuscreens.EndScreen;
+import no.uib.inf112.core.ui.DebugOverlay;
 import no.uib.inf112.core.ui.UIHandler;
 import no.uib.inf112.core.ui.event.ControlPanelEventHandler;
+import no.uib.inf112.core.util.TaskMetrics;
 import org.jetbrains.annotations.NotNull;
 
 public class GameScreen implements Screen {
 
     private GameGraphics game;
+    private DebugOverlay debugOverlay;
 
     private static InputMultiplexer inputMultiplexer;
     private static UIHandler uiHandler;
@@ -70,6 +73,13 @@ public class GameScreen implements Screen {
             game.setScreen(new EndScreen(game));
         }
 
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F3)) {
+            //toggle measuring how late game tasks are
+            TaskMetrics.setEnabled(!TaskMetrics.isEnabled());
+        } else if (Gdx.input.isKeyJustPressed(Input.Keys.F4)) {
+            System.out.println(TaskMetrics.report());
+        }
+
         game.batch.begin();
 
         GameGraphics.getRoboRally().getCurrentMap().update(Gdx.graphics.getDeltaTime());
@@ -78,6 +88,13 @@ public class GameScreen implements Screen {
         uiHandler.update();
 
         game.batch.end();
+
+        if (TaskMetrics.isEnabled()) {
+            if (debugOverlay == null) {
+                debugOverlay = new DebugOverlay();
+            }
+            debugOverlay.render();
+        }
     }
 
     @Override
@@ -104,6 +121,9 @@ public class GameScreen implements Screen {
     @Override
     public void dispose() {
         uiHandler.dispose();
+        if (debugOverlay != null) {
+            debugOverlay.dispose();
+        }
     }
 
     @NotNull
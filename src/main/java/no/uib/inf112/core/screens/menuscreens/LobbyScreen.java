@@ -18,11 +18,12 @@ public class LobbyScreen extends AbstractMenuScreen {
     public LobbyScreen(GameGraphics game, boolean isHost, String ip, int port) throws IOException {
         super(game);
         if (isHost) {
-            server = new Server(port, 8);
+            server = new Server(port, 8, GameGraphics.mapFileName);
             GameGraphics.setServer(server);
             client = new Client(ip, port);
             client.setName(GameGraphics.mainPlayerName);
             client.setHost();
+            client.setMap(GameGraphics.mapFileName);
             GameGraphics.setClient(client);
         } else {
             server = null;
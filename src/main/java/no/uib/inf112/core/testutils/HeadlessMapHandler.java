@@ -11,6 +11,13 @@ public class HeadlessMapHandler extends TiledMapHandler {
         super(map);
     }
 
+    /**
+     * @param withTextures If the images of the tiles should be loaded, see {@link TiledMapHandler#TiledMapHandler(String, boolean)}
+     */
+    public HeadlessMapHandler(String map, boolean withTextures) {
+        super(map, withTextures);
+    }
+
     @Override
     public void render(@NotNull Batch batch) {
         //Skeleton code: made for running in test environment nowhere to render too
@@ -0,0 +1,36 @@
+package no.uib.inf112.core.ui;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.Disposable;
+import no.uib.inf112.core.util.TaskMetrics;
+
+/**
+ * Show how late scheduled game tasks are run in the top left corner of the screen
+ */
+public class DebugOverlay implements Disposable {
+
+    private static final int MARGIN = 10;
+
+    private final SpriteBatch batch;
+    private final BitmapFont font;
+
+    public DebugOverlay() {
+        batch = new SpriteBatch();
+        font = new BitmapFont();
+    }
+
+    public void render() {
+        batch.getProjectionMatrix().setToOrtho2D(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+        batch.begin();
+        font.draw(batch, TaskMetrics.report(), MARGIN, Gdx.graphics.getHeight() - MARGIN);
+        batch.end();
+    }
+
+    @Override
+    public void dispose() {
+        batch.dispose();
+        font.dispose();
+    }
+}
@@ -4,6 +4,7 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.files.FileHandle;
 import no.uib.inf112.core.GameGraphics;
+import no.uib.inf112.core.RoboRally;
 
 import java.io.File;
 
@@ -30,6 +31,8 @@ public enum Sound {
     public void play() {
         if (GameGraphics.soundMuted) { // Sound was muted in options screen
             return;
+        } else if (RoboRally.getBackgroundGame() != null) { // No one is listening to games played in the background
+            return;
         }
         sound.play();
     }
@@ -2,41 +2,73 @@ package no.uib.inf112.core.util;
 
 import com.badlogic.gdx.Gdx;
 
-import java.util.Collections;
-import java.util.Set;
-import java.util.WeakHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Run (cancellable) tasks on another thread
+ * <p>
+ * Tasks are kept in a hashed timing wheel owned by the thread, which is only woken up when there are tasks waiting.
+ * Scheduling a task never locks, it is put in a queue the thread empties into the wheel. Every task belongs to the
+ * generation it was scheduled in, cancelling all tasks is done by starting a new generation, tasks from an older
+ * generation are thrown away when they are due.
  *
  * @author kheba
  */
 public class CancellableThreadScheduler {
 
-    private final ScheduledExecutorService executorService;
-    private final Set<ScheduledFuture> tasks;
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final Thread thread;
+    private final ConcurrentLinkedQueue<Task> inbox;
+    private final AtomicReference<Generation> generation;
+    private volatile boolean shutdown;
+
+    //only touched by the thread
+    private final List<List<Task>> wheel;
+    private final long startNanos;
+    private long tick;
+    private int wheelTasks;
+
+    //metrics, only written by the thread
+    private volatile long tasksRun;
+    private volatile long tasksCancelled;
+    private volatile long totalLatenessNanos;
+    private volatile long maxLatenessNanos;
 
     public CancellableThreadScheduler() {
-        executorService = Executors.newSingleThreadScheduledExecutor();
-        tasks = Collections.newSetFromMap(new WeakHashMap<>());
+        inbox = new ConcurrentLinkedQueue<>();
+        generation = new AtomicReference<>(new Generation());
+        wheel = new ArrayList<>(WHEEL_SIZE);
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        startNanos = System.nanoTime();
 
+        thread = new Thread(this::work, "Cancellable thread scheduler");
+        thread.start();
     }
 
     /**
-     * Cancel all future and running tasks
+     * Cancel all future tasks. Tasks already running will finish.
      */
     public void cancelTasks() {
-        for (final ScheduledFuture sf : tasks) {
-            sf.cancel(true);
-        }
+        generation.getAndSet(new Generation()).cancelled = true;
     }
 
+    /**
+     * @return How many tasks that have not yet been run or cancelled
+     */
     public int size() {
-        return tasks.size();
+        return generation.get().pending.get();
     }
 
     private Runnable caughtRunnable(Runnable runnable) {
@@ -52,6 +84,16 @@ public class CancellableThreadScheduler {
         };
     }
 
+    private void submit(Runnable runnable, long ms) {
+        if (shutdown) {
+            return;
+        }
+        Generation gen = generation.get();
+        gen.pending.incrementAndGet();
+        inbox.add(new Task(runnable, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, ms)), gen));
+        LockSupport.unpark(thread);
+    }
+
     /**
      * Execute a task as soon as possible
      *
@@ -59,7 +101,7 @@ public class CancellableThreadScheduler {
      *     What to do
      */
     public void executeAsync(final Runnable runnable) {
-        tasks.add(executorService.schedule(caughtRunnable(runnable), 0, TimeUnit.NANOSECONDS));
+        submit(caughtRunnable(runnable), 0);
     }
 
     /**
@@ -69,7 +111,7 @@ public class CancellableThreadScheduler {
      *     What to do
      */
     public void executeSync(final Runnable runnable) {
-        tasks.add(executorService.schedule(() -> Gdx.app.postRunnable(runnable), 0, TimeUnit.NANOSECONDS));
+        submit(() -> Gdx.app.postRunnable(runnable), 0);
     }
 
     /**
@@ -81,7 +123,7 @@ public class CancellableThreadScheduler {
      *     How many milliseconds to wait before running the task
      */
     public void scheduleAsync(final Runnable runnable, final long ms) {
-        tasks.add(executorService.schedule(caughtRunnable(runnable), ms, TimeUnit.MILLISECONDS));
+        submit(caughtRunnable(runnable), ms);
     }
 
 
@@ -94,13 +136,134 @@ public class CancellableThreadScheduler {
      *     How many milliseconds to wait before running the task
      */
     public void scheduleSync(final Runnable runnable, final long ms) {
-        tasks.add(executorService.schedule(() -> Gdx.app.postRunnable(runnable), ms, TimeUnit.MILLISECONDS));
+        submit(() -> Gdx.app.postRunnable(runnable), ms);
     }
 
     /**
      * Shut down the thread
      */
     public void shutdown() {
-        executorService.shutdownNow();
+        shutdown = true;
+        cancelTasks();
+        LockSupport.unpark(thread);
+    }
+
+    private void work() {
+        while (!shutdown) {
+            Task task;
+            while ((task = inbox.poll()) != null) {
+                long deadlineTick = (task.deadline - startNanos + TICK_NANOS - 1) / TICK_NANOS;
+                if (deadlineTick <= tick) {
+                    run(task);
+                } else {
+                    task.deadlineTick = deadlineTick;
+                    wheel.get((int) (deadlineTick & WHEEL_MASK)).add(task);
+                    wheelTasks++;
+                }
+            }
+
+            long currentTick = (System.nanoTime() - startNanos) / TICK_NANOS;
+            while (tick < currentTick && wheelTasks > 0) {
+                tick++;
+                expire(wheel.get((int) (tick & WHEEL_MASK)));
+            }
+            //nothing is waiting in the wheel, we can skip ahead
+            tick = Math.max(tick, currentTick);
+
+            if (wheelTasks == 0) {
+                if (inbox.isEmpty()) {
+                    LockSupport.park(this);
+                }
+            } else {
+                LockSupport.parkNanos(this, startNanos + (tick + 1) * TICK_NANOS - System.nanoTime());
+            }
+        }
+    }
+
+    private void expire(List<Task> bucket) {
+        Iterator<Task> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Task task = iterator.next();
+            //tasks more than one lap away stays in the bucket
+            if (task.deadlineTick <= tick) {
+                iterator.remove();
+                wheelTasks--;
+                run(task);
+            }
+        }
+    }
+
+    private void run(Task task) {
+        task.generation.pending.decrementAndGet();
+        if (task.generation.cancelled) {
+            tasksCancelled++;
+            return;
+        }
+        long lateness = Math.max(0, System.nanoTime() - task.deadline);
+        totalLatenessNanos += lateness;
+        maxLatenessNanos = Math.max(maxLatenessNanos, lateness);
+        tasksRun++;
+        try {
+            task.runnable.run();
+        } catch (Exception e) {
+            //do not let a task stop the thread
+            System.err.println("Exception caught on secondary thread");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return How many tasks have been run
+     */
+    public long getTasksRun() {
+        return tasksRun;
+    }
+
+    /**
+     * @return How many tasks have been thrown away as they were cancelled
+     */
+    public long getTasksCancelled() {
+        return tasksCancelled;
+    }
+
+    /**
+     * @return The average time, in milliseconds, from when a task should have been run until it was run
+     */
+    public double getAverageLatenessMs() {
+        long run = tasksRun;
+        return run == 0 ? 0 : totalLatenessNanos / (double) run / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return The longest time, in milliseconds, from when a task should have been run until it was run
+     */
+    public double getMaxLatenessMs() {
+        return maxLatenessNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return "CancellableThreadScheduler{queued=" + size() + ", run=" + tasksRun + ", cancelled=" + tasksCancelled +
+                ", avgLateness=" + getAverageLatenessMs() + "ms, maxLateness=" + getMaxLatenessMs() + "ms}";
+    }
+
+    private static class Generation {
+
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+    }
+
+    private static class Task {
+
+        private final Runnable runnable;
+        private final long deadline;
+        private final Generation generation;
+        private long deadlineTick;
+
+        private Task(Runnable runnable, long deadline, Generation generation) {
+            this.runnable = runnable;
+            this.deadline = deadline;
+            this.generation = generation;
+        }
     }
 }
@@ -60,6 +60,13 @@ public enum Direction {
         return null;
     }
 
+    /**
+     * @return The bit of this direction in a bitmask of directions
+     */
+    public int getMask() {
+        return 1 << ordinal();
+    }
+
     /**
      * @return The opposite direction of this one
      */
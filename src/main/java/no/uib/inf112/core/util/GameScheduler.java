@@ -0,0 +1,40 @@
+package no.uib.inf112.core.util;
+
+import no.uib.inf112.core.map.MapHandler;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Decides when and where timed game actions are run
+ */
+public interface GameScheduler {
+
+    /**
+     * Run a task on the game thread in the future
+     *
+     * @param runnable What to do
+     * @param msDelay  How many milliseconds to wait before running the task, run as soon as possible if {@code <= 0}
+     */
+    void scheduleSync(@NotNull Runnable runnable, long msDelay);
+
+    /**
+     * Cancel all tasks not yet run
+     */
+    void cancelTasks();
+
+    /**
+     * Update the given map before the next task is run. Schedulers may merge several requests into one update.
+     *
+     * @param map The map to update
+     */
+    default void requestMapUpdate(@NotNull MapHandler map) {
+        map.update(0);
+    }
+
+    /**
+     * @return {@code true} if time only moves when someone drives this scheduler, {@code false} if it follows the wall
+     * clock
+     */
+    default boolean isVirtual() {
+        return false;
+    }
+}
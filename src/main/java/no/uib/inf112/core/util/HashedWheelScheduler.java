@@ -0,0 +1,207 @@
+package no.uib.inf112.core.util;
+
+import com.badlogic.gdx.Gdx;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A hashed timing wheel. Tasks are put in the bucket of the tick they are due and the wheel moves one bucket every
+ * tick, so scheduling and running a task is constant time no matter how many tasks are waiting. Tasks are never run
+ * before their delay has passed, and at most one tick later. Ticks follow the clock rather than counting how often
+ * the ticker has run, so a late ticker catches up without running tasks early.
+ * <p>
+ * All wheels share one thread to tick on, so many games can each have their own wheel without a timer thread each.
+ * A wheel only ticks while it has tasks waiting, so an idle or dropped wheel costs the shared thread nothing.
+ */
+public class HashedWheelScheduler implements GameScheduler {
+
+    private static final ScheduledExecutorService TICKER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Hashed wheel ticker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static final long DEFAULT_TICK_MS = 10;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickMs;
+    private final long tickNanos;
+    private final long startNanos;
+    private final int mask;
+    private final ArrayDeque<WheelTask>[] buckets;
+    private final Consumer<Runnable> executor;
+
+    //all guarded by this
+    //The last tick whose bucket has been run
+    private long tick;
+    private int waiting;
+    @Nullable
+    private ScheduledFuture<?> ticking;
+    private boolean shutdown;
+    //tasks from before the last cancel are not run, even if they were already taken out of the wheel
+    private volatile int generation;
+
+    /**
+     * Create a wheel running its tasks on the LibGDX main thread
+     */
+    public HashedWheelScheduler() {
+        this(DEFAULT_TICK_MS, DEFAULT_WHEEL_SIZE, runnable -> Gdx.app.postRunnable(runnable));
+    }
+
+    /**
+     * @param tickMs    How many milliseconds each tick is
+     * @param wheelSize How many buckets the wheel has, must be a power of two
+     * @param executor  Where to run due tasks
+     * @throws IllegalArgumentException If {@code tickMs} is not positive or {@code wheelSize} is not a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public HashedWheelScheduler(long tickMs, int wheelSize, @NotNull Consumer<Runnable> executor) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("Tick must be positive, got " + tickMs);
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two, got " + wheelSize);
+        }
+        this.tickMs = tickMs;
+        tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        startNanos = System.nanoTime();
+        this.executor = executor;
+        mask = wheelSize - 1;
+        buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+    @Override
+    public void scheduleSync(@NotNull Runnable runnable, long msDelay) {
+        if (msDelay <= 0) {
+            WheelTask task;
+            synchronized (this) {
+                if (shutdown) {
+                    return;
+                }
+                task = new WheelTask(runnable, tick, generation);
+            }
+            executor.accept(task);
+            return;
+        }
+        long now = System.nanoTime() - startNanos;
+        long due = now + TimeUnit.MILLISECONDS.toNanos(msDelay);
+        synchronized (this) {
+            if (shutdown) {
+                return;
+            }
+            if (ticking == null) {
+                //nothing has been waiting since the last tick, so the ticks in between can be skipped
+                tick = Math.max(tick, now / tickNanos);
+                ticking = TICKER.scheduleAtFixedRate(this::advance, tickMs, tickMs, TimeUnit.MILLISECONDS);
+            }
+            //the first tick starting after the task is due, but never a bucket that has already been run
+            long deadline = Math.max(tick + 1, (due + tickNanos - 1) / tickNanos);
+            buckets[(int) (deadline & mask)].add(new WheelTask(runnable, deadline, generation));
+            waiting++;
+        }
+    }
+
+    private void advance() {
+        List<WheelTask> due = new ArrayList<>();
+        long now = (System.nanoTime() - startNanos) / tickNanos;
+        synchronized (this) {
+            while (tick < now) {
+                tick++;
+                Iterator<WheelTask> iterator = buckets[(int) (tick & mask)].iterator();
+                while (iterator.hasNext()) {
+                    WheelTask task = iterator.next();
+                    //tasks more than one lap away stays in the bucket
+                    if (task.deadline <= tick) {
+                        iterator.remove();
+                        waiting--;
+                        due.add(task);
+                    }
+                }
+            }
+            if (waiting == 0) {
+                stopTicking();
+            }
+        }
+        for (WheelTask task : due) {
+            try {
+                executor.accept(task);
+            } catch (Exception e) {
+                //do not let one task stop the ticking
+                System.err.println("Exception caught in hashed wheel");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void cancelTasks() {
+        generation++;
+        for (ArrayDeque<WheelTask> bucket : buckets) {
+            bucket.clear();
+        }
+        waiting = 0;
+        stopTicking();
+    }
+
+    /**
+     * @return How many tasks are waiting to be run
+     */
+    public synchronized int size() {
+        return waiting;
+    }
+
+    /**
+     * @return If the wheel is ticking on the shared thread, which it only does while tasks are waiting
+     */
+    public synchronized boolean isTicking() {
+        return ticking != null;
+    }
+
+    /**
+     * Stop the wheel, no more tasks will be run
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        cancelTasks();
+    }
+
+    private void stopTicking() {
+        if (ticking != null) {
+            ticking.cancel(false);
+            ticking = null;
+        }
+    }
+
+    private class WheelTask implements Runnable {
+
+        private final Runnable runnable;
+        private final long deadline;
+        private final int scheduledIn;
+
+        private WheelTask(Runnable runnable, long deadline, int scheduledIn) {
+            this.runnable = runnable;
+            this.deadline = deadline;
+            this.scheduledIn = scheduledIn;
+        }
+
+        @Override
+        public void run() {
+            if (generation == scheduledIn) {
+                runnable.run();
+            }
+        }
+    }
+}
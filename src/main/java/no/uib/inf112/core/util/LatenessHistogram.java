@@ -0,0 +1,88 @@
+package no.uib.inf112.core.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How late tasks were run, in buckets of powers of two milliseconds. Bucket {@code 0} holds tasks less than 1 ms late,
+ * bucket {@code i} holds tasks at least {@code 2^(i-1)} and less than {@code 2^i} ms late, and the last bucket holds
+ * everything later than that.
+ */
+public class LatenessHistogram {
+
+    public static final int BUCKETS = 13;
+
+    private final long[] buckets;
+    private long count;
+    private double sumMs;
+    private double sumSquaredMs;
+    private double maxMs;
+
+    public LatenessHistogram() {
+        buckets = new long[BUCKETS];
+    }
+
+    /**
+     * @param latenessNanos How many nanoseconds after it was supposed to run the task was run, negative if it was early
+     */
+    public synchronized void record(long latenessNanos) {
+        double ms = latenessNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        buckets[bucketOf(ms)]++;
+        count++;
+        sumMs += ms;
+        sumSquaredMs += ms * ms;
+        maxMs = count == 1 ? ms : Math.max(maxMs, ms);
+    }
+
+    private static int bucketOf(double ms) {
+        if (ms < 1) {
+            return 0;
+        }
+        //index of highest bit + 1, so [1,2) -> 1, [2,4) -> 2 ...
+        int bucket = 64 - Long.numberOfLeadingZeros((long) ms);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    /**
+     * @param bucket The bucket index
+     * @return The lowest lateness, in milliseconds, of the given bucket
+     */
+    public static long getBucketStartMs(int bucket) {
+        return bucket == 0 ? 0 : 1L << (bucket - 1);
+    }
+
+    /**
+     * @return How many tasks fell into each bucket
+     */
+    public synchronized long[] getBuckets() {
+        return buckets.clone();
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The average lateness in milliseconds
+     */
+    public synchronized double getAverageMs() {
+        return count == 0 ? 0 : sumMs / count;
+    }
+
+    /**
+     * @return The highest lateness in milliseconds
+     */
+    public synchronized double getMaxMs() {
+        return maxMs;
+    }
+
+    /**
+     * @return The standard deviation of the lateness in milliseconds
+     */
+    public synchronized double getJitterMs() {
+        if (count == 0) {
+            return 0;
+        }
+        double avg = sumMs / count;
+        return Math.sqrt(Math.max(0, sumSquaredMs / count - avg * avg));
+    }
+}
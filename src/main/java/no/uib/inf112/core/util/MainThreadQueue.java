@@ -0,0 +1,111 @@
+package no.uib.inf112.core.util;
+
+import com.badlogic.gdx.Gdx;
+import no.uib.inf112.core.map.MapHandler;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tasks waiting to be run on the LibGDX main thread. Any thread can post tasks without locking, and only one
+ * {@link com.badlogic.gdx.Application#postRunnable(Runnable)} is waiting at any time to run all of them in the order
+ * they were posted. If running the tasks takes longer than the time budget the rest is left for the next frame.
+ * <p>
+ * Map updates requested while tasks are waiting are merged into one, which is done before the next task is run.
+ */
+public class MainThreadQueue {
+
+    public static final long DEFAULT_BUDGET_MS = 4;
+
+    private final ConcurrentLinkedQueue<Runnable> tasks;
+    private final AtomicBoolean drainPosted;
+    private final AtomicReference<MapHandler> pendingUpdate;
+    private final long budgetNanos;
+
+    public MainThreadQueue() {
+        this(DEFAULT_BUDGET_MS);
+    }
+
+    /**
+     * @param budgetMs How many milliseconds each frame can be spent running tasks
+     */
+    public MainThreadQueue(long budgetMs) {
+        tasks = new ConcurrentLinkedQueue<>();
+        drainPosted = new AtomicBoolean();
+        pendingUpdate = new AtomicReference<>();
+        budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMs);
+    }
+
+    /**
+     * Run the given task on the main thread after every task posted before it
+     *
+     * @param runnable What to do
+     */
+    public void post(@NotNull Runnable runnable) {
+        tasks.add(runnable);
+        postDrain();
+    }
+
+    /**
+     * Update the given map before the next task is run. Several requests before then result in a single update.
+     *
+     * @param map The map to update
+     */
+    public void requestMapUpdate(@NotNull MapHandler map) {
+        if (pendingUpdate.getAndSet(map) == null) {
+            postDrain();
+        }
+    }
+
+    /**
+     * @return How many tasks are waiting to be run
+     */
+    public int size() {
+        return tasks.size();
+    }
+
+    /**
+     * Remove every task and map update not yet run
+     */
+    public void clear() {
+        tasks.clear();
+        pendingUpdate.set(null);
+    }
+
+    private void postDrain() {
+        if (drainPosted.compareAndSet(false, true)) {
+            Gdx.app.postRunnable(this::drain);
+        }
+    }
+
+    private void runPendingUpdate() {
+        MapHandler map = pendingUpdate.getAndSet(null);
+        if (map != null) {
+            map.update(0);
+        }
+    }
+
+    private void drain() {
+        long deadline = System.nanoTime() + budgetNanos;
+        try {
+            Runnable runnable;
+            while ((runnable = tasks.poll()) != null) {
+                runPendingUpdate();
+                runnable.run();
+                if (System.nanoTime() - deadline > 0) {
+                    break;
+                }
+            }
+            runPendingUpdate();
+        } finally {
+            drainPosted.set(false);
+            //continue next frame if we ran out of time, or tasks were posted while we were finishing up
+            if (!tasks.isEmpty() || pendingUpdate.get() != null) {
+                postDrain();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package no.uib.inf112.core.util;
+
+import no.uib.inf112.core.map.MapHandler;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Run tasks on the LibGDX main thread following the wall clock. Tasks without a delay are put directly in the main
+ * thread queue, delayed tasks wait on the given thread scheduler first.
+ */
+public class RealTimeScheduler implements GameScheduler {
+
+    private final CancellableThreadScheduler timer;
+    private final MainThreadQueue mainThread;
+    //delayed tasks from before the last cancel are not run, even if they were already on their way to the main thread
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /**
+     * @param timer The thread to wait for delayed tasks on
+     */
+    public RealTimeScheduler(@NotNull CancellableThreadScheduler timer) {
+        this(timer, MainThreadQueue.DEFAULT_BUDGET_MS);
+    }
+
+    /**
+     * @param timer    The thread to wait for delayed tasks on
+     * @param budgetMs How many milliseconds each frame can be spent running tasks
+     */
+    public RealTimeScheduler(@NotNull CancellableThreadScheduler timer, long budgetMs) {
+        this.timer = timer;
+        mainThread = new MainThreadQueue(budgetMs);
+    }
+
+    @Override
+    public void scheduleSync(@NotNull Runnable runnable, long msDelay) {
+        if (msDelay <= 0) {
+            mainThread.post(runnable);
+        } else {
+            int scheduledIn = generation.get();
+            timer.scheduleAsync(() -> mainThread.post(() -> {
+                if (generation.get() == scheduledIn) {
+                    runnable.run();
+                }
+            }), msDelay);
+        }
+    }
+
+    @Override
+    public void cancelTasks() {
+        generation.incrementAndGet();
+        timer.cancelTasks();
+        mainThread.clear();
+    }
+
+    @Override
+    public void requestMapUpdate(@NotNull MapHandler map) {
+        mainThread.requestMapUpdate(map);
+    }
+}
@@ -0,0 +1,139 @@
+package no.uib.inf112.core.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.PriorityQueue;
+
+/**
+ * Run tasks on a virtual clock instead of waiting for real time to pass. Tasks are run on the thread calling
+ * {@link #runNext()}, {@link #runFor(long)} or {@link #runUntilIdle(int)}, in the order of when they are due. Tasks
+ * due at the same time run in the order they were scheduled.
+ * <p>
+ * This class is not thread safe, every task must be scheduled from the thread running the simulation.
+ */
+public class SimulationScheduler implements GameScheduler {
+
+    private final PriorityQueue<Task> tasks;
+    //Tasks already run, reused so a long simulation does not create a task for everything it schedules
+    private final ArrayDeque<Task> freeTasks;
+    private long time;
+    private long scheduled;
+
+    public SimulationScheduler() {
+        tasks = new PriorityQueue<>();
+        freeTasks = new ArrayDeque<>();
+    }
+
+    /**
+     * @param runnable What to do
+     * @param msDelay  How many virtual milliseconds to wait before running the task
+     */
+    @Override
+    public void scheduleSync(@NotNull Runnable runnable, long msDelay) {
+        Task task = freeTasks.poll();
+        if (task == null) {
+            task = new Task();
+        }
+        task.runnable = runnable;
+        task.time = time + Math.max(0, msDelay);
+        task.order = scheduled++;
+        tasks.add(task);
+    }
+
+    /**
+     * Run the next task and move the clock forward to when it was due
+     *
+     * @return {@code false} if there was no task to run
+     */
+    public boolean runNext() {
+        Task task = tasks.poll();
+        if (task == null) {
+            return false;
+        }
+        time = task.time;
+        Runnable runnable = task.runnable;
+        task.runnable = null;
+        freeTasks.push(task);
+        runnable.run();
+        return true;
+    }
+
+    /**
+     * Run every task due within the given amount of milliseconds, including tasks scheduled by these tasks. The clock
+     * will be moved forward by the given amount.
+     *
+     * @param ms How many virtual milliseconds to move forward
+     * @return How many tasks were run
+     */
+    public int runFor(long ms) {
+        long end = time + ms;
+        int ran = 0;
+        while (!tasks.isEmpty() && tasks.peek().time <= end) {
+            runNext();
+            ran++;
+        }
+        time = end;
+        return ran;
+    }
+
+    /**
+     * Run tasks until there are no more left
+     *
+     * @param maxTasks The maximum number of tasks to run, to guard against tasks that keep scheduling new tasks
+     * @return How many tasks were run
+     * @throws IllegalStateException If there are still tasks left after running {@code maxTasks} tasks
+     */
+    public int runUntilIdle(int maxTasks) {
+        int ran = 0;
+        while (!tasks.isEmpty()) {
+            if (ran >= maxTasks) {
+                throw new IllegalStateException("Simulation did not become idle after " + maxTasks + " tasks");
+            }
+            runNext();
+            ran++;
+        }
+        return ran;
+    }
+
+    @Override
+    public void cancelTasks() {
+        for (Task task : tasks) {
+            task.runnable = null;
+            freeTasks.push(task);
+        }
+        tasks.clear();
+    }
+
+    @Override
+    public boolean isVirtual() {
+        return true;
+    }
+
+    /**
+     * @return How many tasks are waiting to be run
+     */
+    public int size() {
+        return tasks.size();
+    }
+
+    /**
+     * @return The current virtual time in milliseconds since this scheduler was created
+     */
+    public long getTime() {
+        return time;
+    }
+
+    private static class Task implements Comparable<Task> {
+
+        private Runnable runnable;
+        private long time;
+        private long order;
+
+        @Override
+        public int compareTo(@NotNull Task other) {
+            int cmp = Long.compare(time, other.time);
+            return cmp != 0 ? cmp : Long.compare(order, other.order);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package no.uib.inf112.core.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records when scheduled tasks were supposed to run and when they actually ran, grouped by a tag such as the phase that
+ * scheduled them. Tasks scheduled while a tagged task is running gets the same tag, so a robot moving during the
+ * player phase is counted as part of the player phase.
+ * <p>
+ * Nothing is recorded unless enabled.
+ */
+public final class TaskMetrics {
+
+    public static final String UNTAGGED = "Untagged";
+
+    private static final Map<String, LatenessHistogram> histograms = new ConcurrentHashMap<>();
+    private static final ThreadLocal<String> currentTag = new ThreadLocal<>();
+    private static volatile boolean enabled;
+
+    private TaskMetrics() {
+    }
+
+    /**
+     * @param runnable The task to measure
+     * @param msDelay  How many milliseconds from now the task is supposed to run
+     * @param tag      What to count the task as, if {@code null} the tag of the task currently running is used
+     * @return A task recording its lateness before running the given task, or the given task itself if not enabled
+     */
+    @NotNull
+    public static Runnable instrument(@NotNull Runnable runnable, long msDelay, @Nullable String tag) {
+        if (!enabled) {
+            return runnable;
+        }
+        String taskTag = tag != null ? tag : getCurrentTag();
+        long intended = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, msDelay));
+        return () -> {
+            histograms.computeIfAbsent(taskTag, k -> new LatenessHistogram()).record(System.nanoTime() - intended);
+            String previous = currentTag.get();
+            currentTag.set(taskTag);
+            try {
+                runnable.run();
+            } finally {
+                currentTag.set(previous);
+            }
+        };
+    }
+
+    /**
+     * @return The tag of the task currently running on this thread
+     */
+    @NotNull
+    public static String getCurrentTag() {
+        String tag = currentTag.get();
+        return tag != null ? tag : UNTAGGED;
+    }
+
+    /**
+     * @return All histograms sorted by their tag
+     */
+    @NotNull
+    public static Map<String, LatenessHistogram> getHistograms() {
+        return Collections.unmodifiableMap(new TreeMap<>(histograms));
+    }
+
+    /**
+     * Forget everything recorded so far
+     */
+    public static void reset() {
+        histograms.clear();
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        TaskMetrics.enabled = enabled;
+    }
+
+    /**
+     * @return A human readable table of the lateness of every tag
+     */
+    @NotNull
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-20s %7s %8s %8s %8s%n", "Lateness (ms)", "count", "avg", "max", "jitter"));
+        for (Map.Entry<String, LatenessHistogram> entry : getHistograms().entrySet()) {
+            LatenessHistogram hist = entry.getValue();
+            sb.append(String.format("%-20s %7d %8.2f %8.2f %8.2f%n", entry.getKey(), hist.getCount(),
+                    hist.getAverageMs(), hist.getMaxMs(), hist.getJitterMs()));
+
+            long[] buckets = hist.getBuckets();
+            sb.append("   ");
+            for (int i = 0; i < buckets.length; i++) {
+                if (buckets[i] > 0) {
+                    sb.append(" >=").append(LatenessHistogram.getBucketStartMs(i)).append(':').append(buckets[i]);
+                }
+            }
+            sb.append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+}
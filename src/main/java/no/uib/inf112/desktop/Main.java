@@ -3,6 +3,7 @@ package no.uib.inf112.desktop;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 import no.uib.inf112.core.GameGraphics;
+import no.uib.inf112.core.map.CompiledMap;
 
 
 public class Main {
@@ -15,6 +16,9 @@ public class Main {
         cfg.samples = 16; //max out the samples as this isn't a very heavy game.
         cfg.backgroundFPS = 10;
 
+        //load maps faster after the first time they are played
+        CompiledMap.setCacheFolder(CompiledMap.DEFAULT_CACHE_FOLDER);
+
         new LwjglApplication(new GameGraphics(), cfg);
     }
 }
@@ -0,0 +1,276 @@
+package no.uib.inf112.core.map;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.FileTextureData;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import no.uib.inf112.core.map.tile.TileType;
+import no.uib.inf112.core.map.tile.api.Tile;
+import no.uib.inf112.core.testutils.HeadlessMapHandler;
+import no.uib.inf112.desktop.TestGraphics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class CompiledMapTest extends TestGraphics {
+
+    private static final String ROUND_MAP = TEST_MAP_FOLDER + File.separatorChar + "round_test_map.tmx";
+    private static final String LASER_MAP = TEST_MAP_FOLDER + File.separatorChar + "laser_test_map.tmx";
+
+    private Path cacheFolder;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheFolder = Files.createTempDirectory("maps");
+        CompiledMap.setCacheFolder(cacheFolder);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        CompiledMap.setCacheFolder(null);
+        try (Stream<Path> files = Files.walk(cacheFolder)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    /**
+     * @return The given map loaded from the Tiled map file
+     */
+    private GameMap loadFromTmx(String path) {
+        GameMap map = new HeadlessMapHandler(path);
+        assertFalse(map.isLoadedFromCache());
+        return map;
+    }
+
+    /**
+     * @return The given map loaded from the Tiled map file, which is now cached
+     */
+    private GameMap cache(String path) {
+        GameMap map = loadFromTmx(path);
+        assertTrue(CompiledMap.compileAndCache(map, path));
+        return map;
+    }
+
+    private static String texturePath(TextureRegion region) {
+        Texture texture = region.getTexture();
+        return Paths.get(((FileTextureData) texture.getTextureData()).getFileHandle().path()).normalize().toString();
+    }
+
+    private CompiledMap writeAndRead(CompiledMap compiled) throws IOException {
+        Path file = Files.createTempFile("compiled", CompiledMap.EXTENSION);
+        try {
+            compiled.write(file);
+            return CompiledMap.read(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void compiledMapAgreesWithLoadedMap() throws IOException {
+        GameMap map = loadFromTmx(ROUND_MAP);
+        CompiledMap compiled = writeAndRead(CompiledMap.compile(map, ROUND_MAP));
+
+        assertEquals(ROUND_MAP.replace(File.separatorChar, '/'), compiled.getSources().get(0));
+        assertTrue(compiled.getSources().contains("tiles_tileset.tsx"));
+        assertTrue(compiled.getSources().contains("art/tiles.png"));
+        assertEquals(map.getMapWidth(), compiled.getWidth());
+        assertEquals(map.getMapHeight(), compiled.getHeight());
+        for (String layerName : CompiledMap.LAYER_NAMES) {
+            TiledMapTileLayer layer = map.getLayer(layerName);
+            for (int x = 0; x < map.getMapWidth(); x++) {
+                for (int y = 0; y < map.getMapHeight(); y++) {
+                    TiledMapTileLayer.Cell cell = layer == null ? null : layer.getCell(x, y);
+                    int id = cell == null ? 0 : cell.getTile().getId();
+                    assertEquals(layerName + " at (" + x + ", " + y + ")", id, compiled.getTileId(layerName, x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void loadingAMapDoesNotCacheIt() {
+        loadFromTmx(ROUND_MAP);
+        assertFalse(Files.exists(CompiledMap.cacheFile(ROUND_MAP)));
+        assertNull(CompiledMap.loadCached(ROUND_MAP));
+    }
+
+    @Test
+    public void nothingIsCachedWithoutACacheFolder() {
+        CompiledMap.setCacheFolder(null);
+        GameMap map = loadFromTmx(ROUND_MAP);
+        assertFalse(CompiledMap.compileAndCache(map, ROUND_MAP));
+        assertNull(CompiledMap.cacheFile(ROUND_MAP));
+        assertNull(CompiledMap.loadCached(ROUND_MAP));
+    }
+
+    @Test
+    public void cachedMapHasTheSameTilesAsTheTiledMap() {
+        assertSameBoard(ROUND_MAP);
+    }
+
+    @Test
+    public void cachedMapHasTheSameLasersAsTheTiledMap() {
+        assertSameBoard(LASER_MAP);
+    }
+
+    @Test
+    public void mapLoadedWithoutTexturesHasTheSameTilesAsTheTiledMap() {
+        GameMap fromTmx = loadFromTmx(LASER_MAP);
+        GameMap withoutTextures = new HeadlessMapHandler(LASER_MAP, false);
+        assertFalse(withoutTextures.hasTextures());
+        assertSameBoard(fromTmx, withoutTextures);
+        for (TiledMapTileSet expectedSet : fromTmx.getMapTileSets()) {
+            TiledMapTileSet actualSet = withoutTextures.getMapTileSets().getTileSet(expectedSet.getName());
+            assertNotNull(expectedSet.getName(), actualSet);
+            assertEquals(expectedSet.size(), actualSet.size());
+            for (TiledMapTile expected : expectedSet) {
+                assertNotNull(actualSet.getTile(expected.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void mapLoadedWithoutTexturesIsNotCached() {
+        GameMap map = new HeadlessMapHandler(ROUND_MAP, false);
+        assertFalse(CompiledMap.compileAndCache(map, ROUND_MAP));
+        assertNull(CompiledMap.loadCached(ROUND_MAP));
+    }
+
+    /**
+     * Check that everything found from the tiles of the board is the same when the map is loaded from the cache
+     */
+    private void assertSameBoard(String path) {
+        GameMap fromTmx = cache(path);
+        GameMap fromCache = new HeadlessMapHandler(path);
+        assertTrue(fromCache.isLoadedFromCache());
+        assertSameBoard(fromTmx, fromCache);
+    }
+
+    /**
+     * Check that everything found from the tiles of the board is the same for both maps
+     */
+    private void assertSameBoard(GameMap expectedMap, GameMap actualMap) {
+
+        assertEquals(expectedMap.getMapWidth(), actualMap.getMapWidth());
+        assertEquals(expectedMap.getMapHeight(), actualMap.getMapHeight());
+        assertEquals(expectedMap.getTileWidth(), actualMap.getTileWidth());
+        assertEquals(expectedMap.getTileHeight(), actualMap.getTileHeight());
+        for (String layerName : CompiledMap.LAYER_NAMES) {
+            for (int x = 0; x < expectedMap.getMapWidth(); x++) {
+                for (int y = 0; y < expectedMap.getMapHeight(); y++) {
+                    Tile expected = expectedMap.getTile(layerName, x, y);
+                    Tile actual = actualMap.getTile(layerName, x, y);
+                    if (expected == null) {
+                        assertNull(actual);
+                    } else {
+                        assertNotNull(layerName + " at (" + x + ", " + y + ")", actual);
+                        assertEquals(expected.getTileType(), actual.getTileType());
+                        assertEquals(expected.getClass(), actual.getClass());
+                    }
+                    assertEquals(expectedMap.getWallMask(x, y), actualMap.getWallMask(x, y));
+                }
+            }
+        }
+        for (TileType type : TileType.values()) {
+            List<Tile> expected = expectedMap.getTiles(type);
+            List<Tile> actual = actualMap.getTiles(type);
+            assertEquals(type.toString(), expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getX(), actual.get(i).getX());
+                assertEquals(expected.get(i).getY(), actual.get(i).getY());
+            }
+        }
+
+        List<LaserBeam> expected = expectedMap.getLaserBeams();
+        List<LaserBeam> actual = actualMap.getLaserBeams();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getOrigin().getX(), actual.get(i).getOrigin().getX());
+            assertEquals(expected.get(i).getOrigin().getY(), actual.get(i).getOrigin().getY());
+            assertEquals(expected.get(i).getDirection(), actual.get(i).getDirection());
+            assertEquals(expected.get(i).getPath().size(), actual.get(i).getPath().size());
+        }
+    }
+
+    @Test
+    public void compiledTexturesAgreeWithTiledMap() throws IOException {
+        GameMap map = loadFromTmx(ROUND_MAP);
+        TiledMap rendered = writeAndRead(CompiledMap.compile(map, ROUND_MAP)).toTiledMap(true);
+        try {
+            for (TiledMapTileSet expectedSet : map.getMapTileSets()) {
+                TiledMapTileSet actualSet = rendered.getTileSets().getTileSet(expectedSet.getName());
+                assertNotNull(expectedSet.getName(), actualSet);
+                for (TiledMapTile expectedTile : expectedSet) {
+                    TextureRegion expected = expectedTile.getTextureRegion();
+                    TextureRegion actual = actualSet.getTile(expectedTile.getId()).getTextureRegion();
+                    assertEquals(texturePath(expected), texturePath(actual));
+                    assertEquals(expected.getRegionX(), actual.getRegionX());
+                    assertEquals(expected.getRegionY(), actual.getRegionY());
+                    assertEquals(expected.getRegionWidth(), actual.getRegionWidth());
+                    assertEquals(expected.getRegionHeight(), actual.getRegionHeight());
+                }
+            }
+        } finally {
+            rendered.dispose();
+        }
+    }
+
+    @Test
+    public void compiledMapLoadsFasterThanTiledMap() {
+        cache(LASER_MAP);
+        assertNotNull(CompiledMap.loadCached(LASER_MAP));
+
+        //the JIT might still be compiling, so only the best measurement counts
+        long tiled = Long.MAX_VALUE;
+        long compiled = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < 5; attempt++) {
+            long start = System.nanoTime();
+            //only parsing the Tiled map, not even finding the tiles of the board
+            new TmxMapLoader().load(LASER_MAP).dispose();
+            long afterTiled = System.nanoTime();
+            new HeadlessMapHandler(LASER_MAP);
+            long afterCompiled = System.nanoTime();
+
+            tiled = Math.min(tiled, afterTiled - start);
+            compiled = Math.min(compiled, afterCompiled - afterTiled);
+        }
+        assertTrue("Loading the compiled map took " + compiled + " ns, parsing the Tiled map " + tiled + " ns", compiled < tiled);
+    }
+
+    @Test
+    public void staleCacheIsNotUsed() throws IOException, URISyntaxException {
+        cache(ROUND_MAP);
+        CompiledMap compiled = CompiledMap.loadCached(ROUND_MAP);
+        assertNotNull(compiled);
+
+        for (String source : compiled.getSources()) {
+            Path file = Paths.get(CompiledMapTest.class.getResource("/" + source).toURI());
+            FileTime modified = Files.getLastModifiedTime(file);
+            try {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + 1000));
+                assertNull(source + " was modified", CompiledMap.loadCached(ROUND_MAP));
+            } finally {
+                Files.setLastModifiedTime(file, modified);
+            }
+            assertNotNull(CompiledMap.loadCached(ROUND_MAP));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package no.uib.inf112.core.map;
+
+import no.uib.inf112.core.GameGraphics;
+import no.uib.inf112.core.map.tile.Attribute;
+import no.uib.inf112.core.map.tile.TileType;
+import no.uib.inf112.core.map.tile.api.Tile;
+import no.uib.inf112.core.map.tile.tiles.ConveyorTile;
+import no.uib.inf112.desktop.TestGraphics;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class ConveyorGraphTest extends TestGraphics {
+
+    private static MapHandler map;
+    private static ConveyorGraph graph;
+
+    @BeforeClass
+    public static void setUp() {
+        map = GameGraphics.createRoboRally(TEST_MAP_FOLDER + File.separatorChar + "conveyor_complex_rotation_test_map.tmx", 1).getCurrentMap();
+        graph = map.getConveyorGraph();
+    }
+
+    @Test
+    public void cellIndexRoundTrip() {
+        for (int x = 0; x < map.getMapWidth(); x++) {
+            for (int y = 0; y < map.getMapHeight(); y++) {
+                int cell = graph.cellIndex(x, y);
+                assertEquals(x, graph.getX(cell));
+                assertEquals(y, graph.getY(cell));
+            }
+        }
+    }
+
+    @Test
+    public void cellOutsideMapHasNoConveyor() {
+        assertEquals(ConveyorGraph.NO_SUCCESSOR, graph.cellIndex(-1, 0));
+        assertEquals(ConveyorGraph.NO_SUCCESSOR, graph.cellIndex(0, map.getMapHeight()));
+        assertNull(graph.getConveyor(ConveyorGraph.NO_SUCCESSOR));
+        assertEquals(ConveyorGraph.NO_SUCCESSOR, graph.getSuccessor(ConveyorGraph.NO_SUCCESSOR));
+    }
+
+    @Test
+    public void conveyorsPointToTheirSuccessor() {
+        int conveyors = 0;
+        for (int x = 0; x < map.getMapWidth(); x++) {
+            for (int y = 0; y < map.getMapHeight(); y++) {
+                int cell = graph.cellIndex(x, y);
+                Tile tile = map.getTile(MapHandler.BOARD_LAYER_NAME, x, y);
+                if (tile == null || (tile.getTileType() != TileType.CONVEYOR && tile.getTileType() != TileType.ROTATION_CONVEYOR)) {
+                    assertNull(graph.getConveyor(cell));
+                    assertEquals(ConveyorGraph.NO_SUCCESSOR, graph.getSuccessor(cell));
+                    continue;
+                }
+                conveyors++;
+                ConveyorTile conveyor = (ConveyorTile) tile;
+                assertSame(conveyor, graph.getConveyor(cell));
+                assertEquals(tile.hasAttribute(Attribute.HIGH_PRIORITY), graph.isExpress(cell));
+                assertEquals(tile.getTileType() == TileType.ROTATION_CONVEYOR, graph.isRotating(cell));
+
+                int nextX = x + conveyor.getDirection().getDx();
+                int nextY = y + conveyor.getDirection().getDy();
+                assertEquals(graph.cellIndex(nextX, nextY), graph.getSuccessor(cell));
+            }
+        }
+        assertTrue(conveyors > 0);
+    }
+}
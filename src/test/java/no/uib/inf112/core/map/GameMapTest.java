@@ -4,24 +4,31 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import no.uib.inf112.core.GameGraphics;
 import no.uib.inf112.core.RoboRally;
+import no.uib.inf112.core.map.tile.TileGraphic;
 import no.uib.inf112.core.map.tile.TileType;
+import no.uib.inf112.core.map.tile.api.CollidableTile;
 import no.uib.inf112.core.map.tile.api.Tile;
+import no.uib.inf112.core.map.tile.tiles.LaserTile;
 import no.uib.inf112.core.player.Entity;
 import no.uib.inf112.core.player.IPlayer;
 import no.uib.inf112.core.player.Player;
 import no.uib.inf112.core.util.ComparableTuple;
 import no.uib.inf112.core.util.Direction;
-import no.uib.inf112.core.util.UVector2Int;
+import no.uib.inf112.core.util.Vector2Int;
 import no.uib.inf112.desktop.TestGraphics;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
 import java.util.List;
-import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class GameMapTest extends TestGraphics {
 
@@ -67,11 +74,12 @@ public class GameMapTest extends TestGraphics {
 
     @Test
     public void getTileTestPlayer(){
-        GameMap gameMap = (GameMap) roboRally.getCurrentMap();
+        MapHandler map = roboRally.getCurrentMap();
         player.setDirection(Direction.SOUTH);
-        Map<UVector2Int, Entity> map = gameMap.getEntities();
-        assertEquals(TileType.ROBOT, map.get(new UVector2Int(0,0)).getTileType());
-        assertEquals(Direction.SOUTH,  map.get(new UVector2Int(0,0)).getDirection());
+        Tile tile = map.getTile(MapHandler.ENTITY_LAYER_NAME, 0, 0);
+        assertTrue(tile instanceof Entity);
+        assertEquals(TileType.ROBOT, tile.getTileType());
+        assertEquals(Direction.SOUTH, ((Entity) tile).getDirection());
     }
 
     @Test
@@ -85,4 +93,182 @@ public class GameMapTest extends TestGraphics {
 
         assertEquals(TileType.VOID, list.get(0).getTileType());
     }
+
+    @Test
+    public void getAllTilesBufferSameAsList() {
+        MapHandler map = roboRally.getCurrentMap();
+        Tile[] buffer = new Tile[MapHandler.MAX_TILES_PER_POSITION];
+        for (int x = 0; x < map.getMapWidth(); x++) {
+            for (int y = 0; y < map.getMapHeight(); y++) {
+                List<Tile> list = map.getAllTiles(x, y);
+                int found = map.getAllTiles(x, y, buffer);
+                assertEquals(list.size(), found);
+                for (int i = 0; i < found; i++) {
+                    assertSame(list.get(i), buffer[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void getTilesFindsEveryTileOfType() {
+        MapHandler map = roboRally.getCurrentMap();
+        for (TileType type : TileType.values()) {
+            if (type == TileType.ROBOT) {
+                continue;
+            }
+            int expected = 0;
+            for (int x = 0; x < map.getMapWidth(); x++) {
+                for (int y = 0; y < map.getMapHeight(); y++) {
+                    for (Tile tile : map.getAllTiles(x, y)) {
+                        if (tile.getTileType() == type) {
+                            expected++;
+                        }
+                    }
+                }
+            }
+            List<Tile> tiles = map.getTiles(type);
+            assertEquals(expected, tiles.size());
+            for (Tile tile : tiles) {
+                assertEquals(type, tile.getTileType());
+            }
+        }
+    }
+
+    @Test
+    public void getTilesOfEntityTypeFindsEntities() {
+        List<Tile> robots = roboRally.getCurrentMap().getTiles(TileType.ROBOT);
+        assertEquals(1, robots.size());
+        assertSame(player, robots.get(0));
+    }
+
+    @Test
+    public void tileGraphicIsFromCurrentMap() {
+        MapHandler map = GameGraphics.getRoboRally().getCurrentMap();
+        assertSame(map.getMapTileSets().getTileSet("tiles").getTile(TileGraphic.VOID_TILE.getId()), TileGraphic.VOID_TILE.getTile());
+
+        MapHandler newMap = GameGraphics.createRoboRally(TEST_MAP_FOLDER + File.separatorChar + "laser_test_map.tmx", 1).getCurrentMap();
+        assertSame(newMap.getMapTileSets().getTileSet("tiles").getTile(TileGraphic.VOID_TILE.getId()), TileGraphic.VOID_TILE.getTile());
+    }
+
+    @Test
+    public void getTileOutsideBoardIsNull() {
+        MapHandler map = roboRally.getCurrentMap();
+        assertNull(map.getTile(MapHandler.BOARD_LAYER_NAME, -1, 0));
+        assertNull(map.getTile(MapHandler.BOARD_LAYER_NAME, 0, map.getMapHeight()));
+        assertEquals(0, map.getAllTiles(map.getMapWidth(), 0, new Tile[MapHandler.MAX_TILES_PER_POSITION]));
+    }
+
+    @Test
+    public void crossingEntityLasersBecomeCross() {
+        MapHandler map = roboRally.getCurrentMap();
+        map.addEntityLaser(new LaserTile(new Vector2Int(0, 1), TileGraphic.LASER_VERTICAL, Color.WHITE));
+        map.addEntityLaser(new LaserTile(new Vector2Int(0, 1), TileGraphic.LASER_HORIZONTAL, Color.WHITE));
+
+        Tile laser = map.getTile(MapHandler.ENITTY_LASER_LAYER_NAME, 0, 1);
+        assertNotNull(laser);
+        assertEquals(TileGraphic.LASER_CROSS.getTile(), laser.getTile());
+
+        map.removeEntityLasers();
+        assertNull(map.getTile(MapHandler.ENITTY_LASER_LAYER_NAME, 0, 1));
+    }
+
+    @Test
+    public void entityLaserOutsideBoardIsIgnored() {
+        MapHandler map = roboRally.getCurrentMap();
+        map.addEntityLaser(new LaserTile(new Vector2Int(-1, 0), TileGraphic.LASER_VERTICAL, Color.WHITE));
+        map.addEntityLaser(new LaserTile(new Vector2Int(0, map.getMapHeight()), TileGraphic.LASER_VERTICAL, Color.WHITE));
+        map.removeEntityLasers();
+    }
+
+    @Test
+    public void movedEntityKeepsItsCell() {
+        MapHandler map = roboRally.getCurrentMap();
+        TiledMapTileLayer layer = map.getLayer(MapHandler.ENTITY_LAYER_NAME);
+        assertNotNull(layer);
+        map.update(0);
+        TiledMapTileLayer.Cell cell = layer.getCell(0, 0);
+        assertNotNull(cell);
+
+        player.teleport(0, 2);
+        map.update(0);
+        assertNull(layer.getCell(0, 0));
+        assertSame(cell, layer.getCell(0, 2));
+        assertSame(player, map.getTile(MapHandler.ENTITY_LAYER_NAME, 0, 2));
+        assertFalse(player.shouldUpdate());
+    }
+
+    @Test
+    public void removedEntityIsNotRedrawn() {
+        MapHandler map = roboRally.getCurrentMap();
+        TiledMapTileLayer layer = map.getLayer(MapHandler.ENTITY_LAYER_NAME);
+        assertNotNull(layer);
+        map.update(0);
+
+        player.teleport(0, 2);
+        map.removeEntity(player);
+        map.update(0);
+        assertNull(layer.getCell(0, 0));
+        assertNull(layer.getCell(0, 2));
+        assertNull(map.getTile(MapHandler.ENTITY_LAYER_NAME, 0, 2));
+    }
+
+    @Test
+    public void entityLookupAgreesWithEntityPositions() {
+        MapHandler map = roboRally.getCurrentMap();
+        player.teleport(0, 2);
+        map.update(0);
+        int found = 0;
+        for (int x = 0; x < map.getMapWidth(); x++) {
+            for (int y = 0; y < map.getMapHeight(); y++) {
+                Tile tile = map.getTile(MapHandler.ENTITY_LAYER_NAME, x, y);
+                if (tile != null) {
+                    found++;
+                    assertEquals(x, tile.getX());
+                    assertEquals(y, tile.getY());
+                }
+            }
+        }
+        assertEquals(map.getAllEntities().size(), found);
+        assertNull(map.getTile(MapHandler.ENTITY_LAYER_NAME, 0, 0));
+        assertSame(player, map.getTile(MapHandler.ENTITY_LAYER_NAME, 0, 2));
+    }
+
+    @Test
+    public void removedEntityIsNotInAllEntities() {
+        MapHandler map = roboRally.getCurrentMap();
+        assertTrue(map.getAllEntities().contains(player));
+        map.removeEntity(player);
+        for (Entity entity : map.getAllEntities()) {
+            assertNotSame(player, entity);
+        }
+    }
+
+    @Test
+    public void wallMaskAgreesWithWalls() {
+        for (String mapName : new String[]{"player_wall_test_map.tmx", "pusher_test_map.tmx"}) {
+            MapHandler map = GameGraphics.createRoboRally(TEST_MAP_FOLDER + File.separatorChar + mapName, 1).getCurrentMap();
+            for (int x = 0; x < map.getMapWidth(); x++) {
+                for (int y = 0; y < map.getMapHeight(); y++) {
+                    for (Direction dir : Direction.values()) {
+                        boolean blocked = false;
+                        for (Tile tile : map.getAllTiles(x, y)) {
+                            if (!(tile instanceof Entity) && tile.hasSuperClass(CollidableTile.class)) {
+                                blocked |= ((CollidableTile) tile).willCollide(tile, dir);
+                            }
+                        }
+                        assertEquals("(" + x + ", " + y + ") " + dir + " on " + mapName, blocked, !map.canLeave(x, y, dir));
+                        assertEquals(map.canLeave(x, y, dir.inverse()), map.canEnter(x, y, dir));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void wallMaskOutsideMapIsEmpty() {
+        MapHandler map = roboRally.getCurrentMap();
+        assertEquals(0, map.getWallMask(-1, 0));
+        assertEquals(0, map.getWallMask(0, map.getMapHeight()));
+    }
 }
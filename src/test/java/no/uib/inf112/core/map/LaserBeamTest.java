@@ -0,0 +1,61 @@
+package no.uib.inf112.core.map;
+
+import no.uib.inf112.core.GameGraphics;
+import no.uib.inf112.core.map.tile.Attribute;
+import no.uib.inf112.core.map.tile.api.Tile;
+import no.uib.inf112.core.map.tile.tiles.LaserTile;
+import no.uib.inf112.desktop.TestGraphics;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class LaserBeamTest extends TestGraphics {
+
+    private static MapHandler map;
+
+    @BeforeClass
+    public static void setUp() {
+        map = GameGraphics.createRoboRally(TEST_MAP_FOLDER + File.separatorChar + "laser_test_map.tmx", 1).getCurrentMap();
+    }
+
+    @Test
+    public void everyLaserWallHasABeam() {
+        int walls = 0;
+        for (int x = 0; x < map.getMapWidth(); x++) {
+            for (int y = 0; y < map.getMapHeight(); y++) {
+                Tile tile = map.getTile(MapHandler.COLLIDABLES_LAYER_NAME, x, y);
+                if (tile != null && tile.hasAttribute(Attribute.SHOOTS_LASER)) {
+                    walls++;
+                }
+            }
+        }
+        assertEquals(walls, map.getLaserBeams().size());
+    }
+
+    @Test
+    public void beamStartsAtWallAndFollowsDirection() {
+        for (LaserBeam beam : map.getLaserBeams()) {
+            assertFalse(beam.getPath().isEmpty());
+            LaserTile first = beam.getPath().get(0);
+            assertEquals(beam.getOrigin().getX(), first.getX());
+            assertEquals(beam.getOrigin().getY(), first.getY());
+
+            for (int i = 1; i < beam.getPath().size(); i++) {
+                LaserTile prev = beam.getPath().get(i - 1);
+                LaserTile curr = beam.getPath().get(i);
+                assertEquals(prev.getX() + beam.getDirection().getDx(), curr.getX());
+                assertEquals(prev.getY() + beam.getDirection().getDy(), curr.getY());
+            }
+        }
+    }
+
+    @Test
+    public void doubleLaserDoesDoubleDamage() {
+        for (LaserBeam beam : map.getLaserBeams()) {
+            assertEquals(beam.getOrigin().hasAttribute(Attribute.HIGH_PRIORITY) ? 2 : 1, beam.getDamage());
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package no.uib.inf112.core.map.tile;
 
+import no.uib.inf112.core.map.tile.api.*;
 import org.junit.Test;
 
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
-import static org.junit.Assert.fail;
+import static org.junit.Assert.*;
 
 public class TileGraphicTest {
 
@@ -23,4 +27,56 @@ public class TileGraphicTest {
         }
 
     }
+
+    @Test
+    public void createInstanceUsesImplClass() {
+        for (TileGraphic value : TileGraphic.values()) {
+            TileType type = value.getTileType();
+            Tile tile = value.createInstance(1, 2);
+            if (type.getFactory() == null) {
+                assertNull(tile);
+                continue;
+            }
+            assertNotNull(tile);
+            assertTrue(value + " is not a " + type.getImplClass(), type.getImplClass().isInstance(tile));
+            assertEquals(type, tile.getTileType());
+            assertEquals(1, tile.getX());
+            assertEquals(2, tile.getY());
+        }
+    }
+
+    @Test
+    public void everyConcreteTileTypeHasFactory() {
+        for (TileType type : TileType.values()) {
+            if (type.getImplClass() != null && !Modifier.isAbstract(type.getImplClass().getModifiers())) {
+                assertNotNull(type + " has no factory", type.getFactory());
+            }
+        }
+    }
+
+    @Test
+    public void hasAttributeSameAsAttributeSet() {
+        for (TileGraphic value : TileGraphic.values()) {
+            for (Attribute attribute : Attribute.values()) {
+                assertEquals(value.getAttributes().contains(attribute), value.hasAttribute(attribute));
+            }
+            assertFalse(value.hasAttribute(null));
+        }
+    }
+
+    @Test
+    public void hasSuperClassSameAsReflection() {
+        List<Class<? extends Tile>> superClasses = Arrays.asList(Tile.class, CollidableTile.class, DamageableTile.class,
+                MovableTile.class, ColorableTile.class, HealableTile.class, ActionTile.class, Cleanup.class,
+                BackupableTile.class, RequirementTile.class, SingleDirectionalTile.class, MultiDirectionalTile.class);
+        for (TileGraphic value : TileGraphic.values()) {
+            Tile tile = value.createInstance(0, 0);
+            if (tile == null) {
+                continue;
+            }
+            for (Class<? extends Tile> superClass : superClasses) {
+                assertEquals(value + " " + superClass, superClass.isInstance(tile), tile.hasSuperClass(superClass));
+            }
+        }
+    }
 }
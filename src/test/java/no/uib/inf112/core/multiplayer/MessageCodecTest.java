@@ -0,0 +1,178 @@
+package no.uib.inf112.core.multiplayer;
+
+import com.badlogic.gdx.graphics.Color;
+import com.google.gson.Gson;
+import no.uib.inf112.core.map.cards.Card;
+import no.uib.inf112.core.map.cards.Movement;
+import no.uib.inf112.core.map.cards.MovementCard;
+import no.uib.inf112.core.multiplayer.dtos.DtoCodecs;
+import no.uib.inf112.core.multiplayer.dtos.DtoMapper;
+import no.uib.inf112.core.multiplayer.dtos.PlayerDto;
+import no.uib.inf112.core.multiplayer.dtos.StartRoundDto;
+import no.uib.inf112.desktop.TestGraphics;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MessageCodecTest extends TestGraphics {
+
+    private static final List<Card> CARDS = Arrays.asList(
+            new MovementCard(Movement.MOVE_1, 490),
+            new MovementCard(Movement.MOVE_2, 670),
+            new MovementCard(Movement.MOVE_3, 790),
+            new MovementCard(Movement.BACK_UP, 430),
+            new MovementCard(Movement.LEFT_TURN, 70),
+            new MovementCard(Movement.RIGHT_TURN, 80),
+            new MovementCard(Movement.U_TURN, 10),
+            new MovementCard(Movement.MOVE_1, 500),
+            new MovementCard(Movement.MOVE_2, 680));
+
+    private MessageCodec codec;
+    private StartRoundDto startRound;
+
+    @Before
+    public void setUp() {
+        codec = new MessageCodec();
+        List<PlayerDto> players = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            PlayerDto player = new PlayerDto();
+            player.id = i;
+            player.name = "player " + i;
+            player.color = Color.CORAL;
+            player.cards = DtoMapper.mapToDto(CARDS.subList(0, 5));
+            player.drawnCards = DtoMapper.mapToDto(CARDS);
+            players.add(player);
+        }
+        startRound = new StartRoundDto(players, CARDS);
+    }
+
+    @Test
+    public void frameStartsWithTypeAndLength() {
+        ByteBuffer frame = codec.encode(ClientAction.START_ROUND, DtoCodecs.START_ROUND, startRound);
+        assertEquals(ClientAction.START_ROUND, ClientAction.fromId(frame.get()));
+        assertEquals(DtoCodecs.START_ROUND.size(startRound), frame.getInt());
+        assertEquals(frame.remaining(), DtoCodecs.START_ROUND.size(startRound));
+    }
+
+    @Test
+    public void messageWithoutPayloadIsOnlyHeader() {
+        ByteBuffer frame = codec.encode(ServerAction.GET_NAME);
+        assertEquals(MessageCodec.HEADER_BYTES, frame.remaining());
+        assertEquals(ServerAction.GET_NAME, ServerAction.fromId(frame.get()));
+        assertEquals(0, frame.getInt());
+    }
+
+    @Test
+    public void bufferGrowsForLargeMessages() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        String large = builder.toString();
+
+        ByteBuffer frame = codec.encode(ServerAction.SET_DISPLAY_NAME, DtoCodecs.STRING, large);
+        frame.position(MessageCodec.HEADER_BYTES);
+        assertEquals(large, MessageCodec.decode(frame, DtoCodecs.STRING));
+
+        frame = codec.encode(ServerAction.SET_DISPLAY_NAME, DtoCodecs.STRING, "small");
+        frame.position(MessageCodec.HEADER_BYTES);
+        assertEquals("small", MessageCodec.decode(frame, DtoCodecs.STRING));
+    }
+
+    @Test
+    public void sharedPartsAreTheSameAsTheWholeMessage() {
+        ByteBuffer whole = codec.encode(ClientAction.GIVE_CARDS, DtoCodecs.START_ROUND, startRound);
+        byte[] expected = Arrays.copyOf(whole.array(), whole.limit());
+
+        ByteBuffer shared = MessageCodec.share(DtoCodecs.PLAYERS, startRound.players);
+        ByteBuffer[] parts = codec.encode(ClientAction.GIVE_CARDS, shared, DtoCodecs.CARDS, startRound.drawnCards);
+        ByteBuffer joined = ByteBuffer.allocate(expected.length);
+        for (ByteBuffer part : parts) {
+            joined.put(part.duplicate());
+        }
+        assertArrayEquals(expected, joined.array());
+        assertTrue(shared.isReadOnly());
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidPayloadIsAnIOException() throws IOException {
+        MessageCodec.decode(ByteBuffer.allocate(1), DtoCodecs.STRING);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeLengthIsNotAccepted() {
+        MessageCodec.checkLength(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooLargeLengthIsNotAccepted() {
+        MessageCodec.checkLength(MessageCodec.MAX_PAYLOAD_BYTES + 1);
+    }
+
+    @Test
+    public void startRoundIsSmallerThanJson() {
+        ByteBuffer frame = codec.encode(ClientAction.START_ROUND, DtoCodecs.START_ROUND, startRound);
+        String json = new Gson().toJson(startRound, StartRoundDto.class);
+
+        assertTrue(frame.remaining() * 4 < json.length());
+    }
+
+    @Test
+    public void encodingAllocatesNothingAndDecodingLessThanGson() throws IOException {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        Gson gson = new Gson();
+        String json = gson.toJson(startRound, StartRoundDto.class);
+        ByteBuffer frame = codec.encode(ClientAction.START_ROUND, DtoCodecs.START_ROUND, startRound);
+        byte[] payload = Arrays.copyOfRange(frame.array(), MessageCodec.HEADER_BYTES, frame.limit());
+
+        //let the JIT settle
+        for (int i = 0; i < 5_000; i++) {
+            codec.encode(ClientAction.START_ROUND, DtoCodecs.START_ROUND, startRound);
+            MessageCodec.decode(ByteBuffer.wrap(payload), DtoCodecs.START_ROUND);
+            gson.fromJson(gson.toJson(startRound, StartRoundDto.class), StartRoundDto.class);
+        }
+
+        //the JIT might still be compiling in the background, so only the best measurement counts
+        long encoding = Long.MAX_VALUE;
+        long decoding = Long.MAX_VALUE;
+        long gsonDecoding = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < 5; attempt++) {
+            long before = threadBean.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 1_000; i++) {
+                codec.encode(ClientAction.START_ROUND, DtoCodecs.START_ROUND, startRound);
+            }
+            long afterEncoding = threadBean.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 1_000; i++) {
+                MessageCodec.decode(ByteBuffer.wrap(payload), DtoCodecs.START_ROUND);
+            }
+            long afterDecoding = threadBean.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 1_000; i++) {
+                gson.fromJson(json, StartRoundDto.class);
+            }
+            long afterGson = threadBean.getThreadAllocatedBytes(thread);
+
+            encoding = Math.min(encoding, afterEncoding - before);
+            decoding = Math.min(decoding, afterDecoding - afterEncoding);
+            gsonDecoding = Math.min(gsonDecoding, afterGson - afterDecoding);
+        }
+
+        //measuring allocations allocates a little by itself
+        assertEquals("Encoding allocated " + encoding + " bytes", 0, encoding, 1024);
+        assertTrue("Decoding allocated " + decoding + " bytes, Gson " + gsonDecoding, 2 * decoding < gsonDecoding);
+    }
+}
@@ -0,0 +1,434 @@
+package no.uib.inf112.core.multiplayer;
+
+import no.uib.inf112.core.RoboRally;
+import no.uib.inf112.core.map.MapHandler;
+import no.uib.inf112.core.map.cards.Card;
+import no.uib.inf112.core.map.cards.Movement;
+import no.uib.inf112.core.map.cards.MovementCard;
+import no.uib.inf112.core.multiplayer.dtos.CardDto;
+import no.uib.inf112.core.multiplayer.dtos.DtoCodecs;
+import no.uib.inf112.core.multiplayer.dtos.NewGameDto;
+import no.uib.inf112.core.multiplayer.dtos.PlayerDto;
+import no.uib.inf112.core.multiplayer.dtos.SelectedCardsDto;
+import no.uib.inf112.core.multiplayer.dtos.StartRoundDto;
+import no.uib.inf112.core.player.IPlayer;
+import no.uib.inf112.core.util.Direction;
+import no.uib.inf112.desktop.TestGraphics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ServerTest extends TestGraphics {
+
+    private static final String MAP = "risky_exchange";
+
+    private final MessageCodec codec = new MessageCodec();
+    private Server server;
+    private List<Socket> sockets;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new Server(0, 2, MAP);
+        sockets = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        server.close();
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket("localhost", server.getPort());
+        socket.setSoTimeout(2000);
+        sockets.add(socket);
+        return socket;
+    }
+
+    private void write(Socket socket, ByteBuffer frame) throws IOException {
+        socket.getOutputStream().write(frame.array(), 0, frame.limit());
+    }
+
+    private void send(Socket socket, ServerAction action) throws IOException {
+        write(socket, codec.encode(action));
+    }
+
+    private void send(Socket socket, ServerAction action, String string) throws IOException {
+        write(socket, codec.encode(action, DtoCodecs.STRING, string));
+    }
+
+    /**
+     * @return The payload of the next message, after checking that it is of the expected type
+     */
+    private ByteBuffer receive(Socket socket, ClientAction expected) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        assertEquals(expected, ClientAction.fromId(in.readUnsignedByte()));
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        return ByteBuffer.wrap(payload);
+    }
+
+    /**
+     * @return The payload of the next message of the expected type, other messages are skipped
+     */
+    private ByteBuffer receiveSkipping(Socket socket, ClientAction expected) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        while (true) {
+            ClientAction action = ClientAction.fromId(in.readUnsignedByte());
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            if (action == expected) {
+                return ByteBuffer.wrap(payload);
+            }
+        }
+    }
+
+    private String receiveString(Socket socket, ClientAction expected) throws IOException {
+        return MessageCodec.decode(receive(socket, expected), DtoCodecs.STRING);
+    }
+
+    private List<String> receiveConnectedPlayers(Socket socket) throws IOException {
+        return MessageCodec.decode(receive(socket, ClientAction.CONNECTED_PLAYERS), DtoCodecs.CONNECTED_PLAYERS).players.stream()
+                .filter(Objects::nonNull)
+                .map(player -> player.name)
+                .collect(Collectors.toList());
+    }
+
+    private boolean isClosedByServer(Socket socket) throws IOException {
+        return socket.getInputStream().read() < 0;
+    }
+
+    /**
+     * Skip everything the server sends until it closes the connection
+     */
+    private void receiveUntilClosed(Socket socket) throws IOException {
+        byte[] skipped = new byte[1024];
+        while (socket.getInputStream().read(skipped) >= 0) {
+            //skip it
+        }
+    }
+
+    @Test
+    public void answersEveryClient() throws IOException {
+        Socket first = connect();
+        Socket second = connect();
+
+        send(first, ServerAction.GET_NAME);
+        send(second, ServerAction.GET_NAME);
+
+        assertEquals("Player 0", receiveString(first, ClientAction.THREAD_NAME));
+        assertEquals("Player 1", receiveString(second, ClientAction.THREAD_NAME));
+    }
+
+    @Test
+    public void connectedPlayersAreSentToEveryone() throws IOException {
+        Socket first = connect();
+        Socket second = connect();
+
+        send(first, ServerAction.SET_DISPLAY_NAME, "first");
+        assertEquals("firstforPlayer 0", receiveString(first, ClientAction.NAME));
+        //the second client might not be accepted yet
+        assertEquals("first", receiveConnectedPlayers(first).get(0));
+
+        send(second, ServerAction.SET_DISPLAY_NAME, "second");
+        assertEquals("secondforPlayer 1", receiveString(second, ClientAction.NAME));
+        assertEquals(Arrays.asList("first", "second"), receiveConnectedPlayers(first));
+        assertEquals(Arrays.asList("first", "second"), receiveConnectedPlayers(second));
+    }
+
+    @Test
+    public void messagesLargerThanTheOldUtfLimitAreReadWhole() throws IOException {
+        Socket socket = connect();
+
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            name.append((char) ('a' + i % 26));
+        }
+        send(socket, ServerAction.SET_DISPLAY_NAME, name.toString());
+        assertEquals(name.toString() + "forPlayer 0", receiveString(socket, ClientAction.NAME));
+    }
+
+    @Test
+    public void unknownMessageIsAnsweredWithError() throws IOException {
+        Socket socket = connect();
+        socket.getOutputStream().write(new byte[]{(byte) 0xFF, 0, 0, 0, 0});
+        receiveString(socket, ClientAction.ERROR);
+    }
+
+    @Test
+    public void tooLargeFrameClosesConnection() throws IOException {
+        Socket socket = connect();
+        socket.getOutputStream().write(new byte[]{0, (byte) 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+        assertTrue(isClosedByServer(socket));
+    }
+
+    @Test
+    public void fullServerClosesNewConnections() throws IOException {
+        connect();
+        connect();
+        assertTrue(isClosedByServer(connect()));
+    }
+
+    @Test
+    public void slotIsFreedWhenClientWithoutNameLeaves() throws IOException {
+        connect().close();
+        Socket second = connect();
+        //when the second client is answered the server has seen the first one leave
+        send(second, ServerAction.GET_NAME);
+        receiveString(second, ClientAction.THREAD_NAME);
+
+        Socket third = connect();
+        send(third, ServerAction.GET_NAME);
+        assertTrue(receiveString(third, ClientAction.THREAD_NAME).startsWith("Player "));
+    }
+
+    @Test
+    public void roomsHaveTheirOwnPlayers() throws IOException {
+        Socket first = connect();
+        Socket second = connect();
+
+        send(second, ServerAction.JOIN_ROOM, "other");
+        assertEquals("Player 0", receiveString(second, ClientAction.THREAD_NAME));
+        assertEquals(2, server.getRoomCount());
+
+        send(first, ServerAction.SET_DISPLAY_NAME, "first");
+        send(second, ServerAction.SET_DISPLAY_NAME, "second");
+        receiveString(first, ClientAction.NAME);
+        receiveString(second, ClientAction.NAME);
+        assertEquals(Collections.singletonList("first"), receiveConnectedPlayers(first));
+        assertEquals(Collections.singletonList("second"), receiveConnectedPlayers(second));
+    }
+
+    @Test
+    public void fullRoomCanNotBeJoined() throws IOException {
+        Socket first = connect();
+        connect();
+        assertTrue(isClosedByServer(connect()));
+
+        //the default room has room for one more when the first client has moved
+        send(first, ServerAction.JOIN_ROOM, "other");
+        assertEquals("Player 0", receiveString(first, ClientAction.THREAD_NAME));
+        Socket fourth = connect();
+        send(fourth, ServerAction.GET_NAME);
+        assertEquals("Player 0", receiveString(fourth, ClientAction.THREAD_NAME));
+    }
+
+    @Test
+    public void emptyRoomsAreRemoved() throws IOException {
+        Socket first = connect();
+        send(first, ServerAction.JOIN_ROOM, "other");
+        receiveString(first, ClientAction.THREAD_NAME);
+        send(first, ServerAction.JOIN_ROOM, Server.DEFAULT_ROOM);
+        receiveString(first, ClientAction.THREAD_NAME);
+
+        assertEquals(1, server.getRoomCount());
+    }
+
+    @Test
+    public void roomIsRemovedWhenItsLastPlayerCloses() throws IOException, InterruptedException {
+        connect();
+        Socket second = connect();
+        send(second, ServerAction.JOIN_ROOM, "other");
+        receiveString(second, ClientAction.THREAD_NAME);
+        assertEquals(2, server.getRoomCount());
+
+        second.close();
+        long end = System.currentTimeMillis() + 2000;
+        while (server.getRoomCount() != 1 && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, server.getRoomCount());
+    }
+
+    /**
+     * @return The game of the given room, found on the selector thread
+     */
+    private RoboRally getGame(String room) throws Exception {
+        CompletableFuture<RoboRally> game = new CompletableFuture<>();
+        server.execute(() -> {
+            Room found = server.findRoom(room);
+            game.complete(found == null ? null : found.getGame());
+        });
+        return game.get(2, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void everyRoundIsPlayedOnTheServer() throws Exception {
+        Socket first = connect();
+        Socket second = connect();
+        send(first, ServerAction.SET_DISPLAY_NAME, "first");
+        receiveString(first, ClientAction.NAME);
+        send(second, ServerAction.SET_DISPLAY_NAME, "second");
+        receiveString(second, ClientAction.NAME);
+        send(first, ServerAction.SET_HOST_ID);
+        send(first, ServerAction.START_GAME);
+        send(first, ServerAction.FINISHED_SETUP);
+        receiveSkipping(first, ClientAction.GIVE_CARDS);
+        receiveSkipping(second, ClientAction.GIVE_CARDS);
+        assertNull(getGame(Server.DEFAULT_ROOM));
+
+        //turning left five times makes every robot face west without leaving its spawn
+        List<Card> turns = new ArrayList<>();
+        for (int i = 0; i < IPlayer.MAX_PLAYER_CARDS; i++) {
+            turns.add(new MovementCard(Movement.LEFT_TURN, 80 + 20 * i));
+        }
+        SelectedCardsDto selected = new SelectedCardsDto(false, turns);
+        write(first, codec.encode(ServerAction.SEND_SELECTED_CARDS, DtoCodecs.SELECTED_CARDS, selected));
+        write(second, codec.encode(ServerAction.SEND_SELECTED_CARDS, DtoCodecs.SELECTED_CARDS, selected));
+        receiveSkipping(first, ClientAction.START_ROUND);
+
+        RoboRally game = getGame(Server.DEFAULT_ROOM);
+        assertNotNull(game);
+        List<IPlayer> players = game.getPlayerHandler().getPlayers();
+        assertEquals(2, players.size());
+        for (IPlayer player : players) {
+            assertEquals(Direction.WEST, player.getDirection());
+            assertSame(player, game.getCurrentMap().getTile(MapHandler.ENTITY_LAYER_NAME, player.getX(), player.getY()));
+        }
+    }
+
+    @Test
+    public void everyClientGetsTheSamePlayersAndItsOwnCards() throws IOException {
+        Socket first = connect();
+        Socket second = connect();
+        send(first, ServerAction.SET_DISPLAY_NAME, "first");
+        receiveString(first, ClientAction.NAME);
+        send(second, ServerAction.SET_DISPLAY_NAME, "second");
+        receiveString(second, ClientAction.NAME);
+
+        send(first, ServerAction.SET_HOST_ID);
+        send(first, ServerAction.START_GAME);
+        receiveSkipping(first, ClientAction.START_GAME);
+        receiveSkipping(second, ClientAction.START_GAME);
+        send(first, ServerAction.FINISHED_SETUP);
+
+        StartRoundDto toFirst = MessageCodec.decode(receiveSkipping(first, ClientAction.GIVE_CARDS), DtoCodecs.START_ROUND);
+        StartRoundDto toSecond = MessageCodec.decode(receiveSkipping(second, ClientAction.GIVE_CARDS), DtoCodecs.START_ROUND);
+
+        assertEquals(2, toFirst.players.size());
+        assertEquals(toFirst.players.size(), toSecond.players.size());
+        for (int i = 0; i < toFirst.players.size(); i++) {
+            PlayerDto player = toFirst.players.get(i);
+            assertEquals(player.id, toSecond.players.get(i).id);
+            assertEquals(player.name, toSecond.players.get(i).name);
+            assertEquals(player.color, toSecond.players.get(i).color);
+            //the cards dealt to a player are only sent to that player
+            assertNull(player.drawnCards);
+            assertNull(toSecond.players.get(i).drawnCards);
+        }
+
+        assertEquals(IPlayer.MAX_DRAW_CARDS, toFirst.drawnCards.size());
+        assertEquals(IPlayer.MAX_DRAW_CARDS, toSecond.drawnCards.size());
+        //every card has its own priority, so no card is dealt to both
+        for (CardDto card : toFirst.drawnCards) {
+            for (CardDto other : toSecond.drawnCards) {
+                assertTrue(card.priority != other.priority);
+            }
+        }
+    }
+
+    @Test
+    public void failingMessageClosesOnlyItsConnection() throws IOException {
+        //one player more than there are colors, so starting the game fails
+        server.close();
+        server = new Server(0, 9, MAP);
+        List<Socket> clients = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            Socket socket = connect();
+            send(socket, ServerAction.SET_DISPLAY_NAME, "player " + i);
+            receiveSkipping(socket, ClientAction.NAME);
+            clients.add(socket);
+        }
+
+        send(clients.get(0), ServerAction.START_GAME);
+        receiveUntilClosed(clients.get(0));
+
+        Socket other = clients.get(1);
+        send(other, ServerAction.GET_NAME);
+        assertEquals("Player 1", MessageCodec.decode(receiveSkipping(other, ClientAction.THREAD_NAME), DtoCodecs.STRING));
+    }
+
+    @Test
+    public void countdownStartsWhenOnePlayerIsLeft() throws IOException {
+        Socket first = connect();
+        Socket second = connect();
+        send(first, ServerAction.SET_DISPLAY_NAME, "first");
+        receiveString(first, ClientAction.NAME);
+        send(second, ServerAction.SET_DISPLAY_NAME, "second");
+        receiveString(second, ClientAction.NAME);
+        send(first, ServerAction.START_GAME);
+        send(first, ServerAction.FINISHED_SETUP);
+        StartRoundDto round = MessageCodec.decode(receiveSkipping(first, ClientAction.GIVE_CARDS), DtoCodecs.START_ROUND);
+
+        SelectedCardsDto selected = new SelectedCardsDto(false, round.getCards().subList(0, IPlayer.MAX_PLAYER_CARDS));
+        write(first, codec.encode(ServerAction.SEND_SELECTED_CARDS, DtoCodecs.SELECTED_CARDS, selected));
+        assertEquals(0, (int) MessageCodec.decode(receiveSkipping(second, ClientAction.COUNT_DOWN), DtoCodecs.UNSIGNED_BYTE));
+        assertEquals(1, (int) MessageCodec.decode(receiveSkipping(second, ClientAction.COUNT_DOWN), DtoCodecs.UNSIGNED_BYTE));
+    }
+
+    private NewGameDto startGame(Socket host, String name) throws IOException {
+        send(host, ServerAction.SET_DISPLAY_NAME, name);
+        receiveString(host, ClientAction.NAME);
+        send(host, ServerAction.SET_HOST_ID);
+        send(host, ServerAction.START_GAME);
+        return MessageCodec.decode(receiveSkipping(host, ClientAction.START_GAME), DtoCodecs.NEW_GAME);
+    }
+
+    @Test
+    public void roomsArePlayedOnTheirOwnMap() throws IOException {
+        Socket first = connect();
+        Socket second = connect();
+        send(second, ServerAction.JOIN_ROOM, "other");
+        receiveString(second, ClientAction.THREAD_NAME);
+        send(second, ServerAction.SET_MAP, "against_the_grain");
+
+        assertEquals("against_the_grain", startGame(second, "second").map);
+        assertEquals(MAP, startGame(first, "first").map);
+    }
+
+    @Test
+    public void onlyKnownMapsCanBeChosen() throws IOException {
+        Socket socket = connect();
+        send(socket, ServerAction.SET_MAP, ".." + File.separatorChar + "risky_exchange");
+        receiveString(socket, ClientAction.ERROR);
+        send(socket, ServerAction.SET_MAP, "no such map");
+        receiveString(socket, ClientAction.ERROR);
+
+        assertEquals(MAP, startGame(socket, "first").map);
+    }
+
+    @Test
+    public void onlyTheHostCanChooseTheMap() throws IOException {
+        connect();
+        Socket second = connect();
+        send(second, ServerAction.SET_MAP, "against_the_grain");
+        receiveString(second, ClientAction.ERROR);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownDefaultMapIsNotAccepted() throws IOException {
+        new Server(0, 2, "no such map");
+    }
+}
@@ -0,0 +1,190 @@
+package no.uib.inf112.core.multiplayer.dtos;
+
+import com.badlogic.gdx.graphics.Color;
+import no.uib.inf112.core.map.cards.Card;
+import no.uib.inf112.core.map.cards.Movement;
+import no.uib.inf112.core.map.cards.MovementCard;
+import no.uib.inf112.desktop.TestGraphics;
+import org.junit.Test;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DtoCodecsTest extends TestGraphics {
+
+    private static final List<Card> CARDS = Arrays.asList(
+            new MovementCard(Movement.MOVE_1, 490),
+            new MovementCard(Movement.U_TURN, 10),
+            new MovementCard(Movement.BACK_UP, 840));
+
+    private static PlayerDto fullPlayer(int id) {
+        PlayerDto player = new PlayerDto();
+        player.id = id;
+        player.name = "player " + id;
+        player.color = Color.CORAL;
+        player.cards = DtoMapper.mapToDto(CARDS);
+        player.drawnCards = DtoMapper.mapToDto(CARDS.subList(0, 2));
+        player.isPoweredDown = true;
+        return player;
+    }
+
+    /**
+     * Write the value, check that the codec used as many bytes as it said and read it back
+     */
+    private static <T> T writeAndRead(DtoCodec<T> codec, T value) {
+        int size = codec.size(value);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        codec.write(buffer, value);
+        assertFalse(buffer.hasRemaining());
+        buffer.flip();
+        T read = codec.read(buffer);
+        assertFalse(buffer.hasRemaining());
+        return read;
+    }
+
+    private static void assertCardsEquals(List<CardDto> expected, List<CardDto> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).movement, actual.get(i).movement);
+            assertEquals(expected.get(i).priority, actual.get(i).priority);
+        }
+    }
+
+    /**
+     * Check a player read from a list of players, which are sent without their drawn cards
+     */
+    private static void assertPublicPlayerEquals(PlayerDto expected, PlayerDto actual) {
+        PlayerDto withoutDrawnCards = new PlayerDto();
+        withoutDrawnCards.id = expected.id;
+        withoutDrawnCards.name = expected.name;
+        withoutDrawnCards.color = expected.color;
+        withoutDrawnCards.cards = expected.cards;
+        withoutDrawnCards.isPoweredDown = expected.isPoweredDown;
+        assertPlayerEquals(withoutDrawnCards, actual);
+    }
+
+    private static void assertPlayerEquals(PlayerDto expected, PlayerDto actual) {
+        assertEquals(expected.id, actual.id);
+        assertEquals(expected.name, actual.name);
+        assertEquals(expected.color, actual.color);
+        assertEquals(expected.isPoweredDown, actual.isPoweredDown);
+        if (expected.cards == null) {
+            assertNull(actual.cards);
+        } else {
+            assertCardsEquals(expected.cards, actual.cards);
+        }
+        if (expected.drawnCards == null) {
+            assertNull(actual.drawnCards);
+        } else {
+            assertCardsEquals(expected.drawnCards, actual.drawnCards);
+        }
+    }
+
+    @Test
+    public void stringsAreWrittenAsUtf8() {
+        String[] strings = {"", "robot", "blåbærsyltetøy", "€", "🤖", "\uD800 alone"};
+        for (String string : strings) {
+            ByteBuffer buffer = ByteBuffer.allocate(DtoCodecs.STRING.size(string));
+            DtoCodecs.STRING.write(buffer, string);
+            byte[] expected = string.getBytes(StandardCharsets.UTF_8);
+            assertEquals(expected.length, buffer.getInt(0));
+            assertArrayEquals(expected, Arrays.copyOfRange(buffer.array(), Integer.BYTES, buffer.position()));
+        }
+        assertEquals("blåbærsyltetøy", writeAndRead(DtoCodecs.STRING, "blåbærsyltetøy"));
+        assertEquals("🤖", writeAndRead(DtoCodecs.STRING, "🤖"));
+    }
+
+    @Test
+    public void cardsAreThreeBytes() {
+        List<CardDto> cards = DtoMapper.mapToDto(CARDS);
+        assertEquals(Short.BYTES + 3 * CARDS.size(), DtoCodecs.CARDS.size(cards));
+        assertCardsEquals(cards, writeAndRead(DtoCodecs.CARDS, cards));
+    }
+
+    @Test
+    public void startRoundIsReadAsWritten() {
+        StartRoundDto written = new StartRoundDto(Arrays.asList(fullPlayer(0), fullPlayer(7)), CARDS);
+
+        StartRoundDto read = writeAndRead(DtoCodecs.START_ROUND, written);
+        assertEquals(2, read.players.size());
+        assertPublicPlayerEquals(written.players.get(0), read.players.get(0));
+        assertPublicPlayerEquals(written.players.get(1), read.players.get(1));
+        assertEquals(CARDS, read.getCards());
+    }
+
+    @Test
+    public void playerIsReadAsWritten() {
+        assertPlayerEquals(fullPlayer(4), writeAndRead(DtoCodecs.PLAYER, fullPlayer(4)));
+    }
+
+    @Test
+    public void drawnCardsAreNotSentInListsOfPlayers() {
+        List<PlayerDto> players = Collections.singletonList(fullPlayer(2));
+        assertEquals(Byte.BYTES + DtoCodecs.PUBLIC_PLAYER.size(players.get(0)), DtoCodecs.PLAYERS.size(players));
+        assertTrue(DtoCodecs.PUBLIC_PLAYER.size(players.get(0)) < DtoCodecs.PLAYER.size(players.get(0)));
+        assertNull(writeAndRead(DtoCodecs.PLAYERS, players).get(0).drawnCards);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooManyPlayersAreNotWritten() {
+        List<PlayerDto> players = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            players.add(null);
+        }
+        DtoCodecs.PLAYERS.size(players);
+    }
+
+    @Test
+    public void playersWithoutFieldsAndMissingPlayersAreReadAsWritten() {
+        PlayerDto empty = new PlayerDto();
+        empty.id = 3;
+        List<PlayerDto> players = new ArrayList<>();
+        players.add(empty);
+        players.add(null);
+
+        List<PlayerDto> read = writeAndRead(DtoCodecs.CONNECTED_PLAYERS, new ConnectedPlayersDto(players)).players;
+        assertEquals(2, read.size());
+        assertPlayerEquals(empty, read.get(0));
+        assertNull(read.get(1));
+    }
+
+    @Test
+    public void newGameIsReadAsWritten() {
+        NewGameDto written = new NewGameDto("assets/maps/map.tmx", Collections.singletonList(fullPlayer(1)), 1);
+
+        NewGameDto read = writeAndRead(DtoCodecs.NEW_GAME, written);
+        assertEquals(written.map, read.map);
+        assertEquals(written.userId, read.userId);
+        assertPublicPlayerEquals(written.players.get(0), read.players.get(0));
+    }
+
+    @Test
+    public void selectedCardsAreReadAsWritten() {
+        SelectedCardsDto read = writeAndRead(DtoCodecs.SELECTED_CARDS, new SelectedCardsDto(true, CARDS));
+        assertTrue(read.poweredDown);
+        assertCardsEquals(DtoMapper.mapToDto(CARDS), read.cards);
+    }
+
+    @Test(expected = BufferUnderflowException.class)
+    public void cutOffValueIsNotRead() {
+        ByteBuffer buffer = ByteBuffer.allocate(DtoCodecs.PLAYER.size(fullPlayer(0)));
+        DtoCodecs.PLAYER.write(buffer, fullPlayer(0));
+        buffer.flip();
+        buffer.limit(buffer.limit() - 1);
+        DtoCodecs.PLAYER.read(buffer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownMovementIsNotRead() {
+        ByteBuffer buffer = ByteBuffer.allocate(5);
+        buffer.putShort((short) 1).put((byte) 100).putShort((short) 10).flip();
+        DtoCodecs.CARDS.read(buffer);
+    }
+}
@@ -0,0 +1,255 @@
+package no.uib.inf112.core.player;
+
+import com.badlogic.gdx.graphics.Color;
+import no.uib.inf112.core.GameGraphics;
+import no.uib.inf112.core.RoboRally;
+import no.uib.inf112.core.map.MapHandler;
+import no.uib.inf112.core.map.cards.Card;
+import no.uib.inf112.core.map.cards.Movement;
+import no.uib.inf112.core.map.cards.MovementCard;
+import no.uib.inf112.core.map.tile.TileType;
+import no.uib.inf112.core.round.phase.*;
+import no.uib.inf112.core.util.ComparableTuple;
+import no.uib.inf112.core.util.Direction;
+import no.uib.inf112.core.util.SimulationScheduler;
+import no.uib.inf112.desktop.TestGraphics;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class RobotAllocationTest extends TestGraphics {
+
+    private static final int PLAYERS = 8;
+    //values() copies the array every call
+    private static final Direction[] DIRECTIONS = Direction.values();
+    //Five steps west in a round, which the conveyors of player_test_map take back east
+    private static final Movement[] ROUND_CARDS = {Movement.MOVE_3, Movement.MOVE_1, Movement.MOVE_1, Movement.BACK_UP, Movement.MOVE_1};
+
+    private com.sun.management.ThreadMXBean threadBean;
+    private MapHandler map;
+    private List<IPlayer> players;
+    private boolean wasMuted;
+    private SimulationScheduler simulation;
+    private Phase[] registerPhases;
+
+    @Before
+    public void setUp() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        wasMuted = GameGraphics.soundMuted;
+        GameGraphics.soundMuted = true;
+
+    }
+
+    private void createGame(String mapName) {
+        RoboRally roboRally = GameGraphics.createRoboRally(TEST_MAP_FOLDER + File.separatorChar + mapName, PLAYERS);
+        map = roboRally.getCurrentMap();
+        players = roboRally.getPlayerHandler().getPlayers();
+    }
+
+    @After
+    public void tearDown() {
+        GameGraphics.soundMuted = wasMuted;
+        RoboRally.setScheduler(null);
+    }
+
+    /**
+     * Every robot walks a square, checking for collisions on every step, then the map is updated
+     */
+    private void walkingRegister() {
+        for (Direction dir : DIRECTIONS) {
+            //indexed so no iterator is made
+            for (int i = 0; i < players.size(); i++) {
+                players.get(i).move(dir);
+            }
+        }
+        map.update(0);
+    }
+
+    /**
+     * The first row of robots is pushed one step east and back again. The second row is against a wall, so it can
+     * neither be pushed nor walk through it. The map is updated after every move, as between the tasks of a round
+     */
+    private void pushingRegister() {
+        players.get(0).move(Direction.EAST);
+        map.update(0);
+        players.get(3).move(Direction.WEST);
+        map.update(0);
+        players.get(4).move(Direction.EAST);
+        map.update(0);
+        players.get(7).move(Direction.EAST);
+        map.update(0);
+    }
+
+    /**
+     * Every register of a round is played, each phase is run until it and the tasks it started are done
+     */
+    private void simulatedRound() {
+        for (int register = 0; register < IPlayer.MAX_PLAYER_CARDS; register++) {
+            for (Phase phase : registerPhases) {
+                phase.startPhase(map, register);
+                simulation.runUntilIdle(1_000);
+            }
+        }
+    }
+
+    private long allocatedBytes() {
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return The fewest bytes allocated by a thousand registers
+     */
+    private long measure(Runnable register) {
+        //let the JIT settle
+        for (int i = 0; i < 10_000; i++) {
+            register.run();
+        }
+
+        //the JIT might still be compiling in the background, so only the best measurement counts
+        long allocated = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < 5 && allocated > 1024; attempt++) {
+            long before = allocatedBytes();
+            for (int i = 0; i < 1_000; i++) {
+                register.run();
+            }
+            allocated = Math.min(allocated, allocatedBytes() - before);
+        }
+        return allocated;
+    }
+
+    @Test
+    public void movingDoesNotAllocate() {
+        createGame("player_test_map.tmx");
+        for (int i = 0; i < players.size(); i++) {
+            players.get(i).teleport(2 * i, 5);
+        }
+        map.update(0);
+
+        long allocated = measure(this::walkingRegister);
+
+        for (int i = 0; i < players.size(); i++) {
+            assertEquals(2 * i, players.get(i).getX());
+            assertEquals(5, players.get(i).getY());
+            assertSame(players.get(i), map.getTile(MapHandler.ENTITY_LAYER_NAME, 2 * i, 5));
+        }
+        //measuring allocations allocates a little by itself
+        assertEquals("Moving robots allocated " + allocated + " bytes", 0, allocated, 1024);
+    }
+
+    @Test
+    public void pushingAndHittingWallsDoesNotAllocate() {
+        createGame("push_test_map.tmx");
+        for (int i = 0; i < players.size(); i++) {
+            players.get(i).teleport(1 + i % 4 + (i / 4) * 4, 1 + i / 4);
+        }
+        map.update(0);
+
+        players.get(0).move(Direction.EAST);
+        map.update(0);
+        assertEquals(5, players.get(3).getX());
+        players.get(3).move(Direction.WEST);
+        map.update(0);
+        assertEquals(1, players.get(0).getX());
+
+        long allocated = measure(this::pushingRegister);
+
+        for (int i = 0; i < players.size(); i++) {
+            int x = 1 + i % 4 + (i / 4) * 4;
+            int y = 1 + i / 4;
+            assertEquals(x, players.get(i).getX());
+            assertEquals(y, players.get(i).getY());
+            assertSame(players.get(i), map.getTile(MapHandler.ENTITY_LAYER_NAME, x, y));
+        }
+        assertEquals("Pushing robots allocated " + allocated + " bytes", 0, allocated, 1024);
+    }
+
+    @Test
+    public void playingCardsThroughTheBoardPhasesDoesNotAllocate() {
+        createGame("player_test_map.tmx");
+        simulation = new SimulationScheduler();
+        RoboRally.setScheduler(simulation);
+
+        for (IPlayer player : players) {
+            map.removeEntity(player);
+        }
+        players.clear();
+        for (int i = 0; i < PLAYERS; i++) {
+            CardPlayer player = new CardPlayer(8, 1 + 2 * i, map, i);
+            players.add(player);
+            map.addEntity(player);
+        }
+        map.update(0);
+
+        //the phases of DefaultGameRule, except for lasers as their traces are new tiles every time they are shot
+        registerPhases = new Phase[]{
+                new PlayerPhase(100),
+                new ConveyorPhase(100),
+                new PusherPhase(100),
+                new ActionPhase(TileType.GEAR, 100),
+                new ActionPhase(TileType.WRENCH, 100),
+                new ActionPhase(TileType.HAMMER_AND_WRENCH, 0),
+                new ActionPhase(TileType.FLAG, 100)
+        };
+
+        //the first card moves every robot three steps, each in its own task, then the conveyors move it back one
+        registerPhases[0].startPhase(map, 0);
+        simulation.runUntilIdle(1_000);
+        assertEquals(5, players.get(0).getX());
+        registerPhases[1].startPhase(map, 0);
+        simulation.runUntilIdle(1_000);
+        assertEquals(6, players.get(0).getX());
+        for (int i = 0; i < players.size(); i++) {
+            players.get(i).teleport(8, 1 + 2 * i);
+        }
+        map.update(0);
+
+        long allocated = measure(this::simulatedRound);
+
+        for (int i = 0; i < players.size(); i++) {
+            assertEquals(8, players.get(i).getX());
+            assertEquals(1 + 2 * i, players.get(i).getY());
+            assertEquals(Direction.WEST, players.get(i).getDirection());
+            assertSame(players.get(i), map.getTile(MapHandler.ENTITY_LAYER_NAME, 8, 1 + 2 * i));
+        }
+        assertEquals("Playing cards allocated " + allocated + " bytes", 0, allocated, 1024);
+    }
+
+    /**
+     * A player facing west playing {@link #ROUND_CARDS}
+     */
+    private static class CardPlayer extends AbstractPlayer {
+
+        private final Card[] cards;
+
+        CardPlayer(int x, int y, MapHandler map, int priority) {
+            super(x, y, Direction.WEST, map, new ComparableTuple<>("Player " + priority, Color.WHITE));
+            cards = new Card[ROUND_CARDS.length];
+            for (int i = 0; i < cards.length; i++) {
+                cards[i] = new MovementCard(ROUND_CARDS[i], priority);
+            }
+        }
+
+        @Override
+        public ComparableTuple<Card, IPlayer> getNextCard(int id) {
+            return new ComparableTuple<>(cards[id], this);
+        }
+
+        @Override
+        public int getId() {
+            return -1;
+        }
+    }
+}
@@ -98,4 +98,19 @@ public class RobotPushTest extends TestGraphics {
         assertEquals(1, player1.getY());
     }
 
+    @Test
+    public void pushedRobotsAreOnTheMapWhereTheyWerePushed() {
+        MapHandler map = GameGraphics.getRoboRally().getCurrentMap();
+        map.update(0);
+
+        IPlayer player = players.get(0);
+        player.setDirection(Direction.EAST);
+        player.move(Direction.EAST);
+
+        //the pushed robots are updated on the map as soon as they have been pushed
+        for (int i = 1; i < players.size(); i++) {
+            assertEquals(players.get(i), map.getTile(MapHandler.ENTITY_LAYER_NAME, i + 1, 0));
+        }
+        assertEquals(1, player.getX());
+    }
 }
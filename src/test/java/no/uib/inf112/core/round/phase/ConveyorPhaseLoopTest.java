@@ -0,0 +1,110 @@
+package no.uib.inf112.core.round.phase;
+
+import no.uib.inf112.core.GameGraphics;
+import no.uib.inf112.core.RoboRally;
+import no.uib.inf112.core.map.MapHandler;
+import no.uib.inf112.core.player.IPlayer;
+import no.uib.inf112.desktop.TestGraphics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Many entities on the same conveyors, a line going north at x=8 and two loops where the one at x=5 and x=6 has a
+ * wall in it
+ */
+public class ConveyorPhaseLoopTest extends TestGraphics {
+
+    private MapHandler map;
+    private List<IPlayer> players;
+    private ConveyorPhase phase;
+    private boolean wasMuted;
+
+    @Before
+    public void setUp() {
+        wasMuted = GameGraphics.soundMuted;
+        GameGraphics.soundMuted = true;
+        RoboRally roboRally = GameGraphics.createRoboRally(TEST_MAP_FOLDER + File.separatorChar + "conveyor_loop_test_map.tmx", 8);
+        map = roboRally.getCurrentMap();
+        players = roboRally.getPlayerHandler().getPlayers();
+        phase = new ConveyorPhase(0);
+    }
+
+    @After
+    public void tearDown() {
+        GameGraphics.soundMuted = wasMuted;
+    }
+
+    /**
+     * Put the first players at the given positions, the rest are put out of the way along the top of the map
+     */
+    private void place(int... positions) {
+        for (int i = 0; i < players.size(); i++) {
+            if (2 * i < positions.length) {
+                players.get(i).teleport(positions[2 * i], positions[2 * i + 1]);
+            } else {
+                players.get(i).teleport(i, 3);
+            }
+        }
+        map.update(0);
+    }
+
+    private void assertAt(int player, int x, int y) {
+        assertEquals("Different x of player " + player, x, players.get(player).getX());
+        assertEquals("Different y of player " + player, y, players.get(player).getY());
+        assertSame(players.get(player), map.getTile(MapHandler.ENTITY_LAYER_NAME, x, y));
+    }
+
+    @Test
+    public void lineMovesTogether() {
+        place(8, 0, 8, 1, 8, 2);
+        phase.startPhase(map);
+        map.update(0);
+
+        assertAt(0, 8, 1);
+        assertAt(1, 8, 2);
+        assertAt(2, 8, 3);
+    }
+
+    @Test
+    public void fullLoopMovesTogether() {
+        place(1, 1, 2, 1, 2, 2, 1, 2);
+        phase.startPhase(map);
+        map.update(0);
+
+        assertAt(0, 2, 1);
+        assertAt(1, 2, 2);
+        assertAt(2, 1, 2);
+        assertAt(3, 1, 1);
+    }
+
+    @Test
+    public void wallInLoopStopsTheWholeLoop() {
+        place(5, 1, 6, 1, 6, 2, 5, 2);
+        phase.startPhase(map);
+        map.update(0);
+
+        assertAt(0, 5, 1);
+        assertAt(1, 6, 1);
+        assertAt(2, 6, 2);
+        assertAt(3, 5, 2);
+    }
+
+    @Test
+    public void loopWithAGapIsALine() {
+        place(5, 2, 6, 2, 6, 1);
+        phase.startPhase(map);
+        map.update(0);
+
+        //the player at (5, 2) moves into the gap, making room for the ones behind it
+        assertAt(0, 5, 1);
+        assertAt(1, 5, 2);
+        assertAt(2, 6, 2);
+    }
+}
@@ -7,6 +7,7 @@ import no.uib.inf112.core.player.IPlayer;
 import no.uib.inf112.core.round.DefaultGameRule;
 import no.uib.inf112.core.round.Round;
 import no.uib.inf112.core.util.Direction;
+import no.uib.inf112.core.util.SimulationScheduler;
 import no.uib.inf112.core.util.Vector2Int;
 import no.uib.inf112.desktop.TestGraphics;
 import org.junit.Before;
@@ -40,6 +41,26 @@ public class DefaultGameRuleTest extends TestGraphics {
         assertStatus(0, 0, Direction.NORTH, 0, 0, AbstractPlayer.MAX_HEALTH, AbstractPlayer.MAX_LIVES, 0, false);
     }
 
+    @Test
+    public void fullRoundWithDelaysInSimulation() {
+        SimulationScheduler simulation = new SimulationScheduler();
+        RoboRally.setScheduler(simulation);
+        try {
+            player.teleport(6, 0);
+            Round round = DefaultGameRule.generate(910);
+            //the simulation is driven by this test, no next turn to start
+            round.setStartNextTurn(false);
+            round.startRound();
+            assertTrue(simulation.size() > 0);
+
+            simulation.runUntilIdle(10_000);
+            assertTrue(simulation.getTime() >= 910);
+            assertStatus(6, 1, Direction.NORTH.turnRight(), 0, 0, AbstractPlayer.MAX_HEALTH - 5, AbstractPlayer.MAX_LIVES, 0, false);
+        } finally {
+            RoboRally.setScheduler(null);
+        }
+    }
+
     @Test
     public void onlyRotateAfterFullRound() {
         defaultGameRule.startRound();
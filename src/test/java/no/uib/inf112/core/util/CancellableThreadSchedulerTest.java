@@ -0,0 +1,88 @@
+package no.uib.inf112.core.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CancellableThreadSchedulerTest {
+
+    private CancellableThreadScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new CancellableThreadScheduler();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void tasksRunInOrderOfDelay() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(3);
+        List<Integer> ran = new CopyOnWriteArrayList<>();
+        scheduler.scheduleAsync(() -> {
+            ran.add(3);
+            latch.countDown();
+        }, 30);
+        scheduler.scheduleAsync(() -> {
+            ran.add(1);
+            latch.countDown();
+        }, 0);
+        scheduler.scheduleAsync(() -> {
+            ran.add(2);
+            latch.countDown();
+        }, 10);
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertEquals(1, (int) ran.get(0));
+        assertEquals(2, (int) ran.get(1));
+        assertEquals(3, (int) ran.get(2));
+        assertEquals(3, scheduler.getTasksRun());
+    }
+
+    @Test
+    public void tasksFurtherAwayThanOneLapRun() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        scheduler.scheduleAsync(latch::countDown, 600);
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 599);
+    }
+
+    @Test
+    public void cancelledTasksDoNotRun() throws InterruptedException {
+        boolean[] ran = new boolean[1];
+        for (int i = 0; i < 100; i++) {
+            scheduler.scheduleAsync(() -> ran[0] = true, 20);
+        }
+        assertEquals(100, scheduler.size());
+        scheduler.cancelTasks();
+        assertEquals(0, scheduler.size());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        scheduler.scheduleAsync(latch::countDown, 40);
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertFalse(ran[0]);
+        assertEquals(100, scheduler.getTasksCancelled());
+        assertEquals(1, scheduler.getTasksRun());
+    }
+
+    @Test
+    public void latenessIsMeasured() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        scheduler.scheduleAsync(latch::countDown, 5);
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(scheduler.getMaxLatenessMs() >= 0);
+        assertTrue(scheduler.getAverageLatenessMs() <= scheduler.getMaxLatenessMs());
+    }
+}
@@ -0,0 +1,135 @@
+package no.uib.inf112.core.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class HashedWheelSchedulerTest {
+
+    private HashedWheelScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        //tiny wheel to make sure tasks more than one lap away are handled
+        scheduler = new HashedWheelScheduler(1, 4, Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wheelSizeMustBePowerOfTwo() {
+        new HashedWheelScheduler(1, 3, Runnable::run);
+    }
+
+    @Test
+    public void noDelayRunsAtOnce() {
+        boolean[] ran = new boolean[1];
+        scheduler.scheduleSync(() -> ran[0] = true, 0);
+        assertTrue(ran[0]);
+    }
+
+    @Test
+    public void tasksRunAfterTheirDelay() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(2);
+        List<Integer> ran = new CopyOnWriteArrayList<>();
+        long start = System.nanoTime();
+        scheduler.scheduleSync(() -> {
+            ran.add(2);
+            latch.countDown();
+        }, 20);
+        scheduler.scheduleSync(() -> {
+            ran.add(1);
+            latch.countDown();
+        }, 5);
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 19);
+        assertEquals(1, (int) ran.get(0));
+        assertEquals(2, (int) ran.get(1));
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    public void cancelledTasksDoNotRun() throws InterruptedException {
+        boolean[] ran = new boolean[1];
+        //long enough that a slow test does not see the task run before it is cancelled
+        scheduler.scheduleSync(() -> ran[0] = true, 50);
+        assertEquals(1, scheduler.size());
+        scheduler.cancelTasks();
+        assertEquals(0, scheduler.size());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        scheduler.scheduleSync(latch::countDown, 100);
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertFalse(ran[0]);
+    }
+
+    @Test
+    public void onlyTicksWhileTasksAreWaiting() throws InterruptedException {
+        assertFalse(scheduler.isTicking());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        scheduler.scheduleSync(latch::countDown, 5);
+        assertTrue(scheduler.isTicking());
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertFalse(scheduler.isTicking());
+
+        scheduler.scheduleSync(() -> {
+        }, 50);
+        scheduler.cancelTasks();
+        assertFalse(scheduler.isTicking());
+    }
+
+    @Test
+    public void shutDownWheelDoesNotTakeTasks() {
+        scheduler.shutdown();
+        scheduler.scheduleSync(() -> {
+        }, 5);
+        assertEquals(0, scheduler.size());
+        assertFalse(scheduler.isTicking());
+    }
+
+    @Test
+    public void shutDownWheelDoesNotRunTasksWithoutDelay() {
+        scheduler.shutdown();
+        boolean[] ran = new boolean[1];
+        scheduler.scheduleSync(() -> ran[0] = true, 0);
+        assertFalse(ran[0]);
+    }
+
+    @Test
+    public void tasksTakenOutOfTheWheelBeforeCancelDoNotRun() throws InterruptedException {
+        //hold on to the due tasks, as a main thread that has not gotten to them yet would
+        List<Runnable> handedOver = new CopyOnWriteArrayList<>();
+        HashedWheelScheduler queued = new HashedWheelScheduler(1, 4, handedOver::add);
+        try {
+            boolean[] ran = new boolean[2];
+            queued.scheduleSync(() -> ran[0] = true, 0);
+            queued.scheduleSync(() -> ran[1] = true, 5);
+            long timeout = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (handedOver.size() < 2 && System.nanoTime() < timeout) {
+                Thread.sleep(1);
+            }
+            assertEquals(2, handedOver.size());
+
+            queued.cancelTasks();
+            for (Runnable runnable : handedOver) {
+                runnable.run();
+            }
+            assertFalse(ran[0]);
+            assertFalse(ran[1]);
+        } finally {
+            queued.shutdown();
+        }
+    }
+}
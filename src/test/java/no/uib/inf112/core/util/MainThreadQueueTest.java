@@ -0,0 +1,104 @@
+package no.uib.inf112.core.util;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import no.uib.inf112.core.map.MapHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class MainThreadQueueTest {
+
+    private Application oldApp;
+    private List<Runnable> posted;
+    private MainThreadQueue queue;
+
+    @Before
+    public void setUp() {
+        oldApp = Gdx.app;
+        posted = new ArrayList<>();
+        Gdx.app = mock(Application.class);
+        doAnswer(invocation -> {
+            posted.add(invocation.getArgumentAt(0, Runnable.class));
+            return null;
+        }).when(Gdx.app).postRunnable(any(Runnable.class));
+
+        //large enough to never run out of time, so the tests do not depend on how fast they run
+        queue = new MainThreadQueue(1000);
+    }
+
+    @After
+    public void tearDown() {
+        Gdx.app = oldApp;
+    }
+
+    private void frame() {
+        List<Runnable> toRun = new ArrayList<>(posted);
+        posted.clear();
+        toRun.forEach(Runnable::run);
+    }
+
+    @Test
+    public void manyTasksArePostedOnce() {
+        List<Integer> ran = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int finalI = i;
+            queue.post(() -> ran.add(finalI));
+        }
+        assertEquals(1, posted.size());
+
+        frame();
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), ran);
+        assertEquals(0, queue.size());
+        assertEquals(0, posted.size());
+    }
+
+    @Test
+    public void tasksPostedWhileDrainingRunInSameFrame() {
+        List<Integer> ran = new ArrayList<>();
+        queue.post(() -> {
+            ran.add(1);
+            queue.post(() -> ran.add(3));
+        });
+        queue.post(() -> ran.add(2));
+
+        frame();
+        assertEquals(Arrays.asList(1, 2, 3), ran);
+    }
+
+    @Test
+    public void mapUpdatesAreMerged() {
+        MapHandler map = mock(MapHandler.class);
+        queue.post(() -> {
+            queue.requestMapUpdate(map);
+            queue.requestMapUpdate(map);
+        });
+        queue.post(() -> verify(map, times(1)).update(0));
+
+        frame();
+        verify(map, times(1)).update(0);
+    }
+
+    @Test
+    public void overBudgetContinuesNextFrame() {
+        queue = new MainThreadQueue(0);
+        List<Integer> ran = new ArrayList<>();
+        queue.post(() -> ran.add(1));
+        queue.post(() -> ran.add(2));
+
+        frame();
+        assertEquals(Arrays.asList(1), ran);
+        assertEquals(1, posted.size());
+
+        frame();
+        assertEquals(Arrays.asList(1, 2), ran);
+    }
+}
@@ -0,0 +1,222 @@
+package no.uib.inf112.core.util;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import no.uib.inf112.core.GameGraphics;
+import no.uib.inf112.core.RoboRally;
+import no.uib.inf112.core.map.MapHandler;
+import no.uib.inf112.core.player.AbstractPlayer;
+import no.uib.inf112.core.player.IPlayer;
+import no.uib.inf112.core.round.DefaultGameRule;
+import no.uib.inf112.desktop.TestGraphics;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class RealTimeSchedulerTest extends TestGraphics {
+
+    private static final long BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(MainThreadQueue.DEFAULT_BUDGET_MS);
+    //time the frame loop itself might spend outside of the tasks
+    private static final long SLACK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private Application oldApp;
+    private ConcurrentLinkedQueue<Runnable> posted;
+    private CancellableThreadScheduler timer;
+    private RealTimeScheduler realTime;
+
+    //only touched by the test thread, which is the main thread of these tests
+    private long frameStart;
+    private int tasksInFrame;
+    private long lastTaskEnd;
+    private int tasksRun;
+    private int tasksOverBudget;
+
+    @Before
+    public void setUp() {
+        oldApp = Gdx.app;
+        posted = new ConcurrentLinkedQueue<>();
+        Gdx.app = mock(Application.class);
+        doAnswer(invocation -> {
+            posted.add(invocation.getArgumentAt(0, Runnable.class));
+            return null;
+        }).when(Gdx.app).postRunnable(any(Runnable.class));
+
+        timer = new CancellableThreadScheduler();
+        realTime = new RealTimeScheduler(timer);
+        RoboRally.setScheduler(new TimedScheduler());
+    }
+
+    @After
+    public void tearDown() {
+        timer.shutdown();
+        Gdx.app = oldApp;
+        RoboRally.setScheduler(null);
+    }
+
+    /**
+     * Run everything posted to the main thread, like LibGDX does before rendering a frame
+     */
+    private void frame() {
+        frameStart = System.nanoTime();
+        tasksInFrame = 0;
+        List<Runnable> toRun = new ArrayList<>(posted);
+        posted.removeAll(toRun);
+        toRun.forEach(Runnable::run);
+    }
+
+    /**
+     * Run frames until the condition holds, failing if it takes longer than the given time
+     */
+    private void runFramesUntil(@NotNull BooleanSupplier condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (!condition.getAsBoolean()) {
+            assertTrue("Timed out", System.nanoTime() - deadline < 0);
+            frame();
+            Thread.sleep(1);
+        }
+    }
+
+    private void runFramesFor(long ms) throws InterruptedException {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ms);
+        runFramesUntil(() -> System.nanoTime() - end > 0, 2 * ms + 1000);
+    }
+
+    /**
+     * @return If nothing is waiting to be run, not on the timer nor on the main thread
+     */
+    private boolean isIdle() {
+        return timer.size() == 0 && posted.isEmpty();
+    }
+
+    @Test
+    public void roundIsRunOnTheMainThreadWithinTheBudget() throws InterruptedException {
+        IPlayer player = GameGraphics.createRoboRally(TEST_MAP_FOLDER + File.separatorChar + "round_test_map.tmx", 1)
+                .getPlayerHandler().mainPlayer();
+        player.teleport(6, 0);
+        player.setDirection(Direction.NORTH);
+        player.setBackup(0, 0);
+
+        DefaultGameRule.generate(200).startRound();
+        //a task leaving the timer might not have reached the main thread yet, so wait until it has been idle a while
+        runFramesFor(200);
+        long[] idleSince = {0};
+        runFramesUntil(() -> {
+            if (!isIdle()) {
+                idleSince[0] = System.nanoTime();
+            }
+            return System.nanoTime() - idleSince[0] > TimeUnit.MILLISECONDS.toNanos(100);
+        }, 5000);
+
+        assertTrue(tasksRun > 0);
+        assertEquals("Tasks started after the budget of the frame was spent", 0, tasksOverBudget);
+        assertEquals(6, player.getX());
+        assertEquals(1, player.getY());
+        assertEquals(Direction.NORTH.turnRight(), player.getDirection());
+        assertEquals(AbstractPlayer.MAX_HEALTH - 5, player.getHealth());
+    }
+
+    @Test
+    public void frameStopsWhenTheBudgetIsSpent() {
+        int[] ran = {0};
+        for (int i = 0; i < 100; i++) {
+            realTime.scheduleSync(() -> {
+                long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1);
+                while (System.nanoTime() - end <= 0) {
+                    //spend the time
+                }
+                ran[0]++;
+            }, 0);
+        }
+
+        frame();
+        //every task takes more than a millisecond, so the budget is spent after the fourth
+        assertTrue(ran[0] >= 1);
+        assertTrue("Ran " + ran[0] + " tasks", ran[0] <= MainThreadQueue.DEFAULT_BUDGET_MS);
+        assertEquals(1, posted.size());
+    }
+
+    @Test
+    public void mapUpdatesBeforeATaskAreMerged() {
+        MapHandler map = mock(MapHandler.class);
+        realTime.requestMapUpdate(map);
+        realTime.requestMapUpdate(map);
+        realTime.requestMapUpdate(map);
+        realTime.scheduleSync(() -> verify(map, times(1)).update(0), 0);
+        assertEquals(1, posted.size());
+
+        frame();
+        verify(map, times(1)).update(0);
+    }
+
+    @Test
+    public void cancelledTasksAndMapUpdatesAreNotRun() throws InterruptedException {
+        MapHandler map = mock(MapHandler.class);
+        int[] ran = {0};
+        realTime.scheduleSync(() -> ran[0]++, 0);
+        realTime.scheduleSync(() -> ran[0]++, 5);
+        realTime.requestMapUpdate(map);
+
+        realTime.cancelTasks();
+        runFramesFor(50);
+
+        assertEquals(0, ran[0]);
+        verify(map, never()).update(0);
+        assertTrue(isIdle());
+    }
+
+    @Test
+    public void cancelledRoundIsNotContinued() throws InterruptedException {
+        GameGraphics.createRoboRally(TEST_MAP_FOLDER + File.separatorChar + "round_test_map.tmx", 1);
+        DefaultGameRule.generate(200).startRound();
+        runFramesFor(100);
+        assertTrue(tasksRun > 0);
+
+        RoboRally.getScheduler().cancelTasks();
+        int ranBeforeCancel = tasksRun;
+        runFramesFor(1200);
+
+        assertEquals(ranBeforeCancel, tasksRun);
+        assertTrue(isIdle());
+    }
+
+    /**
+     * Checks that no task is started after the budget of its frame is spent
+     */
+    private class TimedScheduler implements GameScheduler {
+
+        @Override
+        public void scheduleSync(@NotNull Runnable runnable, long msDelay) {
+            realTime.scheduleSync(() -> {
+                if (tasksInFrame > 0 && lastTaskEnd - frameStart > BUDGET_NANOS + SLACK_NANOS) {
+                    tasksOverBudget++;
+                }
+                runnable.run();
+                lastTaskEnd = System.nanoTime();
+                tasksInFrame++;
+                tasksRun++;
+            }, msDelay);
+        }
+
+        @Override
+        public void cancelTasks() {
+            realTime.cancelTasks();
+        }
+
+        @Override
+        public void requestMapUpdate(@NotNull MapHandler map) {
+            realTime.requestMapUpdate(map);
+        }
+    }
+}
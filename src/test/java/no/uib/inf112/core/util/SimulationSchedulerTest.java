@@ -0,0 +1,79 @@
+package no.uib.inf112.core.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SimulationSchedulerTest {
+
+    private SimulationScheduler scheduler;
+    private List<Integer> ran;
+
+    @Before
+    public void setUp() {
+        scheduler = new SimulationScheduler();
+        ran = new ArrayList<>();
+    }
+
+    @Test
+    public void tasksRunInOrderOfTime() {
+        scheduler.scheduleSync(() -> ran.add(3), 30);
+        scheduler.scheduleSync(() -> ran.add(1), 10);
+        scheduler.scheduleSync(() -> ran.add(2), 20);
+
+        assertEquals(3, scheduler.runUntilIdle(10));
+        assertEquals(Arrays.asList(1, 2, 3), ran);
+        assertEquals(30, scheduler.getTime());
+    }
+
+    @Test
+    public void tasksDueAtSameTimeRunInScheduledOrder() {
+        for (int i = 0; i < 5; i++) {
+            int finalI = i;
+            scheduler.scheduleSync(() -> ran.add(finalI), 0);
+        }
+        scheduler.runUntilIdle(10);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), ran);
+    }
+
+    @Test
+    public void delayIsRelativeToTaskScheduling() {
+        scheduler.scheduleSync(() -> scheduler.scheduleSync(() -> ran.add(scheduler.getTime() > 0 ? (int) scheduler.getTime() : -1), 15), 10);
+        scheduler.runUntilIdle(10);
+        assertEquals(Arrays.asList(25), ran);
+    }
+
+    @Test
+    public void runForOnlyRunsDueTasks() {
+        scheduler.scheduleSync(() -> ran.add(1), 10);
+        scheduler.scheduleSync(() -> ran.add(2), 50);
+
+        assertEquals(1, scheduler.runFor(20));
+        assertEquals(20, scheduler.getTime());
+        assertEquals(1, scheduler.size());
+
+        assertEquals(1, scheduler.runFor(30));
+        assertEquals(Arrays.asList(1, 2), ran);
+    }
+
+    @Test
+    public void cancelRemovesTasks() {
+        scheduler.scheduleSync(() -> ran.add(1), 10);
+        scheduler.cancelTasks();
+        assertEquals(0, scheduler.runUntilIdle(10));
+        assertTrue(ran.isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void runUntilIdleStopsNeverEndingTasks() {
+        Runnable[] task = new Runnable[1];
+        task[0] = () -> scheduler.scheduleSync(task[0], 1);
+        scheduler.scheduleSync(task[0], 0);
+        scheduler.runUntilIdle(100);
+    }
+}
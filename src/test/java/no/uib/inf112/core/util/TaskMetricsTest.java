@@ -0,0 +1,102 @@
+package no.uib.inf112.core.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TaskMetricsTest {
+
+    private List<Runnable> queue;
+
+    @Before
+    public void setUp() {
+        TaskMetrics.reset();
+        TaskMetrics.setEnabled(true);
+        queue = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        TaskMetrics.setEnabled(false);
+        TaskMetrics.reset();
+    }
+
+    private void runQueue() {
+        while (!queue.isEmpty()) {
+            queue.remove(0).run();
+        }
+    }
+
+    @Test
+    public void disabledDoesNotWrap() {
+        TaskMetrics.setEnabled(false);
+        Runnable runnable = () -> {
+        };
+        assertSame(runnable, TaskMetrics.instrument(runnable, 10, "tag"));
+    }
+
+    @Test
+    public void taskIsRecordedUnderTag() {
+        boolean[] ran = new boolean[1];
+        queue.add(TaskMetrics.instrument(() -> ran[0] = true, 0, "PlayerPhase"));
+        runQueue();
+
+        assertTrue(ran[0]);
+        Map<String, LatenessHistogram> histograms = TaskMetrics.getHistograms();
+        assertEquals(1, histograms.get("PlayerPhase").getCount());
+    }
+
+    @Test
+    public void nestedTasksInheritTag() {
+        queue.add(TaskMetrics.instrument(() -> {
+            assertEquals("LaserPhase", TaskMetrics.getCurrentTag());
+            queue.add(TaskMetrics.instrument(() -> {
+            }, 0, null));
+        }, 0, "LaserPhase"));
+        runQueue();
+
+        assertEquals(2, TaskMetrics.getHistograms().get("LaserPhase").getCount());
+        assertEquals(TaskMetrics.UNTAGGED, TaskMetrics.getCurrentTag());
+    }
+
+    @Test
+    public void histogramBuckets() {
+        LatenessHistogram hist = new LatenessHistogram();
+        hist.record(0);
+        hist.record(1_500_000); //1.5 ms
+        hist.record(5_000_000); //5 ms
+        hist.record(Long.MAX_VALUE / 2);
+
+        long[] buckets = hist.getBuckets();
+        assertEquals(1, buckets[0]);
+        assertEquals(1, buckets[1]);
+        assertEquals(1, buckets[3]);
+        assertEquals(1, buckets[LatenessHistogram.BUCKETS - 1]);
+        assertEquals(4, hist.getCount());
+        assertEquals(4, LatenessHistogram.getBucketStartMs(3));
+    }
+
+    @Test
+    public void jitterOfEqualLatenessIsZero() {
+        LatenessHistogram hist = new LatenessHistogram();
+        for (int i = 0; i < 10; i++) {
+            hist.record(2_000_000);
+        }
+        assertEquals(2, hist.getAverageMs(), 0.0001);
+        assertEquals(0, hist.getJitterMs(), 0.0001);
+    }
+
+    @Test
+    public void reportContainsTags() {
+        queue.add(TaskMetrics.instrument(() -> {
+        }, 0, "ConveyorPhase"));
+        runQueue();
+        assertTrue(TaskMetrics.report().contains("ConveyorPhase"));
+    }
+}
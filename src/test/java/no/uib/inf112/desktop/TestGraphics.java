@@ -8,8 +8,10 @@ import com.badlogic.gdx.Graphics;
 import com.badlogic.gdx.backends.headless.HeadlessApplication;
 import com.badlogic.gdx.graphics.GL20;
 import no.uib.inf112.core.GameGraphics;
+import no.uib.inf112.core.RoboRally;
 import no.uib.inf112.core.player.IPlayer;
 import org.junit.AfterClass;
+import org.junit.Before;
 import org.junit.BeforeClass;
 
 import static org.mockito.Matchers.any;
@@ -44,6 +46,14 @@ public class TestGraphics {
         when(Gdx.graphics.getHeight()).thenReturn(1);
     }
 
+    // Start every test with a new default scheduler, so delayed tasks left by a previous test neither run nor share
+    // a main thread queue with the tasks of this test
+    @Before
+    public void resetScheduler() {
+        RoboRally.getScheduler().cancelTasks();
+        RoboRally.setScheduler(null);
+    }
+
     // After we are done, clean up the application
     @AfterClass
     public static void cleanUp() {